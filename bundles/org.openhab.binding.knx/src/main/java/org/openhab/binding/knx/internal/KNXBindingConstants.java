@@ -86,6 +86,11 @@ public class KNXBindingConstants {
 
     public static final String CHANNEL_RESET = "reset";
 
+    // Bridge Channel IDs
+    public static final String CHANNEL_READ_PENDING = "read-pending";
+    public static final String CHANNEL_READ_PROGRESS = "read-progress";
+    public static final String CHANNEL_READ_ETA = "read-eta";
+
     // Channel Configuration parameters
     public static final String GA = "ga";
     public static final String HSB_GA = "hsb";
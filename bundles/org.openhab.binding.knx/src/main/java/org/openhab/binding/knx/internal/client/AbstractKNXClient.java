@@ -12,9 +12,14 @@
  */
 package org.openhab.binding.knx.internal.client;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -37,10 +42,12 @@ import tuwien.auto.calimero.DetachEvent;
 import tuwien.auto.calimero.FrameEvent;
 import tuwien.auto.calimero.GroupAddress;
 import tuwien.auto.calimero.IndividualAddress;
+import tuwien.auto.calimero.KNXAckTimeoutException;
 import tuwien.auto.calimero.KNXException;
 import tuwien.auto.calimero.datapoint.CommandDP;
 import tuwien.auto.calimero.datapoint.Datapoint;
 import tuwien.auto.calimero.device.ProcessCommunicationResponder;
+import tuwien.auto.calimero.link.KNXLinkClosedException;
 import tuwien.auto.calimero.link.KNXNetworkLink;
 import tuwien.auto.calimero.link.NetworkLinkListener;
 import tuwien.auto.calimero.mgmt.Destination;
@@ -64,15 +71,14 @@ import tuwien.auto.calimero.process.ProcessListener;
 public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClient {
 
     private static final int MAX_SEND_ATTEMPTS = 2;
+    private static final long READ_PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(1);
 
     private final Logger logger = LoggerFactory.getLogger(AbstractKNXClient.class);
     private final KNXTypeMapper typeHelper = new KNXCoreTypeMapper();
 
     private final ThingUID thingUID;
     private final int responseTimeout;
-    private final int readingPause;
     private final int autoReconnectPeriod;
-    private final int readRetriesLimit;
     private final StatusUpdateCallback statusUpdateCallback;
     private final ScheduledExecutorService knxScheduler;
 
@@ -86,7 +92,11 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
     private @Nullable ScheduledFuture<?> connectJob;
 
     private final Set<GroupAddressListener> groupAddressListeners = new CopyOnWriteArraySet<>();
-    private final LinkedBlockingQueue<ReadDatapoint> readDatapoints = new LinkedBlockingQueue<>();
+    private final Map<GroupAddress, Set<GroupAddressListener>> groupAddressListenerIndex = new ConcurrentHashMap<>();
+    // Telegrams not yet dispatched, per group address. A group address is mapped while its telegrams are dispatched.
+    private final Map<GroupAddress, Queue<Runnable>> pendingTelegrams = new HashMap<>();
+    private final ReadScheduler readScheduler;
+    private long lastReadProgress;
 
     @FunctionalInterface
     private interface ListenerNotification {
@@ -128,8 +138,7 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         this.autoReconnectPeriod = autoReconnectPeriod;
         this.thingUID = thingUID;
         this.responseTimeout = responseTimeout;
-        this.readingPause = readingPause;
-        this.readRetriesLimit = readRetriesLimit;
+        this.readScheduler = new ReadScheduler(readingPause, readRetriesLimit);
         this.knxScheduler = knxScheduler;
         this.statusUpdateCallback = statusUpdateCallback;
     }
@@ -196,8 +205,7 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
 
             link.addLinkListener(this);
 
-            busJob = knxScheduler.scheduleWithFixedDelay(() -> readNextQueuedDatapoint(), 0, readingPause,
-                    TimeUnit.MILLISECONDS);
+            busJob = knxScheduler.schedule(() -> readNextQueuedDatapoint(link), 0, TimeUnit.MILLISECONDS);
 
             statusUpdateCallback.updateStatus(ThingStatus.ONLINE);
             cancelReconnectJob(false);
@@ -219,9 +227,10 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         }
     }
 
-    private void releaseConnection() {
+    private synchronized void releaseConnection() {
         logger.debug("Bridge {} is disconnecting from the KNX bus", thingUID);
-        readDatapoints.clear();
+        readScheduler.clear();
+        reportReadProgress(true);
         busJob = nullify(busJob, j -> j.cancel(true));
         deviceInfoClient = null;
         managementProcedures = nullify(managementProcedures, mp -> mp.detach());
@@ -249,10 +258,57 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         IndividualAddress source = event.getSourceAddr();
         byte[] asdu = event.getASDU();
         logger.trace("Received a {} telegram from '{}' to '{}' with value '{}'", task, source, destination, asdu);
-        for (GroupAddressListener listener : groupAddressListeners) {
-            if (listener.listensTo(destination)) {
-                knxScheduler.schedule(() -> action.apply(listener, source, destination, asdu), 0, TimeUnit.SECONDS);
+        if (!groupAddressListenerIndex.containsKey(destination)) {
+            return;
+        }
+        Runnable telegram = () -> {
+            // Look the listeners up when dispatching, they may have changed while the telegram was pending
+            for (GroupAddressListener listener : groupAddressListenerIndex.getOrDefault(destination,
+                    Collections.emptySet())) {
+                try {
+                    action.apply(listener, source, destination, asdu);
+                } catch (RuntimeException e) {
+                    logger.warn("Listener {} failed to process a {} telegram to '{}'", listener, task, destination, e);
+                }
+            }
+        };
+        synchronized (pendingTelegrams) {
+            @Nullable
+            Queue<Runnable> queue = pendingTelegrams.get(destination);
+            if (queue != null) {
+                // The telegrams to this group address are being dispatched already, keep their order
+                queue.add(telegram);
+                return;
             }
+            queue = new ArrayDeque<>();
+            queue.add(telegram);
+            pendingTelegrams.put(destination, queue);
+        }
+        try {
+            knxScheduler.execute(() -> dispatchTelegrams(destination));
+        } catch (RuntimeException e) {
+            // Nothing dispatches the queue, later telegrams to this group address would be queued forever
+            synchronized (pendingTelegrams) {
+                pendingTelegrams.remove(destination);
+            }
+            logger.warn("Failed to dispatch a {} telegram to '{}'", task, destination, e);
+        }
+    }
+
+    private void dispatchTelegrams(GroupAddress destination) {
+        while (true) {
+            @Nullable
+            Runnable telegram;
+            synchronized (pendingTelegrams) {
+                @Nullable
+                Queue<Runnable> queue = pendingTelegrams.get(destination);
+                telegram = queue != null ? queue.poll() : null;
+                if (telegram == null) {
+                    pendingTelegrams.remove(destination);
+                    return;
+                }
+            }
+            telegram.run();
         }
     }
 
@@ -268,6 +324,20 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         return typeHelper.toDPTValue(type, dpt);
     }
 
+    private void readNextQueuedDatapoint(KNXNetworkLink link) {
+        try {
+            readNextQueuedDatapoint();
+        } finally {
+            // the pause adapts to the bus, so the next read is scheduled after each read
+            synchronized (this) {
+                if (this.link == link && busJob != null) {
+                    busJob = knxScheduler.schedule(() -> readNextQueuedDatapoint(link), readScheduler.getPause(),
+                            TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
     private void readNextQueuedDatapoint() {
         if (!connectIfNotAutomatic()) {
             return;
@@ -276,15 +346,21 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         if (processCommunicator == null) {
             return;
         }
-        ReadDatapoint datapoint = readDatapoints.poll();
+        ReadDatapoint datapoint = readScheduler.poll();
         if (datapoint != null) {
             datapoint.incrementRetries();
+            long start = System.nanoTime();
             try {
                 logger.trace("Sending a Group Read Request telegram for {}", datapoint.getDatapoint().getMainAddress());
                 processCommunicator.read(datapoint.getDatapoint());
+                readScheduler.readAnswered(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
             } catch (KNXException e) {
-                if (datapoint.getRetries() < datapoint.getLimit()) {
-                    readDatapoints.add(datapoint);
+                if (e instanceof KNXAckTimeoutException || e instanceof KNXLinkClosedException) {
+                    // The request did not make it to the bus, give the bus or tunnel more time. Unanswered requests
+                    // (KNXTimeoutException) are up to the devices and do not change the pause.
+                    readScheduler.readFailed();
+                }
+                if (readScheduler.retry(datapoint)) {
                     logger.debug("Could not read value for datapoint {}: {}. Going to retry.",
                             datapoint.getDatapoint().getMainAddress(), e.getMessage());
                 } else {
@@ -295,6 +371,16 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
                 logger.debug("Interrupted sending KNX read request");
                 return;
             }
+            reportReadProgress(readScheduler.getPending() == 0);
+        }
+    }
+
+    private void reportReadProgress(boolean force) {
+        long now = System.nanoTime();
+        if (force || now - lastReadProgress >= READ_PROGRESS_INTERVAL) {
+            lastReadProgress = now;
+            statusUpdateCallback.updateReadProgress(readScheduler.getPending(), readScheduler.getProgress(),
+                    readScheduler.getEstimatedTime());
         }
     }
 
@@ -363,22 +449,37 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
     }
 
     @Override
-    public void readDatapoint(Datapoint datapoint) {
-        synchronized (this) {
-            ReadDatapoint retryDatapoint = new ReadDatapoint(datapoint, readRetriesLimit);
-            if (!readDatapoints.contains(retryDatapoint)) {
-                readDatapoints.add(retryDatapoint);
-            }
-        }
+    public void readDatapoint(Datapoint datapoint, ReadPriority priority) {
+        readScheduler.add(datapoint, priority);
+    }
+
+    /**
+     * Returns the listener of process events received on the bus, for tests.
+     */
+    ProcessListener getProcessListener() {
+        return processListener;
     }
 
     @Override
     public final boolean registerGroupAddressListener(GroupAddressListener listener) {
+        for (GroupAddress groupAddress : listener.getGroupAddresses()) {
+            groupAddressListenerIndex.compute(groupAddress, (ga, listeners) -> {
+                Set<GroupAddressListener> result = listeners != null ? listeners : new CopyOnWriteArraySet<>();
+                result.add(listener);
+                return result;
+            });
+        }
         return groupAddressListeners.add(listener);
     }
 
     @Override
     public final boolean unregisterGroupAddressListener(GroupAddressListener listener) {
+        for (GroupAddress groupAddress : groupAddressListenerIndex.keySet()) {
+            groupAddressListenerIndex.computeIfPresent(groupAddress, (ga, listeners) -> {
+                listeners.remove(listener);
+                return listeners.isEmpty() ? null : listeners;
+            });
+        }
         return groupAddressListeners.remove(listener);
     }
 
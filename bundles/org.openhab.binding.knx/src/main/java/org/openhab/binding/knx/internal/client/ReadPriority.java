@@ -0,0 +1,27 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+/**
+ * Priority of a read request, determining the order in which queued data points are read from the KNX bus.
+ *
+ * @author agent - Initial contribution
+ */
+public enum ReadPriority {
+    /** Explicitly requested reads, e.g. a refresh of a channel from a user interface */
+    HIGH,
+    /** Initial and periodic reads of linked channels */
+    NORMAL,
+    /** Retries of failed reads */
+    LOW
+}
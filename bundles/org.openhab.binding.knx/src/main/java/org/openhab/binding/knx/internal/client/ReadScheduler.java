@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.datapoint.Datapoint;
+
+/**
+ * Queue of data points to be read from the KNX bus.
+ * <p>
+ * Data points are read in the order of their {@link ReadPriority}, and in the order they were queued within the same
+ * priority. A data point is queued at most once per group address: Queuing it again only raises its priority.
+ * </p>
+ * <p>
+ * The pause between two read requests adapts to the bus: It grows with the time the bus or tunnel takes to
+ * acknowledge and answer a read request, and doubles after each request failing on the way to the bus, but it never
+ * falls below the configured reading pause. Read requests which are not answered, e.g. because no device responds to
+ * the group address, say nothing about the bus and do not change the pause.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ReadScheduler {
+
+    private static final long MAX_PAUSE = TimeUnit.SECONDS.toMillis(5);
+    private static final int MAX_BACKOFF = 32;
+    // weight of the latest read in the average read duration
+    private static final double DURATION_WEIGHT = 0.2;
+
+    private final int readingPause;
+    private final int readRetriesLimit;
+
+    private final Map<GroupAddress, ReadDatapoint> pending = new HashMap<>();
+    private final Map<ReadPriority, Queue<ReadDatapoint>> queues = new EnumMap<>(ReadPriority.class);
+    private int completed;
+    private double averageDuration;
+    private int backoff = 1;
+
+    /**
+     * Creates a {@link ReadScheduler}.
+     *
+     * @param readingPause the minimum pause between two read requests in milliseconds
+     * @param readRetriesLimit the number of attempts to read a data point
+     */
+    public ReadScheduler(int readingPause, int readRetriesLimit) {
+        this.readingPause = readingPause;
+        this.readRetriesLimit = readRetriesLimit;
+        for (ReadPriority priority : ReadPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Queue a data point to be read.
+     *
+     * @param datapoint the data point
+     * @param priority the priority
+     * @return {@code true} if the data point was queued, {@code false} if it was queued already
+     */
+    public synchronized boolean add(Datapoint datapoint, ReadPriority priority) {
+        if (pending.isEmpty()) {
+            // start a new round of reads
+            completed = 0;
+        }
+        GroupAddress groupAddress = datapoint.getMainAddress();
+        @Nullable
+        ReadDatapoint queued = pending.get(groupAddress);
+        if (queued != null) {
+            if (priority.compareTo(queued.getPriority()) < 0) {
+                // the entry in the queue of the lower priority is skipped by poll()
+                queued.setPriority(priority);
+                queues.get(priority).add(queued);
+            }
+            return false;
+        }
+        ReadDatapoint readDatapoint = new ReadDatapoint(datapoint, readRetriesLimit, priority);
+        pending.put(groupAddress, readDatapoint);
+        queues.get(priority).add(readDatapoint);
+        return true;
+    }
+
+    /**
+     * Take the next data point to be read.
+     *
+     * @return the data point, or {@code null} if no data point is queued
+     */
+    public synchronized @Nullable ReadDatapoint poll() {
+        for (Map.Entry<ReadPriority, Queue<ReadDatapoint>> entry : queues.entrySet()) {
+            @Nullable
+            ReadDatapoint readDatapoint;
+            while ((readDatapoint = entry.getValue().poll()) != null) {
+                GroupAddress groupAddress = readDatapoint.getDatapoint().getMainAddress();
+                if (readDatapoint.getPriority() == entry.getKey() && pending.get(groupAddress) == readDatapoint) {
+                    pending.remove(groupAddress);
+                    completed++;
+                    return readDatapoint;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Queue a data point again after it could not be read, unless the retries limit is reached or the data point has
+     * been queued again in the meantime.
+     *
+     * @param readDatapoint the data point, as returned by {@link #poll()}
+     * @return {@code true} if the data point will be read again
+     */
+    public synchronized boolean retry(ReadDatapoint readDatapoint) {
+        if (readDatapoint.getRetries() >= readDatapoint.getLimit()) {
+            return false;
+        }
+        GroupAddress groupAddress = readDatapoint.getDatapoint().getMainAddress();
+        if (pending.containsKey(groupAddress)) {
+            return true;
+        }
+        readDatapoint.setPriority(ReadPriority.LOW);
+        pending.put(groupAddress, readDatapoint);
+        queues.get(ReadPriority.LOW).add(readDatapoint);
+        completed = Math.max(0, completed - 1);
+        return true;
+    }
+
+    /**
+     * Record an answered read request to adapt the pause between read requests.
+     *
+     * @param duration the time in milliseconds until the read request was answered
+     */
+    public synchronized void readAnswered(long duration) {
+        averageDuration = averageDuration == 0 ? duration
+                : DURATION_WEIGHT * duration + (1 - DURATION_WEIGHT) * averageDuration;
+        backoff = Math.max(1, backoff / 2);
+    }
+
+    /**
+     * Record a read request which could not be sent, e.g. because the tunnel did not acknowledge it or the link was
+     * closed. The pause between read requests is increased.
+     */
+    public synchronized void readFailed() {
+        backoff = Math.min(MAX_BACKOFF, backoff * 2);
+    }
+
+    /**
+     * Returns the pause in milliseconds until the next read request should be sent.
+     */
+    public synchronized long getPause() {
+        long pause = Math.max(readingPause, Math.round(averageDuration)) * backoff;
+        return Math.max(readingPause, Math.min(MAX_PAUSE, pause));
+    }
+
+    /**
+     * Returns the number of data points waiting to be read.
+     */
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the percentage of the data points read since the queue was empty the last time.
+     */
+    public synchronized int getProgress() {
+        int total = completed + pending.size();
+        return total == 0 ? 100 : completed * 100 / total;
+    }
+
+    /**
+     * Returns the estimated time in seconds until all queued data points are read.
+     */
+    public synchronized long getEstimatedTime() {
+        return Math.round(pending.size() * (averageDuration + getPause()) / 1000);
+    }
+
+    /**
+     * Removes all queued data points.
+     */
+    public synchronized void clear() {
+        pending.clear();
+        queues.values().forEach(Queue::clear);
+        completed = 0;
+    }
+}
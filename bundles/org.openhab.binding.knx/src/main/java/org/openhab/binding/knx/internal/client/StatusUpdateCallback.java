@@ -39,4 +39,13 @@ public interface StatusUpdateCallback {
      */
     void updateStatus(ThingStatus status, ThingStatusDetail thingStatusDetail, String message);
 
+    /**
+     * Reports the progress of reading the queued data points from the KNX bus.
+     *
+     * @param pending the number of data points waiting to be read
+     * @param progress the percentage of the queued data points which have been read
+     * @param estimatedTime the estimated time in seconds until all queued data points are read
+     */
+    void updateReadProgress(int pending, int progress, long estimatedTime);
+
 }
@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.smarthome.core.library.types.DateTimeType;
 import org.eclipse.smarthome.core.library.types.DecimalType;
@@ -68,6 +69,7 @@ import tuwien.auto.calimero.dptxlator.DPTXlatorString;
 import tuwien.auto.calimero.dptxlator.DPTXlatorTime;
 import tuwien.auto.calimero.dptxlator.DPTXlatorUtf8;
 import tuwien.auto.calimero.dptxlator.TranslatorTypes;
+import tuwien.auto.calimero.dptxlator.TranslatorTypes.MainType;
 
 /**
  * This class provides type mapping between all openHAB core types and KNX data point types.
@@ -107,6 +109,34 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
     /** stores the default KNX DPT to use for each openHAB type */
     private final Map<Class<? extends Type>, String> defaultDptMap;
 
+    /** stores the resolved datapoint types by datapoint type id, shared by all mappers */
+    private static final Map<String, DPTInfo> dptInfoMap = new ConcurrentHashMap<>();
+
+    /**
+     * A datapoint type, resolved once for all telegrams of the type
+     */
+    private static class DPTInfo {
+        final int mainNumber;
+        final int subNumber;
+        final MainType mainType;
+        final DPT dpt;
+
+        DPTInfo(int mainNumber, int subNumber, MainType mainType, DPT dpt) {
+            this.mainNumber = mainNumber;
+            this.subNumber = subNumber;
+            this.mainType = mainType;
+            this.dpt = dpt;
+        }
+
+        /**
+         * Creates a translator without looking up the datapoint type id again. Translators are not thread safe, so
+         * every conversion uses its own translator.
+         */
+        DPTXlator createTranslator() throws KNXException {
+            return mainType.createTranslator(dpt);
+        }
+    }
+
     public KNXCoreTypeMapper() {
 
         @SuppressWarnings("unused")
@@ -574,24 +604,18 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
     @Override
     public String toDPTValue(Type type, String dptID) {
 
-        DPT dpt;
-        int mainNumber = getMainNumber(dptID);
-        if (mainNumber == -1) {
-            logger.error("toDPTValue couldn't identify mainnumber in dptID: {}", dptID);
-            return null;
-        }
-        int subNumber = getSubNumber(dptID);
-        if (subNumber == -1) {
-            logger.debug("toType: couldn't identify sub number in dptID: {}.", dptID);
-            return null;
-        }
-
+        DPTInfo info;
         try {
-            DPTXlator translator = TranslatorTypes.createTranslator(mainNumber, dptID);
-            dpt = translator.getType();
+            info = getDPTInfo(dptID);
         } catch (KNXException e) {
             return null;
         }
+        if (info == null) {
+            return null;
+        }
+        DPT dpt = info.dpt;
+        int mainNumber = info.mainNumber;
+        int subNumber = info.subNumber;
 
         try {
             // check for HSBType first, because it extends PercentType as well
@@ -675,23 +699,20 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
     @Override
     public Type toType(Datapoint datapoint, byte[] data) {
         try {
-            DPTXlator translator = TranslatorTypes.createTranslator(datapoint.getMainNumber(), datapoint.getDPT());
+            DPTInfo info = getDPTInfo(datapoint.getDPT());
+            if (info == null) {
+                return null;
+            }
+            DPTXlator translator = info.createTranslator();
             translator.setData(data);
-            String value = translator.getValue();
+            // The string value is only needed by some types, create it on demand
+            String value = null;
 
-            String id = translator.getType().getID();
+            String id = info.dpt.getID();
             logger.trace("toType datapoint DPT = {}", datapoint.getDPT());
 
-            int mainNumber = getMainNumber(id);
-            if (mainNumber == -1) {
-                logger.debug("toType: couldn't identify mainnumber in dptID: {}.", id);
-                return null;
-            }
-            int subNumber = getSubNumber(id);
-            if (subNumber == -1) {
-                logger.debug("toType: couldn't identify sub number in dptID: {}.", id);
-                return null;
-            }
+            int mainNumber = info.mainNumber;
+            int subNumber = info.subNumber;
             /*
              * Following code section deals with specific mapping of values from KNX to openHAB types were the String
              * received from the DPTXlator is not sufficient to set the openHAB type or has bugs
@@ -756,7 +777,7 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
                 case 18:
                     DPTXlatorSceneControl translatorSceneControl = (DPTXlatorSceneControl) translator;
                     int decimalValue = translatorSceneControl.getSceneNumber();
-                    if (value.startsWith("learn")) {
+                    if (translator.getValue().startsWith("learn")) {
                         decimalValue += 0x80;
                     }
                     value = String.valueOf(decimalValue);
@@ -825,6 +846,9 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
             if (typeClass.equals(DecimalType.class)) {
                 return new DecimalType(translator.getNumericValue());
             }
+            if (value == null) {
+                value = translator.getValue();
+            }
             if (typeClass.equals(StringType.class)) {
                 return StringType.valueOf(value);
             }
@@ -861,6 +885,54 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
         return null;
     }
 
+    /**
+     * Resolves a datapoint type id, or returns the already resolved datapoint type.
+     *
+     * @param dptID the datapoint type id
+     * @return the resolved datapoint type or {@code null} if the main or sub number is unknown
+     * @throws KNXException if there is no translator for the datapoint type
+     * @throws IllegalArgumentException if the datapoint type id is null
+     */
+    private DPTInfo getDPTInfo(String dptID) throws KNXException {
+        if (dptID == null) {
+            throw new IllegalArgumentException("Parameter dptID cannot be null");
+        }
+        DPTInfo info = dptInfoMap.get(dptID);
+        if (info != null) {
+            return info;
+        }
+
+        int mainNumber = getMainNumber(dptID);
+        if (mainNumber == -1) {
+            logger.debug("couldn't identify mainnumber in dptID: {}.", dptID);
+            return null;
+        }
+        DPTXlator translator = TranslatorTypes.createTranslator(mainNumber, dptID);
+        DPT dpt = translator.getType();
+
+        // the translator may use a different notation of the id
+        String id = dpt.getID();
+        mainNumber = getMainNumber(id);
+        if (mainNumber == -1) {
+            logger.debug("couldn't identify mainnumber in dptID: {}.", id);
+            return null;
+        }
+        int subNumber = getSubNumber(id);
+        if (subNumber == -1) {
+            logger.debug("couldn't identify sub number in dptID: {}.", id);
+            return null;
+        }
+        MainType mainType = TranslatorTypes.getMainType(mainNumber);
+        if (mainType == null) {
+            logger.debug("couldn't find main type of dptID: {}.", id);
+            return null;
+        }
+
+        info = new DPTInfo(mainNumber, subNumber, mainType, dpt);
+        dptInfoMap.put(dptID, info);
+        return info;
+    }
+
     /**
      * Converts a datapoint type id into an openHAB type class
      *
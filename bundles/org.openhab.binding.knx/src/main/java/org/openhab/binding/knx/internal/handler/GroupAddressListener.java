@@ -12,6 +12,8 @@
  */
 package org.openhab.binding.knx.internal.handler;
 
+import java.util.Set;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.binding.knx.internal.client.BusMessageListener;
 
@@ -34,4 +36,12 @@ public interface GroupAddressListener extends BusMessageListener {
      */
     public boolean listensTo(GroupAddress destination);
 
+    /**
+     * Returns all GroupAddresses the GroupAddressListener has an interest in. The GroupAddresses must be known when
+     * the GroupAddressListener is registered at the client, as the client indexes its listeners by GroupAddress.
+     *
+     * @return the GroupAddresses
+     */
+    public Set<GroupAddress> getGroupAddresses();
+
 }
@@ -12,6 +12,8 @@
  */
 package org.openhab.binding.knx.internal.handler;
 
+import static org.openhab.binding.knx.internal.KNXBindingConstants.*;
+
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -19,6 +21,10 @@ import java.util.concurrent.ScheduledExecutorService;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.library.types.QuantityType;
+import org.eclipse.smarthome.core.library.unit.SmartHomeUnits;
 import org.eclipse.smarthome.core.thing.Bridge;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.ThingStatus;
@@ -79,4 +85,11 @@ public abstract class KNXBridgeBaseThingHandler extends BaseBridgeHandler implem
         super.updateStatus(status, statusDetail, description);
     }
 
+    @Override
+    public void updateReadProgress(int pending, int progress, long estimatedTime) {
+        updateState(CHANNEL_READ_PENDING, new DecimalType(pending));
+        updateState(CHANNEL_READ_PROGRESS, new PercentType(progress));
+        updateState(CHANNEL_READ_ETA, new QuantityType<>(estimatedTime, SmartHomeUnits.SECOND));
+    }
+
 }
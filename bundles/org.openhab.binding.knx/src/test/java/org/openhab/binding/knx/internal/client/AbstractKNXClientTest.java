@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.smarthome.core.thing.ThingUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.openhab.binding.knx.internal.handler.GroupAddressListener;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.IndividualAddress;
+import tuwien.auto.calimero.link.KNXNetworkLink;
+import tuwien.auto.calimero.process.ProcessEvent;
+
+/**
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class AbstractKNXClientTest {
+
+    private static final IndividualAddress SOURCE = new IndividualAddress(1, 1, 1);
+    private static final GroupAddress GA1 = new GroupAddress(1, 0, 1);
+    private static final GroupAddress GA2 = new GroupAddress(1, 0, 2);
+    private static final GroupAddress GA3 = new GroupAddress(1, 0, 3);
+
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private final List<Runnable> tasks = new ArrayList<>();
+    private AbstractKNXClient client;
+
+    @Before
+    public void setUp() {
+        doAnswer(invocation -> tasks.add(invocation.getArgument(0))).when(scheduler).execute(any(Runnable.class));
+        client = new AbstractKNXClient(0, new ThingUID("knx:ip:bridge"), 5, 50, 3, scheduler,
+                mock(StatusUpdateCallback.class)) {
+            @Override
+            protected KNXNetworkLink establishConnection() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static GroupAddressListener listener(GroupAddress... groupAddresses) {
+        GroupAddressListener listener = mock(GroupAddressListener.class);
+        doReturn(new HashSet<>(Arrays.asList(groupAddresses))).when(listener).getGroupAddresses();
+        return listener;
+    }
+
+    private void groupWrite(GroupAddress destination, int value) {
+        ProcessEvent event = mock(ProcessEvent.class);
+        doReturn(SOURCE).when(event).getSourceAddr();
+        doReturn(destination).when(event).getDestination();
+        doReturn(new byte[] { (byte) value }).when(event).getASDU();
+        client.getProcessListener().groupWrite(event);
+    }
+
+    private void runTasks() {
+        List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    @Test
+    public void telegramsAreDispatchedToIndexedListeners() {
+        GroupAddressListener first = listener(GA1, GA2);
+        GroupAddressListener second = listener(GA2);
+        client.registerGroupAddressListener(first);
+        client.registerGroupAddressListener(second);
+
+        groupWrite(GA3, 1);
+        assertTrue("Telegram without listeners dispatched", tasks.isEmpty());
+
+        groupWrite(GA2, 2);
+        runTasks();
+        verify(first).onGroupWrite(client, SOURCE, GA2, new byte[] { 2 });
+        verify(second).onGroupWrite(client, SOURCE, GA2, new byte[] { 2 });
+
+        client.unregisterGroupAddressListener(first);
+        groupWrite(GA1, 3);
+        assertTrue("Telegram to unregistered listener dispatched", tasks.isEmpty());
+        groupWrite(GA2, 4);
+        runTasks();
+        verify(first, never()).onGroupWrite(any(), any(), any(), eq(new byte[] { 4 }));
+        verify(second).onGroupWrite(client, SOURCE, GA2, new byte[] { 4 });
+    }
+
+    @Test
+    public void telegramsToGroupAddressAreDispatchedInOrder() {
+        GroupAddressListener listener = listener(GA1, GA2);
+        client.registerGroupAddressListener(listener);
+
+        groupWrite(GA1, 1);
+        groupWrite(GA2, 2);
+        groupWrite(GA1, 3);
+        // One task per group address, the later telegram is queued
+        assertEquals(2, tasks.size());
+
+        doThrow(new IllegalStateException("test")).when(listener).onGroupWrite(client, SOURCE, GA1, new byte[] { 1 });
+        runTasks();
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onGroupWrite(client, SOURCE, GA1, new byte[] { 1 });
+        inOrder.verify(listener).onGroupWrite(client, SOURCE, GA1, new byte[] { 3 });
+        verify(listener).onGroupWrite(client, SOURCE, GA2, new byte[] { 2 });
+
+        // All telegrams are dispatched, the next one gets a new task
+        groupWrite(GA1, 5);
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    public void rejectedDispatchDoesNotBlockGroupAddress() {
+        GroupAddressListener listener = listener(GA1);
+        client.registerGroupAddressListener(listener);
+
+        doThrow(new RejectedExecutionException("test")).when(scheduler).execute(any(Runnable.class));
+        groupWrite(GA1, 1);
+
+        doAnswer(invocation -> tasks.add(invocation.getArgument(0))).when(scheduler).execute(any(Runnable.class));
+        groupWrite(GA1, 2);
+        assertEquals(1, tasks.size());
+        runTasks();
+        verify(listener).onGroupWrite(client, SOURCE, GA1, new byte[] { 2 });
+        verify(listener, never()).onGroupWrite(any(), any(), any(), eq(new byte[] { 1 }));
+    }
+}
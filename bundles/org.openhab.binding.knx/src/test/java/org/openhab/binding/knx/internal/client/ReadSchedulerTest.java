@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.datapoint.CommandDP;
+import tuwien.auto.calimero.datapoint.Datapoint;
+
+/**
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class ReadSchedulerTest {
+
+    private static Datapoint datapoint(int mainGroup, int middleGroup, int subGroup) {
+        return new CommandDP(new GroupAddress(mainGroup, middleGroup, subGroup), "test", 0, "1.001");
+    }
+
+    @Test
+    public void testOrderAndDeduplication() {
+        ReadScheduler scheduler = new ReadScheduler(50, 3);
+        assertTrue(scheduler.add(datapoint(1, 0, 1), ReadPriority.NORMAL));
+        assertTrue(scheduler.add(datapoint(1, 0, 2), ReadPriority.NORMAL));
+        assertFalse(scheduler.add(datapoint(1, 0, 1), ReadPriority.NORMAL));
+        assertTrue(scheduler.add(datapoint(1, 0, 3), ReadPriority.NORMAL));
+        // raises the priority of the queued data point
+        assertFalse(scheduler.add(datapoint(1, 0, 3), ReadPriority.HIGH));
+        assertEquals(3, scheduler.getPending());
+
+        assertEquals(new GroupAddress(1, 0, 3), scheduler.poll().getDatapoint().getMainAddress());
+        assertEquals(new GroupAddress(1, 0, 1), scheduler.poll().getDatapoint().getMainAddress());
+        assertEquals(new GroupAddress(1, 0, 2), scheduler.poll().getDatapoint().getMainAddress());
+        assertNull(scheduler.poll());
+        assertEquals(100, scheduler.getProgress());
+    }
+
+    @Test
+    public void testRetry() {
+        ReadScheduler scheduler = new ReadScheduler(50, 2);
+        scheduler.add(datapoint(1, 0, 1), ReadPriority.NORMAL);
+        scheduler.add(datapoint(1, 0, 2), ReadPriority.NORMAL);
+
+        ReadDatapoint failed = scheduler.poll();
+        failed.incrementRetries();
+        assertTrue(scheduler.retry(failed));
+        assertEquals(0, scheduler.getProgress());
+
+        // retries are read last
+        scheduler.add(datapoint(1, 0, 3), ReadPriority.NORMAL);
+        assertEquals(new GroupAddress(1, 0, 2), scheduler.poll().getDatapoint().getMainAddress());
+        assertEquals(new GroupAddress(1, 0, 3), scheduler.poll().getDatapoint().getMainAddress());
+        assertSame(failed, scheduler.poll());
+
+        failed.incrementRetries();
+        assertFalse(scheduler.retry(failed));
+        assertEquals(0, scheduler.getPending());
+    }
+
+    @Test
+    public void testPauseAdaptsToBus() {
+        ReadScheduler scheduler = new ReadScheduler(50, 3);
+        assertEquals(50, scheduler.getPause());
+
+        scheduler.readAnswered(20);
+        assertEquals(50, scheduler.getPause());
+
+        scheduler.readFailed();
+        assertEquals(100, scheduler.getPause());
+
+        for (int i = 0; i < 10; i++) {
+            scheduler.readFailed();
+        }
+        assertEquals(1600, scheduler.getPause());
+
+        for (int i = 0; i < 100; i++) {
+            scheduler.readAnswered(20);
+        }
+        assertEquals(50, scheduler.getPause());
+
+        // a slow tunnel
+        for (int i = 0; i < 100; i++) {
+            scheduler.readAnswered(400);
+        }
+        assertEquals(400, scheduler.getPause());
+        for (int i = 0; i < 10; i++) {
+            scheduler.readFailed();
+        }
+        assertEquals(5000, scheduler.getPause());
+    }
+}
@@ -12,11 +12,22 @@
  */
 package org.openhab.binding.knx.internal.dpt;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.IncreaseDecreaseType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.types.Type;
 import org.junit.Test;
 
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.KNXFormatException;
+import tuwien.auto.calimero.datapoint.CommandDP;
+import tuwien.auto.calimero.datapoint.Datapoint;
+
 /**
  *
  * @author Simon Kaufmann - initial contribution and API
@@ -30,4 +41,53 @@ public class KNXCoreTypeMapperTest {
         assertEquals("3", new KNXCoreTypeMapper().toDPTValue(new DecimalType("3.0"), "17.001"));
     }
 
+    @Test
+    public void testToType() throws KNXFormatException {
+        KNXCoreTypeMapper mapper = new KNXCoreTypeMapper();
+        assertEquals(OnOffType.ON, toType(mapper, "1.001", new byte[] { 1 }));
+        assertEquals(OnOffType.OFF, toType(mapper, "1.001", new byte[] { 0 }));
+        assertEquals(IncreaseDecreaseType.INCREASE, toType(mapper, "3.007", new byte[] { 0x0B }));
+        assertEquals(new PercentType(100), toType(mapper, "5.001", new byte[] { (byte) 0xFF }));
+        assertEquals(21.0, ((DecimalType) toType(mapper, "9.001", new byte[] { 0x0C, 0x1A })).doubleValue(), 0.001);
+        assertEquals(1.0, ((DecimalType) toType(mapper, "14.019", new byte[] { 0x3F, (byte) 0x80, 0, 0 }))
+                .doubleValue(), 0.001);
+        assertEquals(new StringType("KNX"), toType(mapper, "16.000",
+                new byte[] { 'K', 'N', 'X', 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 }));
+        assertEquals(HSBType.fromRGB(255, 0, 0), toType(mapper, "232.600", new byte[] { (byte) 0xFF, 0, 0 }));
+    }
+
+    @Test
+    public void toTypeForAllMainTypes() throws KNXFormatException {
+        KNXCoreTypeMapper mapper = new KNXCoreTypeMapper();
+        // a datapoint type and a telegram of every supported main type
+        Object[][] telegrams = { { "1.001", new byte[] { 1 } }, { "2.001", new byte[] { 3 } },
+                { "3.007", new byte[] { 0x0B } }, { "4.001", new byte[] { 'a' } },
+                { "5.001", new byte[] { (byte) 0x80 } }, { "6.010", new byte[] { (byte) 0xFF } },
+                { "7.001", new byte[] { 1, 0 } }, { "8.001", new byte[] { (byte) 0xFF, (byte) 0xFF } },
+                { "9.001", new byte[] { 0x0C, 0x1A } }, { "10.001", new byte[] { 0x2C, 0x1E, 0x00 } },
+                { "11.001", new byte[] { 0x01, 0x03, 0x13 } }, { "12.001", new byte[] { 0, 0, 1, 0 } },
+                { "13.001", new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF } },
+                { "14.019", new byte[] { 0x3F, (byte) 0x80, 0, 0 } },
+                { "16.000", new byte[] { 'K', 'N', 'X', 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 } },
+                { "17.001", new byte[] { 5 } }, { "18.001", new byte[] { 5 } },
+                { "19.001", new byte[] { 119, 1, 3, 0x2C, 0x1E, 0, 0x20, (byte) 0x80 } },
+                { "20.102", new byte[] { 1 } }, { "21.001", new byte[] { 1 } },
+                { "28.001", new byte[] { 'K', 'N', 'X', 0 } }, { "29.010", new byte[] { 0, 0, 0, 0, 0, 0, 1, 0 } },
+                { "232.600", new byte[] { (byte) 0xFF, 0, 0 } } };
+
+        for (Object[] telegram : telegrams) {
+            String dpt = (String) telegram[0];
+            byte[] data = (byte[]) telegram[1];
+            Type expected = toType(mapper, dpt, data);
+            assertNotNull("No type for datapoint type " + dpt, expected);
+            // Decoded again with the cached datapoint type
+            assertEquals(expected, toType(mapper, dpt, data));
+        }
+    }
+
+    private Type toType(KNXCoreTypeMapper mapper, String dpt, byte[] data) throws KNXFormatException {
+        Datapoint datapoint = new CommandDP(new GroupAddress("1/2/3"), "test", 0, dpt);
+        return mapper.toType(datapoint, data);
+    }
+
 }
@@ -48,6 +48,19 @@ public class ModbusBindingConstantsInternal {
     public static final String CHANNEL_LAST_READ_ERROR = "lastReadError";
     public static final String CHANNEL_LAST_WRITE_SUCCESS = "lastWriteSuccess";
     public static final String CHANNEL_LAST_WRITE_ERROR = "lastWriteError";
+    public static final String CHANNEL_CONNECTION_TIME_P50 = "connectionTimeP50";
+    public static final String CHANNEL_CONNECTION_TIME_P99 = "connectionTimeP99";
+    public static final String CHANNEL_TRANSACTION_TIME_P50 = "transactionTimeP50";
+    public static final String CHANNEL_TRANSACTION_TIME_P99 = "transactionTimeP99";
+    public static final String CHANNEL_CALLBACK_TIME_P50 = "callbackTimeP50";
+    public static final String CHANNEL_CALLBACK_TIME_P99 = "callbackTimeP99";
+    public static final String CHANNEL_ERROR_RATE = "errorRate";
+    public static final String CHANNEL_IDLE_CONNECTIONS = "idleConnections";
+    public static final String CHANNEL_ACTIVE_CONNECTIONS = "activeConnections";
+    public static final String CHANNEL_PENDING_OPERATIONS = "pendingOperations";
+    public static final String CHANNEL_SCHEDULER_QUEUE_SIZE = "schedulerQueueSize";
+    public static final String CHANNEL_MISSED_DEADLINES = "missedDeadlines";
+    public static final String CHANNEL_SKIPPED_POLLS = "skippedPolls";
 
     public static final String[] DATA_CHANNELS = { CHANNEL_SWITCH, CHANNEL_CONTACT, CHANNEL_DATETIME, CHANNEL_DIMMER,
             CHANNEL_NUMBER, CHANNEL_STRING, CHANNEL_ROLLERSHUTTER };
@@ -59,6 +72,11 @@ public class ModbusBindingConstantsInternal {
     public static final String[] DATA_CHANNELS_TO_DELEGATE_COMMAND_FROM_READWRITE_TO_WRITE = { CHANNEL_SWITCH,
             CHANNEL_CONTACT, CHANNEL_DATETIME, CHANNEL_DIMMER, CHANNEL_NUMBER, CHANNEL_STRING, CHANNEL_ROLLERSHUTTER };
 
+    /**
+     * Interval for updating the endpoint metrics channels of tcp and serial things
+     */
+    public static final long METRICS_UPDATE_INTERVAL_MILLIS = 10_000;
+
     public static final String WRITE_TYPE_COIL = "coil";
     public static final String WRITE_TYPE_HOLDING = "holding";
 
@@ -44,6 +44,7 @@ public class ModbusSerialConfiguration {
     private int connectMaxTries;
     private int connectTimeoutMillis;
     private boolean enableDiscovery;
+    private int readCoalescingMaxGap = -1;
 
     public @Nullable String getPort() {
         return port;
@@ -164,4 +165,12 @@ public class ModbusSerialConfiguration {
     public void setDiscoveryEnabled(boolean enableDiscovery) {
         this.enableDiscovery = enableDiscovery;
     }
+
+    public int getReadCoalescingMaxGap() {
+        return readCoalescingMaxGap;
+    }
+
+    public void setReadCoalescingMaxGap(int readCoalescingMaxGap) {
+        this.readCoalescingMaxGap = readCoalescingMaxGap;
+    }
 }
@@ -33,6 +33,8 @@ public class ModbusTcpConfiguration {
     private int reconnectAfterMillis;
     private int connectTimeoutMillis;
     private boolean enableDiscovery;
+    private int readCoalescingMaxGap = -1;
+    private int pipelineWindow = 1;
 
     public @Nullable String getHost() {
         return host;
@@ -106,4 +108,19 @@ public class ModbusTcpConfiguration {
         this.enableDiscovery = enableDiscovery;
     }
 
+    public int getReadCoalescingMaxGap() {
+        return readCoalescingMaxGap;
+    }
+
+    public void setReadCoalescingMaxGap(int readCoalescingMaxGap) {
+        this.readCoalescingMaxGap = readCoalescingMaxGap;
+    }
+
+    public int getPipelineWindow() {
+        return pipelineWindow;
+    }
+
+    public void setPipelineWindow(int pipelineWindow) {
+        this.pipelineWindow = pipelineWindow;
+    }
 }
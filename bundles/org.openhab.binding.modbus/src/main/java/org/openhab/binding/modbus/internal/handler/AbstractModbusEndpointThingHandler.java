@@ -12,10 +12,17 @@
  */
 package org.openhab.binding.modbus.internal.handler;
 
+import static org.openhab.binding.modbus.internal.ModbusBindingConstantsInternal.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.thing.Bridge;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.ThingStatus;
@@ -24,6 +31,8 @@ import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.modbus.handler.ModbusEndpointThingHandler;
 import org.openhab.binding.modbus.internal.ModbusConfigurationException;
+import org.openhab.io.transport.modbus.ModbusEndpointMetrics;
+import org.openhab.io.transport.modbus.ModbusEndpointMetrics.Phase;
 import org.openhab.io.transport.modbus.ModbusManager;
 import org.openhab.io.transport.modbus.ModbusManagerListener;
 import org.openhab.io.transport.modbus.endpoint.EndpointPoolConfiguration;
@@ -50,6 +59,8 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
     protected Supplier<ModbusManager> managerRef;
     @Nullable
     protected volatile EndpointPoolConfiguration poolConfiguration;
+    @Nullable
+    private volatile ScheduledFuture<?> metricsJob;
     private final Logger logger = LoggerFactory.getLogger(AbstractModbusEndpointThingHandler.class);
 
     public AbstractModbusEndpointThingHandler(Bridge bridge, Supplier<ModbusManager> managerRef) {
@@ -80,6 +91,8 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
                 managerRef.get().addListener(this);
                 managerRef.get().setEndpointPoolConfiguration(endpoint, poolConfiguration);
                 updateStatus(ThingStatus.ONLINE);
+                metricsJob = scheduler.scheduleWithFixedDelay(this::updateMetrics, METRICS_UPDATE_INTERVAL_MILLIS,
+                        METRICS_UPDATE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
             } catch (ModbusConfigurationException e) {
                 logger.debug("Exception during initialization", e);
                 updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, String.format(
@@ -92,9 +105,49 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
 
     @Override
     public void dispose() {
+        ScheduledFuture<?> metricsJob = this.metricsJob;
+        if (metricsJob != null) {
+            metricsJob.cancel(false);
+            this.metricsJob = null;
+        }
         managerRef.get().removeListener(this);
     }
 
+    /**
+     * Update the metrics channels from the performance metrics of the endpoint
+     */
+    private void updateMetrics() {
+        @Nullable
+        E endpoint = this.endpoint;
+        if (endpoint == null || !getThing().getChannels().stream().anyMatch(channel -> isLinked(channel.getUID()))) {
+            return;
+        }
+        @Nullable
+        ModbusEndpointMetrics metrics = managerRef.get().getEndpointMetrics(endpoint);
+        if (metrics == null) {
+            return;
+        }
+        logger.trace("Metrics of endpoint {}: {}", endpoint, metrics);
+        updateLatency(CHANNEL_CONNECTION_TIME_P50, metrics, Phase.CONNECTION, 0.5);
+        updateLatency(CHANNEL_CONNECTION_TIME_P99, metrics, Phase.CONNECTION, 0.99);
+        updateLatency(CHANNEL_TRANSACTION_TIME_P50, metrics, Phase.TRANSACTION, 0.5);
+        updateLatency(CHANNEL_TRANSACTION_TIME_P99, metrics, Phase.TRANSACTION, 0.99);
+        updateLatency(CHANNEL_CALLBACK_TIME_P50, metrics, Phase.CALLBACK, 0.5);
+        updateLatency(CHANNEL_CALLBACK_TIME_P99, metrics, Phase.CALLBACK, 0.99);
+        updateState(CHANNEL_ERROR_RATE,
+                new DecimalType(BigDecimal.valueOf(metrics.getErrorRate() * 100).setScale(1, RoundingMode.HALF_UP)));
+        updateState(CHANNEL_IDLE_CONNECTIONS, new DecimalType(metrics.getIdleConnections()));
+        updateState(CHANNEL_ACTIVE_CONNECTIONS, new DecimalType(metrics.getActiveConnections()));
+        updateState(CHANNEL_PENDING_OPERATIONS, new DecimalType(metrics.getPendingOperations()));
+        updateState(CHANNEL_SCHEDULER_QUEUE_SIZE, new DecimalType(metrics.getSchedulerQueueSize()));
+        updateState(CHANNEL_MISSED_DEADLINES, new DecimalType(metrics.getMissedDeadlineCount()));
+        updateState(CHANNEL_SKIPPED_POLLS, new DecimalType(metrics.getSkippedPollCount()));
+    }
+
+    private void updateLatency(String channelId, ModbusEndpointMetrics metrics, Phase phase, double quantile) {
+        updateState(channelId, new DecimalType(metrics.getLatencyMillis(phase, quantile)));
+    }
+
     @Override
     public @Nullable ModbusSlaveEndpoint asSlaveEndpoint() {
         return endpoint;
@@ -73,6 +73,7 @@ import org.openhab.io.transport.modbus.ModbusReadCallback;
 import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
 import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
 import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.ModbusRegisterDecoder;
 import org.openhab.io.transport.modbus.ModbusResponse;
 import org.openhab.io.transport.modbus.ModbusTransportException;
 import org.openhab.io.transport.modbus.ModbusWriteCallback;
@@ -131,6 +132,7 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
     private volatile @Nullable Transformation writeTransformation;
     private volatile Optional<Integer> readIndex = Optional.empty();
     private volatile Optional<Integer> readSubIndex = Optional.empty();
+    private volatile @Nullable ModbusRegisterDecoder readDecoder;
     private volatile @Nullable Integer writeStart;
     private volatile int pollStart;
     private volatile int slaveId;
@@ -398,6 +400,7 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         writeTransformation = null;
         readIndex = Optional.empty();
         readSubIndex = Optional.empty();
+        readDecoder = null;
         writeStart = null;
         pollStart = 0;
         slaveId = 0;
@@ -505,6 +508,42 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         readTransformation = new Transformation(config.getReadTransform());
 
         validateReadIndex(pollTask);
+        readDecoder = compileReadDecoder();
+    }
+
+    /**
+     * Compile the decoder used to extract the value from the polled registers
+     *
+     * The decoder is compiled once per configuration to avoid the repeated interpretation of value type and index on
+     * every poll.
+     *
+     * @return decoder, or null if this thing is not reading registers
+     */
+    private @Nullable ModbusRegisterDecoder compileReadDecoder() {
+        ValueType readValueType = this.readValueType;
+        if (!isReadEnabled || pollTask == null || readValueType == null || !readIndex.isPresent()) {
+            return null;
+        }
+        // extractIndex:
+        // e.g. with bit, extractIndex=4 means 5th bit (from right) ("10.4" -> 5th bit of register 10, "10.4" -> 5th bit
+        // of register 10)
+        // bit of second register)
+        // e.g. with 8bit integer, extractIndex=3 means high byte of second register
+        //
+        // with <16 bit types, this is the index of the N'th 1-bit/8-bit item. Each register has 16/2 items,
+        // respectively.
+        // with >=16 bit types, this is index of first register
+        int extractIndex;
+        if (readValueType.getBits() >= 16) {
+            // Invariant, checked in initialize
+            assert readSubIndex.orElse(0) == 0;
+            extractIndex = readIndex.get() - pollStart;
+        } else {
+            int subIndex = readSubIndex.orElse(0);
+            int itemsPerRegister = 16 / readValueType.getBits();
+            extractIndex = (readIndex.get() - pollStart) * itemsPerRegister + subIndex;
+        }
+        return ModbusRegisterDecoder.compile(extractIndex, readValueType);
     }
 
     private void validateAndParseWriteParameters() throws ModbusConfigurationException {
@@ -650,39 +689,18 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         } else if (!isReadEnabled) {
             return;
         }
-        ValueType readValueType = this.readValueType;
-        if (readValueType == null) {
+        ModbusRegisterDecoder readDecoder = this.readDecoder;
+        if (readDecoder == null) {
             return;
         }
-        State numericState;
-
-        // extractIndex:
-        // e.g. with bit, extractIndex=4 means 5th bit (from right) ("10.4" -> 5th bit of register 10, "10.4" -> 5th bit
-        // of register 10)
-        // bit of second register)
-        // e.g. with 8bit integer, extractIndex=3 means high byte of second register
-        //
-        // with <16 bit types, this is the index of the N'th 1-bit/8-bit item. Each register has 16/2 items,
-        // respectively.
-        // with >=16 bit types, this is index of first register
-        int extractIndex;
-        if (readValueType.getBits() >= 16) {
-            // Invariant, checked in initialize
-            assert readSubIndex.orElse(0) == 0;
-            extractIndex = readIndex.get() - pollStart;
-        } else {
-            int subIndex = readSubIndex.orElse(0);
-            int itemsPerRegister = 16 / readValueType.getBits();
-            extractIndex = (readIndex.get() - pollStart) * itemsPerRegister + subIndex;
-        }
-        numericState = ModbusBitUtilities.extractStateFromRegisters(registers, extractIndex, readValueType)
-                .map(state -> (State) state).orElse(UnDefType.UNDEF);
+        DecimalType decoded = readDecoder.decode(registers);
+        State numericState = decoded == null ? UnDefType.UNDEF : decoded;
         boolean boolValue = !numericState.equals(DecimalType.ZERO);
         Map<ChannelUID, State> values = processUpdatedValue(numericState, boolValue);
         logger.debug(
                 "Thing {} channels updated: {}. readValueType={}, readIndex={}, readSubIndex(or 0)={}, extractIndex={} -> numeric value {} and boolValue={}. Registers {} for request {}",
-                thing.getUID(), values, readValueType, readIndex, readSubIndex.orElse(0), extractIndex, numericState,
-                boolValue, registers, request);
+                thing.getUID(), values, readValueType, readIndex, readSubIndex.orElse(0), readDecoder.getIndex(),
+                numericState, boolValue, registers, request);
     }
 
     @Override
@@ -64,6 +64,7 @@ public class ModbusSerialThingHandler
         this.poolConfiguration = poolConfiguration;
         poolConfiguration.setConnectMaxTries(config.getConnectMaxTries());
         poolConfiguration.setConnectTimeoutMillis(config.getConnectTimeoutMillis());
+        poolConfiguration.setReadCoalescingMaxGap(config.getReadCoalescingMaxGap());
         poolConfiguration.setInterTransactionDelayMillis(config.getTimeBetweenTransactionsMillis());
 
         // Never reconnect serial connections "automatically"
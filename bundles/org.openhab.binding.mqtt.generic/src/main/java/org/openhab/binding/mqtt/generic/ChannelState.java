@@ -14,6 +14,7 @@ package org.openhab.binding.mqtt.generic;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Formatter;
 import java.util.IllegalFormatException;
 import java.util.List;
@@ -27,10 +28,12 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.TypeParser;
 import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
 import org.eclipse.smarthome.io.transport.mqtt.MqttMessageSubscriber;
 import org.openhab.binding.mqtt.generic.values.Value;
+import org.openhab.binding.mqtt.handler.MqttTopicDispatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,6 +64,22 @@ public class ChannelState implements MqttMessageSubscriber {
     protected boolean hasSubscribed = false;
     private @Nullable ScheduledFuture<?> scheduledFuture;
     private CompletableFuture<@Nullable Void> future = new CompletableFuture<>();
+    /**
+     * Last untransformed payload received on the state topic and the command it was parsed to. Periodically published
+     * values are not parsed again. Reset by commands, which change the cached value without a message on the state
+     * topic.
+     */
+    private volatile @Nullable ParsedPayload lastParsedPayload;
+
+    private static class ParsedPayload {
+        final byte[] payload;
+        final Command command;
+
+        ParsedPayload(byte[] payload, Command command) {
+            this.payload = payload;
+            this.command = command;
+        }
+    }
 
     /**
      * Creates a new channel state.
@@ -152,25 +171,42 @@ public class ChannelState implements MqttMessageSubscriber {
             return;
         }
 
-        // String value: Apply transformations
-        String strvalue = new String(payload, StandardCharsets.UTF_8);
-        for (ChannelStateTransformation t : transformationsIn) {
-            strvalue = t.processValue(strvalue);
-        }
-
-        // Is trigger?: Special handling
-        if (config.trigger) {
-            channelStateUpdateListener.triggerChannel(channelUID, strvalue);
-            receivedOrTimeout();
-            return;
+        // Fast path: Parse the payload directly if there is nothing to transform
+        @Nullable
+        Command command = null;
+        @Nullable
+        String strvalue = null;
+        if (transformationsIn.isEmpty() && !config.trigger) {
+            final ParsedPayload lastParsedPayload = this.lastParsedPayload;
+            if (lastParsedPayload != null && Arrays.equals(lastParsedPayload.payload, payload)) {
+                command = lastParsedPayload.command;
+            } else {
+                command = cachedValue.parseCommand(payload);
+                this.lastParsedPayload = command != null ? new ParsedPayload(payload, command) : null;
+            }
         }
 
-        Command command = TypeParser.parseCommand(cachedValue.getSupportedCommandTypes(), strvalue);
         if (command == null) {
-            logger.warn("Incoming payload '{}' not supported by type '{}'", strvalue,
-                    cachedValue.getClass().getSimpleName());
-            receivedOrTimeout();
-            return;
+            // String value: Apply transformations
+            strvalue = new String(payload, StandardCharsets.UTF_8);
+            for (ChannelStateTransformation t : transformationsIn) {
+                strvalue = t.processValue(strvalue);
+            }
+
+            // Is trigger?: Special handling
+            if (config.trigger) {
+                channelStateUpdateListener.triggerChannel(channelUID, strvalue);
+                receivedOrTimeout();
+                return;
+            }
+
+            command = TypeParser.parseCommand(cachedValue.getSupportedCommandTypes(), strvalue);
+            if (command == null) {
+                logger.warn("Incoming payload '{}' not supported by type '{}'", strvalue,
+                        cachedValue.getClass().getSimpleName());
+                receivedOrTimeout();
+                return;
+            }
         }
 
         Command postOnlyCommand = cachedValue.isPostOnly(command);
@@ -184,16 +220,17 @@ public class ChannelState implements MqttMessageSubscriber {
         try {
             cachedValue.update(command);
         } catch (IllegalArgumentException | IllegalStateException e) {
-            logger.warn("Command '{}' not supported by type '{}': {}", strvalue, cachedValue.getClass().getSimpleName(),
-                    e.getMessage());
+            logger.warn("Command '{}' not supported by type '{}': {}", strvalue != null ? strvalue : command,
+                    cachedValue.getClass().getSimpleName(), e.getMessage());
             receivedOrTimeout();
             return;
         }
 
+        State state = cachedValue.getChannelState();
         if (config.postCommand) {
-            channelStateUpdateListener.postChannelCommand(channelUID, (Command) cachedValue.getChannelState());
+            channelStateUpdateListener.postChannelCommand(channelUID, (Command) state);
         } else {
-            channelStateUpdateListener.updateChannelState(channelUID, cachedValue.getChannelState());
+            channelStateUpdateListener.updateChannelState(channelUID, state);
         }
         receivedOrTimeout();
     }
@@ -235,7 +272,7 @@ public class ChannelState implements MqttMessageSubscriber {
     public CompletableFuture<@Nullable Void> stop() {
         final MqttBrokerConnection connection = this.connection;
         if (connection != null && StringUtils.isNotBlank(config.stateTopic)) {
-            return connection.unsubscribe(config.stateTopic, this).thenRun(this::internalStop);
+            return MqttTopicDispatcher.unsubscribe(connection, config.stateTopic, this).thenRun(this::internalStop);
         } else {
             internalStop();
             return CompletableFuture.completedFuture(null);
@@ -246,6 +283,7 @@ public class ChannelState implements MqttMessageSubscriber {
         this.connection = null;
         this.channelStateUpdateListener = null;
         hasSubscribed = false;
+        lastParsedPayload = null;
         cachedValue.resetState();
     }
 
@@ -291,7 +329,7 @@ public class ChannelState implements MqttMessageSubscriber {
         }
 
         this.future = new CompletableFuture<>();
-        connection.subscribe(config.stateTopic, this).thenRun(() -> {
+        MqttTopicDispatcher.subscribe(connection, config.stateTopic, this).thenRun(() -> {
             hasSubscribed = true;
             logger.debug("Subscribed channel {} to topic: {}", this.channelUID, config.stateTopic);
             if (timeout > 0 && !future.isDone()) {
@@ -320,6 +358,8 @@ public class ChannelState implements MqttMessageSubscriber {
      *         and exceptionally otherwise.
      */
     public CompletableFuture<Boolean> publishValue(Command command) {
+        // The next payload received needs to be parsed again, even if it was received before
+        lastParsedPayload = null;
         cachedValue.update(command);
 
         String mqttCommandValue = cachedValue.getMQTTpublishValue();
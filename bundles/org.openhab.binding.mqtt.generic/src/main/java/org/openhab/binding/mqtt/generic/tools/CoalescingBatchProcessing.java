@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.generic.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Collects objects over time until a specified delay passed by.
+ * Then call the user back with a list of accumulated objects and start over again.
+ * <p>
+ * Objects are coalesced by a key: If an object with the same key is already pending, it is replaced by the newer
+ * object, keeping the position of the first one.
+ * </p>
+ * <p>
+ * The number of pending keys is not limited by default and objects are always delivered after the delay. Optionally,
+ * a <code>maxBatchSize</code> can be given. A full batch is then delivered right away instead of waiting for the
+ * delay. {@link #offer(Object)} refuses objects with a new key while the batch is full, {@link #accept(Object)}
+ * delivers the full batch on the calling thread instead.
+ * </p>
+ * <p>
+ * Adding objects does not lock, so that many threads can add objects at the same time, e.g. while receiving a flood of
+ * retained messages.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ *
+ * @param <K> The key type
+ * @param <T> Any object
+ */
+@NonNullByDefault
+public class CoalescingBatchProcessing<K, T> implements Consumer<T> {
+    private final int delay;
+    private final int maxBatchSize;
+    private final Function<T, K> keyFunction;
+    private final Consumer<List<T>> consumer;
+    private final ScheduledExecutorService executor;
+
+    private final Map<K, T> pending = new ConcurrentHashMap<>();
+    private final Queue<K> order = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean armed = new AtomicBoolean();
+    protected volatile @Nullable ScheduledFuture<?> future;
+
+    /**
+     * Creates a {@link CoalescingBatchProcessing}, that delivers the collected objects only after the delay.
+     *
+     * @param delay A delay in milliseconds
+     * @param keyFunction Returns the key of an object. Objects with equal keys are coalesced.
+     * @param consumer A consumer of the list of collected objects
+     * @param executor A scheduled executor service
+     */
+    public CoalescingBatchProcessing(int delay, Function<T, K> keyFunction, Consumer<List<T>> consumer,
+            ScheduledExecutorService executor) {
+        this(delay, Integer.MAX_VALUE, keyFunction, consumer, executor);
+    }
+
+    /**
+     * Creates a {@link CoalescingBatchProcessing} with a limited batch size. A full batch is delivered before the
+     * delay passed by.
+     *
+     * @param delay A delay in milliseconds
+     * @param maxBatchSize The maximum number of objects of a batch
+     * @param keyFunction Returns the key of an object. Objects with equal keys are coalesced.
+     * @param consumer A consumer of the list of collected objects
+     * @param executor A scheduled executor service
+     */
+    public CoalescingBatchProcessing(int delay, int maxBatchSize, Function<T, K> keyFunction,
+            Consumer<List<T>> consumer, ScheduledExecutorService executor) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("Delay need to be greater than 0!");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Maximum batch size need to be greater than 0!");
+        }
+        this.delay = delay;
+        this.maxBatchSize = maxBatchSize;
+        this.keyFunction = keyFunction;
+        this.consumer = consumer;
+        this.executor = executor;
+    }
+
+    /**
+     * Add new object to the batch process list. If the list was empty, the delay timer
+     * is armed and all successive objects are accumulated from here on.
+     *
+     * @param t An object
+     * @return False if the object was not added, because the batch is full. True otherwise.
+     */
+    public boolean offer(T t) {
+        final K key = keyFunction.apply(t);
+        if (pending.computeIfPresent(key, (k, v) -> t) == null) {
+            // New key. Reserve a place in the batch first
+            int current;
+            do {
+                current = size.get();
+                if (current >= maxBatchSize) {
+                    return false;
+                }
+            } while (!size.compareAndSet(current, current + 1));
+
+            if (pending.put(key, t) == null) {
+                order.add(key);
+                if (current + 1 >= maxBatchSize) {
+                    executor.execute(this::run);
+                }
+            } else {
+                // Added by another thread in the meantime
+                size.decrementAndGet();
+            }
+        }
+
+        if (armed.compareAndSet(false, true)) {
+            this.future = executor.schedule(this::run, delay, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * Add new object to the batch process list. If the batch is full, the collected objects are delivered
+     * to the target consumer on the calling thread first.
+     *
+     * @param t An object
+     */
+    @Override
+    public void accept(T t) {
+        while (!offer(t)) {
+            run();
+        }
+    }
+
+    /**
+     * Return true if the batch is full, and objects with new keys are refused by {@link #offer(Object)}.
+     */
+    public boolean isFull() {
+        return size.get() >= maxBatchSize;
+    }
+
+    /**
+     * Return the so far accumulated objects, but do not deliver them to the target consumer anymore.
+     *
+     * @return A list of accumulated objects
+     */
+    public List<T> join() {
+        cancel();
+        return drain();
+    }
+
+    /**
+     * Return true if there is a delayed processing going on.
+     */
+    public boolean isArmed() {
+        return armed.get();
+    }
+
+    /**
+     * Deliver queued items now to the target consumer.
+     */
+    public void forceProcessNow() {
+        cancel();
+        run();
+    }
+
+    private void cancel() {
+        ScheduledFuture<?> scheduledFuture = this.future;
+        if (scheduledFuture != null && !scheduledFuture.isDone()) {
+            scheduledFuture.cancel(false);
+        }
+        armed.set(false);
+    }
+
+    private List<T> drain() {
+        List<T> batch = new ArrayList<>();
+        @Nullable
+        K key;
+        while ((key = order.poll()) != null) {
+            @Nullable
+            T t = pending.remove(key);
+            if (t != null) {
+                size.decrementAndGet();
+                batch.add(t);
+            }
+        }
+        return batch;
+    }
+
+    private void run() {
+        // Disarm first: Objects added while draining arm the timer again
+        armed.set(false);
+        List<T> batch = drain();
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+}
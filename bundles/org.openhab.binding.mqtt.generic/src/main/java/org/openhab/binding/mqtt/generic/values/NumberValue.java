@@ -96,6 +96,11 @@ public class NumberValue extends Value {
         }
     }
 
+    @Override
+    public @Nullable Command parseCommand(byte[] payload) {
+        return parseDecimal(payload);
+    }
+
     @Override
     public StateDescription createStateDescription(String unit, boolean readOnly) {
         return new StateDescription(min, max, step, "%s " + unit.replace("%", "%%"), readOnly, Collections.emptyList());
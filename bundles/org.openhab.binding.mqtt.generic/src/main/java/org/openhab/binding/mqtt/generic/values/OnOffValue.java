@@ -12,6 +12,8 @@
  */
 package org.openhab.binding.mqtt.generic.values;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -29,10 +31,15 @@ import org.eclipse.smarthome.core.types.Command;
  */
 @NonNullByDefault
 public class OnOffValue extends Value {
+    private static final byte[] ON_BYTES = OnOffType.ON.name().getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OFF_BYTES = OnOffType.OFF.name().getBytes(StandardCharsets.UTF_8);
+
     private final String onState;
     private final String offState;
     private final String onCommand;
     private final String offCommand;
+    private final byte[] onStateBytes;
+    private final byte[] offStateBytes;
 
     /**
      * Creates a switch On/Off type, that accepts "ON", "1" for on and "OFF","0" for off.
@@ -68,6 +75,8 @@ public class OnOffValue extends Value {
         this.offState = offState == null ? OnOffType.OFF.name() : offState;
         this.onCommand = onCommand == null ? OnOffType.ON.name() : onCommand;
         this.offCommand = offCommand == null ? OnOffType.OFF.name() : offCommand;
+        this.onStateBytes = this.onState.getBytes(StandardCharsets.UTF_8);
+        this.offStateBytes = this.offState.getBytes(StandardCharsets.UTF_8);
     }
 
     @Override
@@ -86,6 +95,21 @@ public class OnOffValue extends Value {
         }
     }
 
+    @Override
+    public @Nullable Command parseCommand(byte[] payload) {
+        // Same precedence as parsing: ON/OFF first, then the custom states
+        if (Arrays.equals(payload, ON_BYTES)) {
+            return OnOffType.ON;
+        } else if (Arrays.equals(payload, OFF_BYTES)) {
+            return OnOffType.OFF;
+        } else if (Arrays.equals(payload, onStateBytes)) {
+            return OnOffType.ON;
+        } else if (Arrays.equals(payload, offStateBytes)) {
+            return OnOffType.OFF;
+        }
+        return null;
+    }
+
     @Override
     public String getMQTTpublishValue() {
         return (state == OnOffType.ON) ? onCommand : offCommand;
@@ -12,6 +12,7 @@
  */
 package org.openhab.binding.mqtt.generic.values;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -68,6 +69,11 @@ public class TextValue extends Value {
         state = new StringType(valueStr);
     }
 
+    @Override
+    public @Nullable Command parseCommand(byte[] payload) {
+        return new StringType(new String(payload, StandardCharsets.UTF_8));
+    }
+
     /**
      * @return valid states. Can be null.
      */
@@ -14,6 +14,7 @@ package org.openhab.binding.mqtt.generic.values;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.net.URLConnection;
 import java.util.Collections;
 import java.util.List;
@@ -133,6 +134,46 @@ public abstract class Value {
         return null;
     }
 
+    /**
+     * Parses an MQTT payload directly to a command, without decoding it to a string first.
+     * <p>
+     * Used for payloads that are not transformed. If null is returned, the payload is decoded to a string and parsed
+     * with the {@link #getSupportedCommandTypes()} instead. The returned command must be the one that parsing the
+     * string would result in, or at least update this value to the same state.
+     * </p>
+     *
+     * @param payload The MQTT payload
+     * @return The command, or null if this value does not know the payload format
+     */
+    public @Nullable Command parseCommand(byte[] payload) {
+        return null;
+    }
+
+    /**
+     * Parses an ASCII encoded decimal number.
+     *
+     * @param payload The MQTT payload
+     * @return The number, or null if the payload is not a plain decimal number
+     */
+    protected static @Nullable DecimalType parseDecimal(byte[] payload) {
+        if (payload.length == 0) {
+            return null;
+        }
+        char[] chars = new char[payload.length];
+        for (int i = 0; i < payload.length; i++) {
+            byte b = payload[i];
+            if ((b < '0' || b > '9') && b != '-' && b != '+' && b != '.' && b != 'e' && b != 'E') {
+                return null;
+            }
+            chars[i] = (char) b;
+        }
+        try {
+            return new DecimalType(new BigDecimal(chars, 0, chars.length));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * Updates the internal value state with the given binary payload.
      *
@@ -33,6 +33,7 @@ import java.util.concurrent.TimeoutException;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
 import org.eclipse.smarthome.core.library.types.RawType;
 import org.eclipse.smarthome.core.library.types.StringType;
 import org.eclipse.smarthome.core.thing.ChannelUID;
@@ -47,6 +48,7 @@ import org.openhab.binding.mqtt.generic.values.DateTimeValue;
 import org.openhab.binding.mqtt.generic.values.ImageValue;
 import org.openhab.binding.mqtt.generic.values.LocationValue;
 import org.openhab.binding.mqtt.generic.values.NumberValue;
+import org.openhab.binding.mqtt.generic.values.OnOffValue;
 import org.openhab.binding.mqtt.generic.values.PercentageValue;
 import org.openhab.binding.mqtt.generic.values.TextValue;
 
@@ -96,9 +98,9 @@ public class ChannelStateTests {
     public void noInteractionTimeoutTest() throws InterruptedException, ExecutionException, TimeoutException {
         ChannelState c = spy(new ChannelState(config, channelUID, textValue, channelStateUpdateListener));
         c.start(connection, scheduler, 50).get(100, TimeUnit.MILLISECONDS);
-        verify(connection).subscribe(eq("state"), eq(c));
+        verify(connection).subscribe(eq("state"), any());
         c.stop().get();
-        verify(connection).unsubscribe(eq("state"), eq(c));
+        verify(connection).unsubscribe(eq("state"), any());
     }
 
     @Test
@@ -106,7 +108,7 @@ public class ChannelStateTests {
         ChannelState c = spy(new ChannelState(config, channelUID, textValue, channelStateUpdateListener));
 
         c.start(connection, scheduler, 0).get(50, TimeUnit.MILLISECONDS);
-        verify(connection).subscribe(eq("state"), eq(c));
+        verify(connection).subscribe(eq("state"), any());
 
         c.publishValue(new StringType("UPDATE")).get();
         verify(connection).publish(eq("command"), argThat(p -> Arrays.equals(p, "UPDATE".getBytes())), anyInt(),
@@ -128,7 +130,7 @@ public class ChannelStateTests {
         verify(connection).publish(eq("command"), any(), anyInt(), eq(true));
 
         c.stop().get();
-        verify(connection).unsubscribe(eq("state"), eq(c));
+        verify(connection).unsubscribe(eq("state"), any());
     }
 
     @Test
@@ -174,6 +176,37 @@ public class ChannelStateTests {
         verify(channelStateUpdateListener, times(3)).updateChannelState(eq(channelUID), any());
     }
 
+    @Test
+    public void receiveRepeatedStateTest() {
+        NumberValue value = spy(new NumberValue(null, null, null));
+        ChannelState c = spy(new ChannelState(config, channelUID, value, channelStateUpdateListener));
+        c.start(connection, mock(ScheduledExecutorService.class), 100);
+
+        c.processMessage("state", "15".getBytes());
+        c.processMessage("state", "15".getBytes());
+        c.processMessage("state", "15.0".getBytes());
+        assertThat(value.getChannelState().toString(), is("15.0"));
+
+        // Every message is an update, but a repeated payload is not parsed again
+        verify(channelStateUpdateListener, times(3)).updateChannelState(eq(channelUID), any());
+        verify(value, times(2)).parseCommand(any(byte[].class));
+    }
+
+    @Test
+    public void receiveSameStateAfterCommandTest() throws InterruptedException, ExecutionException {
+        OnOffValue value = new OnOffValue();
+        ChannelState c = spy(new ChannelState(config, channelUID, value, channelStateUpdateListener));
+        c.start(connection, mock(ScheduledExecutorService.class), 100);
+
+        c.processMessage("state", "ON".getBytes());
+        verify(channelStateUpdateListener, times(1)).updateChannelState(eq(channelUID), eq(OnOffType.ON));
+
+        // The command changes the item state, the device might not switch and report the previous state again
+        c.publishValue(OnOffType.OFF).get();
+        c.processMessage("state", "ON".getBytes());
+        verify(channelStateUpdateListener, times(2)).updateChannelState(eq(channelUID), eq(OnOffType.ON));
+    }
+
     @Test
     public void receiveDecimalFractionalTest() {
         NumberValue value = new NumberValue(null, null, new BigDecimal(10.5));
@@ -119,7 +119,7 @@ public class GenericThingHandlerTests {
         assertThat(channelConfig.getStateTopic(), is("test/state"));
         assertThat(channelConfig.getCommandTopic(), is("test/command"));
 
-        verify(connection).subscribe(eq(channelConfig.getStateTopic()), eq(channelConfig));
+        verify(connection).subscribe(eq(channelConfig.getStateTopic()), any());
 
         verify(callback).statusUpdated(eq(thing), argThat((arg) -> arg.getStatus().equals(ThingStatus.ONLINE)
                 && arg.getStatusDetail().equals(ThingStatusDetail.NONE)));
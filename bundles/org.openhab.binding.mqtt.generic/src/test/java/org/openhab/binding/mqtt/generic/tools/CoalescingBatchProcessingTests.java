@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.generic.tools;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Tests the {@link CoalescingBatchProcessing} class.
+ *
+ * @author agent - Initial contribution
+ */
+public class CoalescingBatchProcessingTests {
+    private @Mock ScheduledExecutorService scheduler;
+    private @Mock ScheduledFuture<?> scheduledFuture;
+
+    private final List<List<String>> batches = new ArrayList<>();
+
+    private CoalescingBatchProcessing<Character, String> subject;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        doReturn(scheduledFuture).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        // Objects are coalesced by their first character
+        subject = new CoalescingBatchProcessing<>(100, 3, s -> s.charAt(0), batches::add, scheduler);
+    }
+
+    @Test
+    public void latestObjectPerKeyWins() {
+        subject.accept("a1");
+        subject.accept("b1");
+        subject.accept("a2");
+
+        assertTrue(subject.isArmed());
+        verify(scheduler, times(1)).schedule(any(Runnable.class), eq(100L), eq(TimeUnit.MILLISECONDS));
+
+        subject.forceProcessNow();
+        assertFalse(subject.isArmed());
+        assertThat(batches, is(Arrays.asList(Arrays.asList("a2", "b1"))));
+    }
+
+    @Test
+    public void unlimitedBatchIsDeliveredAfterDelayOnly() {
+        subject = new CoalescingBatchProcessing<>(100, s -> s, batches::add, scheduler);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(subject.offer(Integer.toString(i)));
+        }
+        subject.accept("last");
+
+        assertFalse(subject.isFull());
+        verify(scheduler, never()).execute(any(Runnable.class));
+        verify(scheduler, times(1)).schedule(any(Runnable.class), eq(100L), eq(TimeUnit.MILLISECONDS));
+        assertThat(batches.size(), is(0));
+
+        subject.forceProcessNow();
+        assertThat(batches.size(), is(1));
+        assertThat(batches.get(0).size(), is(5001));
+    }
+
+    @Test
+    public void fullBatchIsDeliveredRightAway() {
+        assertTrue(subject.offer("a"));
+        assertTrue(subject.offer("b"));
+        assertFalse(subject.isFull());
+        assertTrue(subject.offer("c"));
+        assertTrue(subject.isFull());
+        verify(scheduler).execute(any(Runnable.class));
+
+        // Refused as long as the batch is full, unless coalesced
+        assertFalse(subject.offer("d"));
+        assertTrue(subject.offer("c2"));
+
+        // Delivered on the calling thread
+        subject.accept("d");
+        assertThat(batches, is(Arrays.asList(Arrays.asList("a", "b", "c2"))));
+        assertThat(subject.join(), is(Arrays.asList("d")));
+        assertFalse(subject.isArmed());
+    }
+}
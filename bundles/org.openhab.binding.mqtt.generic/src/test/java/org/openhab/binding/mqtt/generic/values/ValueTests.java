@@ -16,6 +16,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.HSBType;
@@ -51,6 +52,27 @@ public class ValueTests {
         return TypeParser.parseCommand(v.getSupportedCommandTypes(), str);
     }
 
+    @Test
+    public void parseCommandFromPayload() {
+        assertThat(new NumberValue(null, null, null).parseCommand("-12.5".getBytes()),
+                is(new DecimalType(new BigDecimal("-12.5"))));
+        assertNull(new NumberValue(null, null, null).parseCommand("INCREASE".getBytes()));
+        assertNull(new NumberValue(null, null, null).parseCommand("1.2.3".getBytes()));
+
+        OnOffValue onOff = new OnOffValue("1", "0");
+        assertThat(onOff.parseCommand("ON".getBytes()), is(OnOffType.ON));
+        assertThat(onOff.parseCommand("0".getBytes()), is(OnOffType.OFF));
+        assertNull(onOff.parseCommand("on".getBytes()));
+        // ON/OFF take precedence over custom states, as when parsing strings
+        assertThat(new OnOffValue("OFF", "ON").parseCommand("OFF".getBytes()), is(OnOffType.OFF));
+
+        OpenCloseValue openClose = new OpenCloseValue("open", "closed");
+        assertThat(openClose.parseCommand("closed".getBytes()), is(OpenClosedType.CLOSED));
+        assertThat(openClose.parseCommand("OPEN".getBytes()), is(OpenClosedType.OPEN));
+
+        assertThat(new TextValue().parseCommand("äö".getBytes(StandardCharsets.UTF_8)), is(new StringType("äö")));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void illegalTextStateUpdate() {
         TextValue v = new TextValue("one,two".split(","));
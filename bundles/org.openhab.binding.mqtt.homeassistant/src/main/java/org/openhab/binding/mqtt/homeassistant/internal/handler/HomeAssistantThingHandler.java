@@ -36,7 +36,7 @@ import org.openhab.binding.mqtt.generic.AbstractMQTTThingHandler;
 import org.openhab.binding.mqtt.generic.ChannelState;
 import org.openhab.binding.mqtt.generic.MqttChannelTypeProvider;
 import org.openhab.binding.mqtt.generic.TransformationServiceProvider;
-import org.openhab.binding.mqtt.generic.tools.DelayedBatchProcessing;
+import org.openhab.binding.mqtt.generic.tools.CoalescingBatchProcessing;
 import org.openhab.binding.mqtt.homeassistant.internal.AbstractComponent;
 import org.openhab.binding.mqtt.homeassistant.internal.CChannel;
 import org.openhab.binding.mqtt.homeassistant.internal.CFactory;
@@ -70,11 +70,17 @@ import com.google.gson.GsonBuilder;
 @NonNullByDefault
 public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
         implements ComponentDiscovered, Consumer<List<AbstractComponent<?>>> {
+    /**
+     * Maximum number of discovered components collected before they are added. Further components are added on the
+     * receiving thread, which slows down a flood of retained configurations.
+     */
+    static final int MAX_BATCH_SIZE = 100;
+
     private final Logger logger = LoggerFactory.getLogger(HomeAssistantThingHandler.class);
 
     protected final MqttChannelTypeProvider channelTypeProvider;
     public final int attributeReceiveTimeout;
-    protected final DelayedBatchProcessing<AbstractComponent<?>> delayedProcessing;
+    protected final CoalescingBatchProcessing<String, AbstractComponent<?>> delayedProcessing;
     protected final DiscoverComponents discoverComponents;
 
     private final Gson gson;
@@ -102,7 +108,9 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
         this.channelTypeProvider = channelTypeProvider;
         this.transformationServiceProvider = transformationServiceProvider;
         this.attributeReceiveTimeout = attributeReceiveTimeout;
-        this.delayedProcessing = new DelayedBatchProcessing<>(attributeReceiveTimeout, this, scheduler);
+        // A component discovered again replaces the pending one
+        this.delayedProcessing = new CoalescingBatchProcessing<>(attributeReceiveTimeout, MAX_BATCH_SIZE,
+                c -> c.uid().getId(), this, scheduler);
         this.discoverComponents = new DiscoverComponents(thing.getUID(), scheduler, this, gson,
                 this.transformationServiceProvider);
     }
@@ -228,11 +236,14 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
      */
     @Override
     public void componentDiscovered(HaID homeAssistantTopicID, AbstractComponent<?> component) {
-        delayedProcessing.accept(component);
+        if (!delayedProcessing.offer(component)) {
+            logger.debug("Too many pending components of {}, adding them now", thing.getUID());
+            delayedProcessing.accept(component);
+        }
     }
 
     /**
-     * Callback of {@link DelayedBatchProcessing}.
+     * Callback of {@link CoalescingBatchProcessing}.
      * Add all newly discovered components to the Thing and start the components.
      */
     @SuppressWarnings("null")
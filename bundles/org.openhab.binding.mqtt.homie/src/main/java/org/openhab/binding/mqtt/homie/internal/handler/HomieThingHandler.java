@@ -29,7 +29,7 @@ import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
 import org.openhab.binding.mqtt.generic.AbstractMQTTThingHandler;
 import org.openhab.binding.mqtt.generic.ChannelState;
 import org.openhab.binding.mqtt.generic.MqttChannelTypeProvider;
-import org.openhab.binding.mqtt.generic.tools.DelayedBatchProcessing;
+import org.openhab.binding.mqtt.generic.tools.CoalescingBatchProcessing;
 import org.openhab.binding.mqtt.homie.generic.internal.MqttBindingConstants;
 import org.openhab.binding.mqtt.homie.internal.homie300.Device;
 import org.openhab.binding.mqtt.homie.internal.homie300.DeviceAttributes;
@@ -49,6 +49,12 @@ import org.slf4j.LoggerFactory;
  */
 @NonNullByDefault
 public class HomieThingHandler extends AbstractMQTTThingHandler implements DeviceCallback, Consumer<List<Object>> {
+    /**
+     * Maximum number of changed nodes and properties collected before the channels are updated. Further changes are
+     * applied on the receiving thread, which slows down a flood of retained messages.
+     */
+    static final int MAX_BATCH_SIZE = 100;
+
     private final Logger logger = LoggerFactory.getLogger(HomieThingHandler.class);
     protected Device device;
     protected final MqttChannelTypeProvider channelTypeProvider;
@@ -56,7 +62,7 @@ public class HomieThingHandler extends AbstractMQTTThingHandler implements Devic
     protected final int attributeReceiveTimeout;
     protected final int subscribeTimeout;
     protected HandlerConfiguration config = new HandlerConfiguration();
-    protected DelayedBatchProcessing<Object> delayedProcessing;
+    protected CoalescingBatchProcessing<Object, Object> delayedProcessing;
     private @Nullable ScheduledFuture<?> heartBeatTimer;
 
     /**
@@ -76,18 +82,19 @@ public class HomieThingHandler extends AbstractMQTTThingHandler implements Devic
         this.channelTypeProvider = channelTypeProvider;
         this.subscribeTimeout = subscribeTimeout;
         this.attributeReceiveTimeout = attributeReceiveTimeout;
-        this.delayedProcessing = new DelayedBatchProcessing<>(subscribeTimeout, this, scheduler);
+        this.delayedProcessing = new CoalescingBatchProcessing<>(subscribeTimeout, MAX_BATCH_SIZE,
+                HomieThingHandler::batchKey, this, scheduler);
         this.device = new Device(this.thing.getUID(), this, new DeviceAttributes());
     }
 
     /**
-     * Overwrite the {@link Device} and {@link DelayedBatchProcessing} object.
+     * Overwrite the {@link Device} and {@link CoalescingBatchProcessing} object.
      * Those are set in the constructor already, but require to be replaced for tests.
      *
      * @param device The device object
      * @param delayedProcessing The delayed processing object
      */
-    protected void setInternalObjects(Device device, DelayedBatchProcessing<Object> delayedProcessing) {
+    protected void setInternalObjects(Device device, CoalescingBatchProcessing<Object, Object> delayedProcessing) {
         this.device = device;
         this.delayedProcessing = delayedProcessing;
     }
@@ -175,29 +182,47 @@ public class HomieThingHandler extends AbstractMQTTThingHandler implements Devic
     @Override
     public void nodeRemoved(Node node) {
         channelTypeProvider.removeChannelGroupType(node.channelGroupTypeUID);
-        delayedProcessing.accept(node);
+        delayChannelUpdate(node);
     }
 
     @Override
     public void propertyRemoved(Property property) {
         channelTypeProvider.removeChannelType(property.channelTypeUID);
-        delayedProcessing.accept(property);
+        delayChannelUpdate(property);
     }
 
     @Override
     public void nodeAddedOrChanged(Node node) {
         channelTypeProvider.setChannelGroupType(node.channelGroupTypeUID, node.type());
-        delayedProcessing.accept(node);
+        delayChannelUpdate(node);
     }
 
     @Override
     public void propertyAddedOrChanged(Property property) {
         channelTypeProvider.setChannelType(property.channelTypeUID, property.getType());
-        delayedProcessing.accept(property);
+        delayChannelUpdate(property);
+    }
+
+    /**
+     * Return the key of a changed node or property. A node or property that changed again replaces the pending one.
+     */
+    static Object batchKey(Object nodeOrProperty) {
+        if (nodeOrProperty instanceof Property) {
+            return ((Property) nodeOrProperty).channelUID;
+        }
+        return ((Node) nodeOrProperty).uid();
+    }
+
+    private void delayChannelUpdate(Object nodeOrProperty) {
+        if (!delayedProcessing.offer(nodeOrProperty)) {
+            logger.debug("Too many pending changes of Homie device {}, updating the channels now",
+                    device.attributes.name);
+            delayedProcessing.accept(nodeOrProperty);
+        }
     }
 
     /**
-     * Callback of {@link DelayedBatchProcessing}.
+     * Callback of {@link CoalescingBatchProcessing}.
      * Add all newly discovered nodes and properties to the Thing and start subscribe to each channel state topic.
      */
     @Override
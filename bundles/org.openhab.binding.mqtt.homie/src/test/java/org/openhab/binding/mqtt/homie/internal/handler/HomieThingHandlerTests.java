@@ -12,7 +12,7 @@
  */
 package org.openhab.binding.mqtt.homie.internal.handler;
 
-import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -57,7 +57,7 @@ import org.openhab.binding.mqtt.homie.internal.handler.ThingChannelConstants;
 import org.openhab.binding.mqtt.generic.mapping.AbstractMqttAttributeClass;
 import org.openhab.binding.mqtt.generic.mapping.SubscribeFieldToMQTTtopic;
 import org.openhab.binding.mqtt.generic.tools.ChildMap;
-import org.openhab.binding.mqtt.generic.tools.DelayedBatchProcessing;
+import org.openhab.binding.mqtt.generic.tools.CoalescingBatchProcessing;
 import org.openhab.binding.mqtt.generic.values.Value;
 import org.openhab.binding.mqtt.handler.AbstractBrokerHandler;
 import org.openhab.binding.mqtt.homie.generic.internal.MqttBindingConstants;
@@ -136,7 +136,8 @@ public class HomieThingHandlerTests {
         final Device device = new Device(thing.getUID(), thingHandler, spy(new DeviceAttributes()),
                 spy(new ChildMap<>()));
         thingHandler.setInternalObjects(spy(device),
-                spy(new DelayedBatchProcessing<Object>(500, thingHandler, scheduler)));
+                spy(new CoalescingBatchProcessing<Object, Object>(500, HomieThingHandler.MAX_BATCH_SIZE,
+                        HomieThingHandler::batchKey, thingHandler, scheduler)));
 
         // Return the bridge handler if the thing handler asks for it
         doReturn(bridgeHandler).when(thingHandler).getBridgeHandler();
@@ -318,6 +319,19 @@ public class HomieThingHandlerTests {
         return node;
     }
 
+    @Test
+    public void changedNodesAndPropertiesAreCoalesced() {
+        Node node = createSpyNode("property", thingHandler.device);
+        Property property = createSpyProperty("property", node);
+
+        // A node or property that changed again replaces the pending instance
+        assertThat(HomieThingHandler.batchKey(createSpyNode("property", thingHandler.device)),
+                is(HomieThingHandler.batchKey(node)));
+        assertThat(HomieThingHandler.batchKey(createSpyProperty("property", node)),
+                is(HomieThingHandler.batchKey(property)));
+        assertThat(HomieThingHandler.batchKey(property), is(not(HomieThingHandler.batchKey(node))));
+    }
+
     @Test
     public void propertiesChanged() throws InterruptedException, ExecutionException {
         thingHandler.device.initialize("homie", "device", new ArrayList<Channel>());
@@ -18,6 +18,7 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
 import org.eclipse.smarthome.io.transport.mqtt.MqttMessageSubscriber;
+import org.openhab.binding.mqtt.handler.MqttTopicDispatcher;
 
 /**
  * Represents a MQTT subscription for one specific topic. This is an immutable class.
@@ -62,7 +63,7 @@ public class TopicSubscribe implements MqttMessageSubscriber {
      * @return Completes with true if successful. Completes with false if not connected yet. Exceptionally otherwise.
      */
     public CompletableFuture<Boolean> start() {
-        return connection.subscribe(topic, this);
+        return MqttTopicDispatcher.subscribe(connection, topic, this);
     }
 
     /**
@@ -71,6 +72,6 @@ public class TopicSubscribe implements MqttMessageSubscriber {
      * @return Completes with true if successful. Exceptionally otherwise.
      */
     public CompletableFuture<Boolean> stop() {
-        return connection.unsubscribe(topic, this);
+        return MqttTopicDispatcher.unsubscribe(connection, topic, this);
     }
 }
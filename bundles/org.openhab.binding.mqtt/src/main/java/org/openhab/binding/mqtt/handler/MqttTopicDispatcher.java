@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.handler;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
+import org.eclipse.smarthome.io.transport.mqtt.MqttMessageSubscriber;
+import org.openhab.binding.mqtt.internal.MqttTopicTrie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared subscriptions of a broker connection.
+ * <p>
+ * Subscribers are not registered on the {@link MqttBrokerConnection} themselves. The dispatcher registers one
+ * {@link Subscription} per distinct topic filter instead, as long as at least one subscriber uses that filter, and
+ * routes received messages to the subscribers with a {@link MqttTopicTrie}. Routing a message thus only depends on the
+ * depth of its topic and not on the number of subscribers.
+ * </p>
+ * <p>
+ * The connection hands a message to the subscription of every matching filter. Only the first of them in the order
+ * of {@link MqttTopicTrie#match(String)} dispatches it, to the subscribers of all matching filters, so every subscriber
+ * receives a message once. While a matching filter is being subscribed or unsubscribed a message can still be missed
+ * or received twice.
+ * </p>
+ * <p>
+ * The broker only sends retained messages when a filter is subscribed on the connection. A subscriber joining a filter
+ * that is already subscribed is therefore handed the last message received on every topic of that filter.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MqttTopicDispatcher {
+    // Dispatchers do not reference their connection, so they go away together with it
+    private static final Map<MqttBrokerConnection, MqttTopicDispatcher> DISPATCHERS = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
+    private final Logger logger = LoggerFactory.getLogger(MqttTopicDispatcher.class);
+    private final MqttTopicTrie<Subscription> subscriptions = new MqttTopicTrie<>();
+
+    /**
+     * The subscription of one topic filter on the connection, shared by all subscribers of that filter.
+     */
+    class Subscription implements MqttMessageSubscriber {
+        final Set<MqttMessageSubscriber> subscribers = new CopyOnWriteArraySet<>();
+        // Last message per topic, handed to subscribers joining later
+        final Map<String, byte[]> lastMessages = new ConcurrentHashMap<>();
+        // Completes like the subscription of the filter on the connection
+        final CompletableFuture<Boolean> subscribed = new CompletableFuture<>();
+
+        @Override
+        public void processMessage(String topic, byte[] payload) {
+            dispatch(this, topic, payload);
+        }
+    }
+
+    /**
+     * Subscribe to a topic
+     *
+     * @param connection The broker connection
+     * @param topic The topic. Can contain wildcards.
+     * @param subscriber The subscriber
+     * @return Completes with true if successful. Completes with false if not connected yet. Exceptionally otherwise.
+     */
+    public static CompletableFuture<Boolean> subscribe(MqttBrokerConnection connection, String topic,
+            MqttMessageSubscriber subscriber) {
+        return of(connection).add(connection, topic, subscriber);
+    }
+
+    /**
+     * Unsubscribe from a topic
+     *
+     * @param connection The broker connection
+     * @param topic The topic, as given to {@link #subscribe(MqttBrokerConnection, String, MqttMessageSubscriber)}
+     * @param subscriber The subscriber
+     * @return Completes with true if successful. Exceptionally otherwise.
+     */
+    public static CompletableFuture<Boolean> unsubscribe(MqttBrokerConnection connection, String topic,
+            MqttMessageSubscriber subscriber) {
+        return of(connection).remove(connection, topic, subscriber);
+    }
+
+    static MqttTopicDispatcher of(MqttBrokerConnection connection) {
+        return DISPATCHERS.computeIfAbsent(connection, c -> new MqttTopicDispatcher());
+    }
+
+    CompletableFuture<Boolean> add(MqttBrokerConnection connection, String topic, MqttMessageSubscriber subscriber) {
+        final Subscription subscription;
+        final Map<String, byte[]> replay;
+        final boolean first;
+        synchronized (this) {
+            @Nullable
+            Subscription existing = subscriptions.get(topic);
+            if (existing == null) {
+                subscription = new Subscription();
+                subscription.subscribers.add(subscriber);
+                subscriptions.put(topic, subscription);
+                replay = Collections.emptyMap();
+                first = true;
+            } else if (existing.subscribers.add(subscriber)) {
+                subscription = existing;
+                replay = new HashMap<>(subscription.lastMessages);
+                first = false;
+            } else {
+                return CompletableFuture.completedFuture(true);
+            }
+        }
+        if (first) {
+            // Not called under the lock, the connection may deliver messages meanwhile
+            connection.subscribe(topic, subscription).whenComplete((result, e) -> {
+                if (e != null) {
+                    subscription.subscribed.completeExceptionally(e);
+                } else {
+                    subscription.subscribed.complete(result);
+                }
+            });
+        }
+        replay.forEach((t, payload) -> deliver(subscriber, t, payload));
+        return subscription.subscribed;
+    }
+
+    CompletableFuture<Boolean> remove(MqttBrokerConnection connection, String topic, MqttMessageSubscriber subscriber) {
+        final Subscription subscription;
+        synchronized (this) {
+            @Nullable
+            Subscription existing = subscriptions.get(topic);
+            if (existing == null || !existing.subscribers.remove(subscriber) || !existing.subscribers.isEmpty()) {
+                return CompletableFuture.completedFuture(true);
+            }
+            subscription = existing;
+            subscriptions.remove(topic);
+        }
+        return connection.unsubscribe(topic, subscription);
+    }
+
+    void dispatch(Subscription receiver, String topic, byte[] payload) {
+        final List<Subscription> matches;
+        synchronized (this) {
+            matches = subscriptions.match(topic);
+        }
+        if (matches.isEmpty() || matches.get(0) != receiver) {
+            // Dispatched by the subscription of another matching filter, or no longer subscribed
+            return;
+        }
+        Set<MqttMessageSubscriber> subscribers = new LinkedHashSet<>();
+        for (Subscription subscription : matches) {
+            subscription.lastMessages.put(topic, payload);
+            subscribers.addAll(subscription.subscribers);
+        }
+        for (MqttMessageSubscriber subscriber : subscribers) {
+            deliver(subscriber, topic, payload);
+        }
+    }
+
+    private void deliver(MqttMessageSubscriber subscriber, String topic, byte[] payload) {
+        try {
+            subscriber.processMessage(topic, payload);
+        } catch (RuntimeException e) {
+            logger.warn("Subscriber {} failed to process message on topic {}", subscriber, topic, e);
+        }
+    }
+
+    /**
+     * Get the number of topic filters subscribed on the connection
+     */
+    synchronized int size() {
+        return subscriptions.size();
+    }
+}
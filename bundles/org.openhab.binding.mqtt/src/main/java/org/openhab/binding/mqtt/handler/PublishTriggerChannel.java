@@ -41,7 +41,7 @@ public class PublishTriggerChannel implements MqttMessageSubscriber {
     }
 
     CompletableFuture<Boolean> start() {
-        return stop().thenCompose(b -> connection.subscribe(config.stateTopic, this));
+        return stop().thenCompose(b -> MqttTopicDispatcher.subscribe(connection, config.stateTopic, this));
     }
 
     @Override
@@ -60,6 +60,6 @@ public class PublishTriggerChannel implements MqttMessageSubscriber {
     }
 
     public CompletableFuture<Boolean> stop() {
-        return connection.unsubscribe(config.stateTopic, this);
+        return MqttTopicDispatcher.unsubscribe(connection, config.stateTopic, this);
     }
 }
@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Trie of MQTT topic filters, supporting the single level (<tt>+</tt>) and multi level (<tt>#</tt>) wildcards.
+ * <p>
+ * Every topic level is a node of the trie, so finding the values of all filters matching a topic only visits the
+ * nodes along the levels of the topic, independent of the number of filters. As defined by MQTT, topics starting with
+ * <tt>$</tt> are not matched by filters starting with a wildcard.
+ * </p>
+ * <p>
+ * Each filter has at most one value. This class is not thread safe.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ *
+ * @param <T> type of the value stored for a filter
+ */
+@NonNullByDefault
+public class MqttTopicTrie<T> {
+    private static final String SINGLE_LEVEL_WILDCARD = "+";
+    private static final String MULTI_LEVEL_WILDCARD = "#";
+
+    private static class Node<T> {
+        final Map<String, Node<T>> children = new HashMap<>();
+        @Nullable
+        T value;
+
+        boolean isEmpty() {
+            return children.isEmpty() && value == null;
+        }
+    }
+
+    private final Node<T> root = new Node<>();
+    private int size;
+
+    /**
+     * Get the value of a topic filter
+     *
+     * @param filter topic filter, may contain wildcards
+     * @return the value, or null if the filter has none
+     */
+    public @Nullable T get(String filter) {
+        Node<T> node = root;
+        for (String level : filter.split("/", -1)) {
+            @Nullable
+            Node<T> child = node.children.get(level);
+            if (child == null) {
+                return null;
+            }
+            node = child;
+        }
+        return node.value;
+    }
+
+    /**
+     * Set the value of a topic filter
+     *
+     * @param filter topic filter, may contain wildcards
+     * @param value the new value
+     * @return the previous value, or null if the filter had none
+     */
+    public @Nullable T put(String filter, T value) {
+        Node<T> node = root;
+        for (String level : filter.split("/", -1)) {
+            node = node.children.computeIfAbsent(level, l -> new Node<>());
+        }
+        @Nullable
+        T previous = node.value;
+        node.value = value;
+        if (previous == null) {
+            size++;
+        }
+        return previous;
+    }
+
+    /**
+     * Remove the value of a topic filter
+     *
+     * @param filter topic filter, may contain wildcards
+     * @return the removed value, or null if the filter had none
+     */
+    public @Nullable T remove(String filter) {
+        String[] levels = filter.split("/", -1);
+        List<Node<T>> path = new ArrayList<>(levels.length + 1);
+        Node<T> node = root;
+        path.add(node);
+        for (String level : levels) {
+            @Nullable
+            Node<T> child = node.children.get(level);
+            if (child == null) {
+                return null;
+            }
+            node = child;
+            path.add(node);
+        }
+        @Nullable
+        T removed = node.value;
+        if (removed == null) {
+            return null;
+        }
+        node.value = null;
+        size--;
+        // Prune nodes without value and children
+        for (int i = levels.length; i > 0 && path.get(i).isEmpty(); i--) {
+            path.get(i - 1).children.remove(levels[i - 1]);
+        }
+        return removed;
+    }
+
+    /**
+     * Get the values of all filters matching the topic.
+     * <p>
+     * The order only depends on the filters, not on the order they were added in: on every level the multi level
+     * wildcard comes first, then the exact level, then the single level wildcard.
+     * </p>
+     *
+     * @param topic topic without wildcards
+     * @return values of the matching filters
+     */
+    public List<T> match(String topic) {
+        List<T> result = new ArrayList<>();
+        collect(root, topic.split("/", -1), 0, !topic.startsWith("$"), result);
+        return result;
+    }
+
+    private void collect(Node<T> node, String[] levels, int index, boolean wildcards, List<T> result) {
+        if (wildcards) {
+            // Multi level wildcard also matches the parent level, e.g. "a/#" matches "a"
+            @Nullable
+            Node<T> multiLevel = node.children.get(MULTI_LEVEL_WILDCARD);
+            if (multiLevel != null) {
+                addValue(multiLevel, result);
+            }
+        }
+        if (index == levels.length) {
+            addValue(node, result);
+            return;
+        }
+        @Nullable
+        Node<T> exact = node.children.get(levels[index]);
+        if (exact != null) {
+            collect(exact, levels, index + 1, true, result);
+        }
+        if (wildcards) {
+            @Nullable
+            Node<T> singleLevel = node.children.get(SINGLE_LEVEL_WILDCARD);
+            if (singleLevel != null) {
+                collect(singleLevel, levels, index + 1, true, result);
+            }
+        }
+    }
+
+    private void addValue(Node<T> node, List<T> result) {
+        @Nullable
+        T value = node.value;
+        if (value != null) {
+            result.add(value);
+        }
+    }
+
+    /**
+     * Get the number of filters with a value
+     */
+    public int size() {
+        return size;
+    }
+}
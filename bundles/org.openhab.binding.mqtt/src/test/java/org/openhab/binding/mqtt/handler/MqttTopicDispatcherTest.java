@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.handler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
+import org.eclipse.smarthome.io.transport.mqtt.MqttMessageSubscriber;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Test cases for {@link MqttTopicDispatcher}.
+ *
+ * @author agent - Initial contribution
+ */
+public class MqttTopicDispatcherTest {
+    private static final byte[] PAYLOAD = "21.5".getBytes();
+
+    @Mock
+    private MqttBrokerConnection connection;
+
+    @Mock
+    private MqttMessageSubscriber subscriber1;
+
+    @Mock
+    private MqttMessageSubscriber subscriber2;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        doReturn(CompletableFuture.completedFuture(true)).when(connection).subscribe(any(), any());
+        doReturn(CompletableFuture.completedFuture(true)).when(connection).unsubscribe(any(), any());
+    }
+
+    private MqttMessageSubscriber subscriptionOf(String topic) {
+        ArgumentCaptor<MqttMessageSubscriber> captor = ArgumentCaptor.forClass(MqttMessageSubscriber.class);
+        verify(connection).subscribe(eq(topic), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void filterIsSubscribedOnceForAllSubscribers() throws Exception {
+        assertThat(MqttTopicDispatcher.subscribe(connection, "home/+/temperature", subscriber1).get(), is(true));
+        assertThat(MqttTopicDispatcher.subscribe(connection, "home/+/temperature", subscriber2).get(), is(true));
+        MqttMessageSubscriber subscription = subscriptionOf("home/+/temperature");
+        assertThat(MqttTopicDispatcher.of(connection).size(), is(1));
+
+        MqttTopicDispatcher.unsubscribe(connection, "home/+/temperature", subscriber1).get();
+        verify(connection, never()).unsubscribe(any(), any());
+
+        MqttTopicDispatcher.unsubscribe(connection, "home/+/temperature", subscriber2).get();
+        verify(connection).unsubscribe(eq("home/+/temperature"), eq(subscription));
+        assertThat(MqttTopicDispatcher.of(connection).size(), is(0));
+
+        // Unknown subscribers do not unsubscribe the filter again
+        MqttTopicDispatcher.unsubscribe(connection, "home/+/temperature", subscriber2).get();
+        verify(connection, times(1)).unsubscribe(any(), any());
+    }
+
+    @Test
+    public void messageIsDeliveredOnceToEverySubscriber() {
+        MqttTopicDispatcher.subscribe(connection, "home/kitchen/temperature", subscriber1);
+        MqttTopicDispatcher.subscribe(connection, "home/#", subscriber1);
+        MqttTopicDispatcher.subscribe(connection, "home/+/temperature", subscriber2);
+
+        // The connection hands the message to the subscription of every matching filter
+        subscriptionOf("home/kitchen/temperature").processMessage("home/kitchen/temperature", PAYLOAD);
+        subscriptionOf("home/#").processMessage("home/kitchen/temperature", PAYLOAD);
+        subscriptionOf("home/+/temperature").processMessage("home/kitchen/temperature", PAYLOAD);
+
+        verify(subscriber1).processMessage(eq("home/kitchen/temperature"), eq(PAYLOAD));
+        verify(subscriber2).processMessage(eq("home/kitchen/temperature"), eq(PAYLOAD));
+    }
+
+    @Test
+    public void laterSubscriberReceivesLastMessage() {
+        MqttTopicDispatcher.subscribe(connection, "home/#", subscriber1);
+        subscriptionOf("home/#").processMessage("home/kitchen/temperature", PAYLOAD);
+        verify(subscriber1).processMessage(eq("home/kitchen/temperature"), eq(PAYLOAD));
+
+        // The filter is not subscribed again, so the broker does not send retained messages
+        MqttTopicDispatcher.subscribe(connection, "home/#", subscriber2);
+        verify(connection, times(1)).subscribe(any(), any());
+        verify(subscriber2).processMessage(eq("home/kitchen/temperature"), eq(PAYLOAD));
+        verify(subscriber1, times(1)).processMessage(any(), any());
+    }
+
+    @Test
+    public void failingSubscriberDoesNotStopDelivery() {
+        doThrow(new IllegalStateException()).when(subscriber1).processMessage(any(), any());
+        MqttTopicDispatcher.subscribe(connection, "home/#", subscriber1);
+        MqttTopicDispatcher.subscribe(connection, "home/#", subscriber2);
+
+        subscriptionOf("home/#").processMessage("home/kitchen/temperature", PAYLOAD);
+
+        verify(subscriber2).processMessage(eq("home/kitchen/temperature"), eq(PAYLOAD));
+    }
+}
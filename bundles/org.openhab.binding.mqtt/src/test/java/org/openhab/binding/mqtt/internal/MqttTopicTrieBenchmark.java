@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares routing a message with the {@link MqttTopicTrie} to matching it against the regular expression of every
+ * subscribed filter, with 10000 subscriptions. Not run by the unit tests, start {@link #main(String[])} from the test
+ * classpath.
+ *
+ * @author agent - Initial contribution
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MqttTopicTrieBenchmark {
+    private static final int THINGS = 1000;
+    private static final int CHANNELS = 10;
+
+    private final MqttTopicTrie<Integer> trie = new MqttTopicTrie<>();
+    private final List<Pattern> patterns = new ArrayList<>();
+    private final List<String> topics = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int thing = 0; thing < THINGS; ++thing) {
+            for (int channel = 0; channel < CHANNELS; ++channel) {
+                String topic = "devices/thing" + thing + "/channel" + channel + "/state";
+                subscribe(topic, thing * CHANNELS + channel);
+                topics.add(topic);
+            }
+        }
+        subscribe("devices/+/channel0/state", -1);
+        subscribe("devices/#", -2);
+    }
+
+    private void subscribe(String filter, int value) {
+        trie.put(filter, value);
+        // How the connection matches the filter of a subscription
+        patterns.add(Pattern.compile(filter.replace("+", "[^/]*").replace("#", ".*")));
+    }
+
+    private String nextTopic() {
+        next = (next + 1) % topics.size();
+        return topics.get(next);
+    }
+
+    @Benchmark
+    public List<Integer> trie() {
+        return trie.match(nextTopic());
+    }
+
+    @Benchmark
+    public int regularExpressions() {
+        String topic = nextTopic();
+        int matches = 0;
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(topic).matches()) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MqttTopicTrieBenchmark.class.getSimpleName()).build()).run();
+    }
+}
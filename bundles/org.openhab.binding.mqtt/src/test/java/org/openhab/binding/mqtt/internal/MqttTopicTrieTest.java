@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Test cases for the {@link MqttTopicTrie} class.
+ *
+ * @author agent - Initial contribution
+ */
+public class MqttTopicTrieTest {
+
+    @Test
+    public void matchExactTopic() {
+        MqttTopicTrie<String> trie = new MqttTopicTrie<>();
+        trie.put("home/livingroom/temperature", "a");
+        trie.put("home/livingroom", "b");
+
+        assertThat(trie.match("home/livingroom/temperature"), is(Collections.singletonList("a")));
+        assertThat(trie.match("home/livingroom"), is(Collections.singletonList("b")));
+        assertTrue(trie.match("home").isEmpty());
+        assertTrue(trie.match("home/livingroom/temperature/set").isEmpty());
+    }
+
+    @Test
+    public void matchSingleLevelWildcard() {
+        MqttTopicTrie<String> trie = new MqttTopicTrie<>();
+        trie.put("home/+/temperature", "a");
+        trie.put("+/+", "b");
+
+        assertThat(trie.match("home/kitchen/temperature"), is(Collections.singletonList("a")));
+        assertThat(trie.match("home/kitchen"), is(Collections.singletonList("b")));
+        assertTrue(trie.match("home/kitchen/humidity").isEmpty());
+        assertTrue(trie.match("home").isEmpty());
+    }
+
+    @Test
+    public void matchMultiLevelWildcard() {
+        MqttTopicTrie<String> trie = new MqttTopicTrie<>();
+        trie.put("home/#", "a");
+        trie.put("#", "b");
+
+        assertThat(trie.match("home/kitchen/temperature"), is(Arrays.asList("b", "a")));
+        // Multi level wildcard includes the parent level
+        assertThat(trie.match("home"), is(Arrays.asList("b", "a")));
+        assertThat(trie.match("garden"), is(Collections.singletonList("b")));
+    }
+
+    @Test
+    public void wildcardsDoNotMatchSystemTopics() {
+        MqttTopicTrie<String> trie = new MqttTopicTrie<>();
+        trie.put("#", "a");
+        trie.put("+/broker/clients", "b");
+        trie.put("$SYS/#", "c");
+
+        assertThat(trie.match("$SYS/broker/clients"), is(Collections.singletonList("c")));
+    }
+
+    @Test
+    public void matchOrderDoesNotDependOnInsertionOrder() {
+        MqttTopicTrie<String> trie = new MqttTopicTrie<>();
+        trie.put("home/+/temperature", "single");
+        trie.put("home/kitchen/temperature", "exact");
+        trie.put("home/#", "multi");
+
+        MqttTopicTrie<String> reversed = new MqttTopicTrie<>();
+        reversed.put("home/#", "multi");
+        reversed.put("home/kitchen/temperature", "exact");
+        reversed.put("home/+/temperature", "single");
+
+        assertThat(trie.match("home/kitchen/temperature"), is(Arrays.asList("multi", "exact", "single")));
+        assertThat(reversed.match("home/kitchen/temperature"), is(trie.match("home/kitchen/temperature")));
+    }
+
+    @Test
+    public void putGetAndRemove() {
+        MqttTopicTrie<String> trie = new MqttTopicTrie<>();
+        assertThat(trie.put("home/+/temperature", "a"), is(nullValue()));
+        assertThat(trie.put("home/+/temperature", "b"), is("a"));
+        assertThat(trie.put("home/+/humidity", "c"), is(nullValue()));
+        assertThat(trie.size(), is(2));
+        assertThat(trie.get("home/+/temperature"), is("b"));
+        assertThat(trie.get("home/+"), is(nullValue()));
+
+        assertThat(trie.remove("home/+"), is(nullValue()));
+        assertThat(trie.remove("home/+/temperature"), is("b"));
+        assertThat(trie.remove("home/+/temperature"), is(nullValue()));
+        assertTrue(trie.match("home/kitchen/temperature").isEmpty());
+        assertThat(trie.match("home/kitchen/humidity"), is(Collections.singletonList("c")));
+
+        assertThat(trie.remove("home/+/humidity"), is("c"));
+        assertThat(trie.size(), is(0));
+        assertThat(trie.get("home/+/humidity"), is(nullValue()));
+    }
+}
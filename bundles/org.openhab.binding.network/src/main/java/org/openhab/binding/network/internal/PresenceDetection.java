@@ -12,18 +12,20 @@
  */
 package org.openhab.binding.network.internal;
 
-import java.io.IOException;
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -51,6 +53,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     public static final int DESTINATION_TTL = 300 * 1000; // in ms, 300 s
 
     NetworkUtils networkUtils = new NetworkUtils();
+    PresenceDetectionEngine engine = PresenceDetectionEngine.getInstance();
     private final Logger logger = LoggerFactory.getLogger(PresenceDetection.class);
 
     /// Configuration variables
@@ -75,9 +78,8 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     ExpiringCacheAsync<PresenceDetectionValue> cache;
     private final PresenceDetectionListener updateListener;
     private @Nullable ScheduledFuture<?> refreshJob;
-    protected @Nullable ExecutorService executorService;
+    protected @Nullable CompletableFuture<@Nullable Void> detectionFuture;
     private String dhcpState = "off";
-    Integer currentCheck = 0;
     int detectionChecks;
 
     public PresenceDetection(final PresenceDetectionListener updateListener, int cacheDeviceStateTimeInMS)
@@ -170,6 +172,17 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         }
     }
 
+    /**
+     * Sets the ping method without a feature test. Use this if the method was determined by
+     * {@link NetworkUtils#determinePingMethod()} already, e.g. for the presence detection of many hosts.
+     *
+     * @param pingMethod The ping method
+     */
+    public void setIcmpPingMethod(IpPingMethodEnum pingMethod) {
+        this.pingMethod = pingMethod;
+        ipPingState = pingMethod == IpPingMethodEnum.JAVA_PING ? "Java ping" : pingMethod.name();
+    }
+
     /**
      * Enables or disables ARP pings. Will be automatically disabled if the destination
      * is not an IPv4 address. If the feature test for the native arping utility fails,
@@ -271,14 +284,10 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         cache.getValue(callback);
     }
 
-    public ExecutorService getThreadsFor(int threadCount) {
-        return Executors.newFixedThreadPool(threadCount);
-    }
-
     /**
      * Perform a presence detection with ICMP-, ARP ping and
-     * TCP connection attempts simultaneously. A fixed thread pool will be created with as many
-     * thread as necessary to perform all tests at once.
+     * TCP connection attempts simultaneously. The checks are performed by the {@link PresenceDetectionEngine}
+     * shared by all presence detections of the binding.
      *
      * This is a NO-OP, if there is already an ongoing detection or if the cached value
      * is not expired yet.
@@ -292,74 +301,64 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * @return Return true if a presence detection is performed and false otherwise.
      */
     public boolean performPresenceDetection(boolean waitForDetectionToFinish) {
-        if (executorService != null) {
-            logger.debug(
-                    "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
-                    hostname, tcpPorts);
-            return false;
-        }
+        synchronized (this) {
+            if (detectionFuture != null) {
+                logger.debug(
+                        "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
+                        hostname, tcpPorts);
+                return false;
+            }
 
-        if (!cache.isExpired()) {
-            return false;
-        }
+            if (!cache.isExpired()) {
+                return false;
+            }
 
-        Set<String> interfaceNames = null;
+            Set<String> interfaceNames = null;
 
-        currentCheck = 0;
-        detectionChecks = tcpPorts.size();
-        if (pingMethod != null) {
-            detectionChecks += 1;
-        }
-        if (arpPingMethod != ArpPingUtilEnum.UNKNOWN_TOOL) {
-            interfaceNames = networkUtils.getInterfaceNames();
-            detectionChecks += interfaceNames.size();
-        }
+            detectionChecks = tcpPorts.size();
+            if (pingMethod != null) {
+                detectionChecks += 1;
+            }
+            if (arpPingMethod == ArpPingUtilEnum.ELI_FULKERSON_ARP_PING_FOR_WINDOWS) {
+                detectionChecks += 1;
+            } else if (arpPingMethod != ArpPingUtilEnum.UNKNOWN_TOOL) {
+                interfaceNames = networkUtils.getInterfaceNames();
+                detectionChecks += interfaceNames.size();
+            }
 
-        if (detectionChecks == 0) {
-            return false;
-        }
+            if (detectionChecks == 0) {
+                return false;
+            }
 
-        final ExecutorService executorService = getThreadsFor(detectionChecks);
-        this.executorService = executorService;
+            detectionFuture = new CompletableFuture<>();
+            List<CompletableFuture<@Nullable Void>> checks = new ArrayList<>(detectionChecks);
 
-        for (Integer tcpPort : tcpPorts) {
-            executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionTCP_" + hostname + " " + String.valueOf(tcpPort));
-                performServicePing(tcpPort);
-                checkIfFinished();
-            });
-        }
+            for (Integer tcpPort : tcpPorts) {
+                checks.add(performServicePing(tcpPort));
+            }
 
-        // ARP ping for IPv4 addresses. Use single executor for Windows tool and 
-        // each own executor for each network interface for other tools
-        if (arpPingMethod == ArpPingUtilEnum.ELI_FULKERSON_ARP_PING_FOR_WINDOWS) {
-            executorService.execute(() -> {
-               Thread.currentThread().setName("presenceDetectionARP_" + hostname + " ");
-               // arp-ping.exe tool capable of handling multiple interfaces by itself
-               performARPping("");
-               checkIfFinished();
-            });
-        } else if (interfaceNames != null) {                        
-            for (final String interfaceName : interfaceNames) {
-                executorService.execute(() -> {
-                   Thread.currentThread().setName("presenceDetectionARP_" + hostname + " " + interfaceName);
-                   performARPping(interfaceName);
-                   checkIfFinished();
-               });               
+            // ARP ping for IPv4 addresses. Use a single check for the Windows tool and
+            // one check for each network interface for other tools
+            if (arpPingMethod == ArpPingUtilEnum.ELI_FULKERSON_ARP_PING_FOR_WINDOWS) {
+                // arp-ping.exe tool capable of handling multiple interfaces by itself
+                checks.add(performARPping(""));
+            } else if (interfaceNames != null) {
+                for (final String interfaceName : interfaceNames) {
+                    checks.add(performARPping(interfaceName));
+                }
             }
-        }
 
-        // ICMP ping
-        if (pingMethod != null) {
-            executorService.execute(() -> {
+            // ICMP ping
+            if (pingMethod != null) {
                 if (pingMethod != IpPingMethodEnum.JAVA_PING) {
-                    Thread.currentThread().setName("presenceDetectionICMP_" + hostname);
-                    performSystemPing();
+                    checks.add(performSystemPing());
                 } else {
-                    performJavaPing();
+                    checks.add(performJavaPing());
                 }
-                checkIfFinished();
-            });
+            }
+
+            CompletableFuture.allOf(checks.toArray(new CompletableFuture<?>[checks.size()]))
+                    .whenComplete((result, e) -> submitFinalResult());
         }
 
         if (waitForDetectionToFinish) {
@@ -372,18 +371,16 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     /**
      * Calls updateListener.finalDetectionResult() with a final result value.
      * Safe to be called from different threads. After a call to this method,
-     * the presence detection process is finished and all threads are forcefully
-     * shut down.
+     * the presence detection process is finished.
      */
     private synchronized void submitFinalResult() {
         // Do nothing if we are not in a detection process
-        ExecutorService service = executorService;
-        if (service == null) {
+        CompletableFuture<@Nullable Void> detection = detectionFuture;
+        if (detection == null) {
             return;
         }
         // Finish the detection process
-        service.shutdownNow();
-        executorService = null;
+        detectionFuture = null;
         detectionChecks = 0;
 
         PresenceDetectionValue v;
@@ -404,39 +401,30 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             destination.invalidateValue();
         }
         updateListener.finalDetectionResult(v);
+        detection.complete(null);
     }
 
     /**
-     * This method is called after each individual check and increases a check counter.
-     * If the counter equals the total checks,the final result is submitted. This will
-     * happen way before the "timeoutInMS", if all checks were successful.
-     * Thread safe.
-     */
-    private synchronized void checkIfFinished() {
-        currentCheck += 1;
-        if (currentCheck < detectionChecks) {
-            return;
-        }
-        submitFinalResult();
-    }
-
-    /**
-     * Waits for the presence detection threads to finish. Returns immediately
+     * Waits for the presence detection checks to finish. Returns immediately
      * if no presence detection is performed right now.
+     *
+     * Each check times out after the configured timeout, but checks may be queued behind the checks of other things
+     * in the shared engine. The wait is therefore bounded by a multiple of the timeout. The detection continues in the
+     * background if it takes longer.
      */
     public void waitForPresenceDetection() {
-        ExecutorService service = executorService;
-        if (service == null) {
+        CompletableFuture<@Nullable Void> detection = detectionFuture;
+        if (detection == null) {
             return;
         }
         try {
             // We may get interrupted here by cancelRefreshJob().
-            service.awaitTermination(timeoutInMS + 100, TimeUnit.MILLISECONDS);
-            submitFinalResult();
+            detection.get(timeoutInMS * 3L, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt(); // Reset interrupt flag
-            service.shutdownNow();
-            executorService = null;
+        } catch (TimeoutException e) {
+            logger.debug("Presence detection for {} did not finish within {} ms", hostname, timeoutInMS * 3L);
+        } catch (ExecutionException ignored) {
         }
     }
 
@@ -465,22 +453,21 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return v;
     }
 
-    protected void performServicePing(int tcpPort) {
+    protected CompletableFuture<@Nullable Void> performServicePing(int tcpPort) {
         logger.trace("Perform TCP presence detection for {} on port: {}", hostname, tcpPort);
-        try {
-            double pingTime = System.nanoTime();
-            InetAddress destinationAddress = destination.getValue();
-            if (destinationAddress != null
-                    && networkUtils.servicePing(destinationAddress.getHostAddress(), tcpPort, timeoutInMS)) {
+        InetAddress destinationAddress = destination.getValue();
+        if (destinationAddress == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        double pingTime = System.nanoTime();
+        return engine.tcpPing(destinationAddress, tcpPort, timeoutInMS).thenAccept(reachable -> {
+            if (reachable) {
                 final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.TCP_CONNECTION, latency);
                 v.addReachableTcpService(tcpPort);
                 updateListener.partialDetectionResult(v);
             }
-        } catch (IOException e) {
-            // This should not happen and might be a user configuration issue, we log a warning message therefore.
-            logger.warn("Could not create a socket connection", e);
-        }
+        });
     }
 
     /**
@@ -491,29 +478,28 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * @param interfaceName The interface name. You can request a list of interface names
      *            from {@see NetworkUtils.getInterfaceNames()} for example.
      */
-    protected void performARPping(String interfaceName) {
-        try {
-            logger.trace("Perform ARP ping presence detection for {} on interface: {}", hostname, interfaceName);
-            InetAddress destinationAddress = destination.getValue();
-            if (destinationAddress == null) {
-                return;
-            }
+    protected CompletableFuture<@Nullable Void> performARPping(String interfaceName) {
+        logger.trace("Perform ARP ping presence detection for {} on interface: {}", hostname, interfaceName);
+        InetAddress destinationAddress = destination.getValue();
+        if (destinationAddress == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final String hostAddress = destinationAddress.getHostAddress();
+        double pingTime = System.nanoTime();
+        return engine.execute("arp " + interfaceName + " " + hostAddress, timeoutInMS, () -> {
             if (iosDevice) {
                 networkUtils.wakeUpIOS(destinationAddress);
                 Thread.sleep(50);
             }
-            double pingTime = System.nanoTime();
-            if (networkUtils.nativeARPPing(arpPingMethod, arpPingUtilPath, interfaceName,
-                    destinationAddress.getHostAddress(), timeoutInMS)) {
+            return networkUtils.nativeARPPing(arpPingMethod, arpPingUtilPath, interfaceName, hostAddress,
+                    timeoutInMS);
+        }).thenAccept(reachable -> {
+            if (reachable) {
                 final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ARP_PING, latency);
                 updateListener.partialDetectionResult(v);
             }
-        } catch (IOException e) {
-            logger.trace("Failed to execute an arp ping for ip {}", hostname, e);
-        } catch (InterruptedException ignored) {
-            // This can be ignored, the thread will end anyway
-        }
+        });
     }
 
     /**
@@ -522,42 +508,41 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * the TCP echo service on port 7 which barely no device or server supports nowadays.
      * (http://docs.oracle.com/javase/7/docs/api/java/net/InetAddress.html#isReachable%28int%29)
      */
-    protected void performJavaPing() {
-        try {
-            logger.trace("Perform java ping presence detection for {}", hostname);
-            double pingTime = System.nanoTime();
-            InetAddress destinationAddress = destination.getValue();
-            if (destinationAddress == null) {
-                return;
-            }
-            if (destinationAddress.isReachable(timeoutInMS)) {
-                final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
-                PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ICMP_PING, latency);
-                updateListener.partialDetectionResult(v);
-            }
-        } catch (IOException e) {
-            logger.trace("Failed to execute a java ping for ip {}", hostname, e);
+    protected CompletableFuture<@Nullable Void> performJavaPing() {
+        logger.trace("Perform java ping presence detection for {}", hostname);
+        InetAddress destinationAddress = destination.getValue();
+        if (destinationAddress == null) {
+            return CompletableFuture.completedFuture(null);
         }
+        double pingTime = System.nanoTime();
+        return engine.execute("java ping " + destinationAddress.getHostAddress(), timeoutInMS,
+                () -> destinationAddress.isReachable(timeoutInMS)).thenAccept(reachable -> {
+                    if (reachable) {
+                        final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+                        PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ICMP_PING, latency);
+                        updateListener.partialDetectionResult(v);
+                    }
+                });
     }
 
-    protected void performSystemPing() {
-        try {
-            logger.trace("Perform native ping presence detection for {}", hostname);
-            double pingTime = System.nanoTime();
-            InetAddress destinationAddress = destination.getValue();
-            if (destinationAddress == null) {
-                return;
-            }
-            if (networkUtils.nativePing(pingMethod, destinationAddress.getHostAddress(), timeoutInMS)) {
-                final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
-                PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ICMP_PING, latency);
-                updateListener.partialDetectionResult(v);
-            }
-        } catch (IOException e) {
-            logger.trace("Failed to execute a native ping for ip {}", hostname, e);
-        } catch (InterruptedException e) {
-            // This can be ignored, the thread will end anyway
+    protected CompletableFuture<@Nullable Void> performSystemPing() {
+        logger.trace("Perform native ping presence detection for {}", hostname);
+        InetAddress destinationAddress = destination.getValue();
+        if (destinationAddress == null) {
+            return CompletableFuture.completedFuture(null);
         }
+        final String hostAddress = destinationAddress.getHostAddress();
+        @Nullable
+        IpPingMethodEnum method = pingMethod;
+        double pingTime = System.nanoTime();
+        return engine.execute("ping " + hostAddress, timeoutInMS,
+                () -> networkUtils.nativePing(method, hostAddress, timeoutInMS)).thenAccept(reachable -> {
+                    if (reachable) {
+                        final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+                        PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ICMP_PING, latency);
+                        updateListener.partialDetectionResult(v);
+                    }
+                });
     }
 
     @Override
@@ -576,7 +561,8 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         if (future != null && !future.isDone()) {
             future.cancel(true);
         }
-        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(true), 0,
+        // Do not block the scheduler thread while the engine performs the checks
+        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(false), 0,
                 refreshIntervalInMS, TimeUnit.MILLISECONDS);
     }
 
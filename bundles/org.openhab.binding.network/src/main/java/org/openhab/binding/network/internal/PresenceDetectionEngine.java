@@ -0,0 +1,348 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.common.NamedThreadFactory;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link PresenceDetectionEngine} performs the checks of all {@link PresenceDetection} objects of the binding.
+ * <p>
+ * TCP connection attempts are non-blocking and are all handled by a single selector thread, that only runs as long as
+ * there are connection attempts. Checks that need a thread, like ICMP and ARP pings which start an external process,
+ * are performed by a bounded thread pool. At most {@link #MAX_CONCURRENT_CONNECTIONS} connection attempts and
+ * {@link #MAX_CONCURRENT_CHECKS} other checks are performed at the same time, further ones are queued. The results of
+ * connection attempts are completed on the thread pool as well, so the actions depending on them never hold up the
+ * selector thread.
+ * </p>
+ * <p>
+ * Checks are identified by a key, like the check type and the host address. If a check with the same key is still in
+ * progress, no new check is started, but the result of the ongoing check is shared. Things for the same host therefore
+ * do not ping the host several times.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class PresenceDetectionEngine {
+    static final int MAX_CONCURRENT_CONNECTIONS = 256;
+    static final int MAX_CONCURRENT_CHECKS = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+
+    private static @Nullable PresenceDetectionEngine instance;
+
+    private final Logger logger = LoggerFactory.getLogger(PresenceDetectionEngine.class);
+
+    private final Map<String, CompletableFuture<Boolean>> ongoingChecks = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor checkExecutor;
+    private final ScheduledExecutorService watchdogScheduler = ThreadPoolManager
+            .getScheduledPool(ThreadPoolManager.THREAD_POOL_NAME_COMMON);
+
+    // Connection attempts that wait for a free slot. Guarded by "this".
+    private final Queue<TcpProbe> waitingProbes = new ArrayDeque<>();
+    private @Nullable Selector selector;
+
+    private static class TcpProbe {
+        final InetSocketAddress address;
+        final int timeoutInMS;
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        @Nullable SocketChannel channel;
+        long deadline;
+
+        TcpProbe(InetSocketAddress address, int timeoutInMS) {
+            this.address = address;
+            this.timeoutInMS = timeoutInMS;
+        }
+    }
+
+    /**
+     * Return the engine shared by all presence detections of the binding.
+     */
+    public static synchronized PresenceDetectionEngine getInstance() {
+        PresenceDetectionEngine engine = instance;
+        if (engine == null) {
+            engine = new PresenceDetectionEngine();
+            instance = engine;
+        }
+        return engine;
+    }
+
+    PresenceDetectionEngine() {
+        checkExecutor = new ThreadPoolExecutor(MAX_CONCURRENT_CHECKS, MAX_CONCURRENT_CHECKS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory("network-presence"));
+        // Threads are only kept while checks are performed
+        checkExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Try to establish a TCP connection to the given address and port.
+     *
+     * @param address The destination address
+     * @param port The tcp port. Must be not 0.
+     * @param timeoutInMS Timeout in milliseconds
+     * @return Completes with true if the connection was established and false if it was refused or timed out.
+     */
+    public CompletableFuture<Boolean> tcpPing(InetAddress address, int port, int timeoutInMS) {
+        return shared("tcp " + address.getHostAddress() + ":" + port, () -> {
+            TcpProbe probe = new TcpProbe(new InetSocketAddress(address, port), timeoutInMS);
+            List<TcpProbe> failedProbes = new ArrayList<>();
+            synchronized (this) {
+                waitingProbes.add(probe);
+                Selector selector = this.selector;
+                if (selector != null) {
+                    selector.wakeup();
+                } else if (!startSelectorThread()) {
+                    failedProbes.addAll(waitingProbes);
+                    waitingProbes.clear();
+                }
+            }
+            failedProbes.forEach(failedProbe -> completeProbe(failedProbe, false));
+            return probe.future;
+        });
+    }
+
+    /**
+     * Perform a blocking check, like a ping with an external utility, on the thread pool of the engine.
+     *
+     * @param key The key of the check, e.g. the check type and the host address.
+     * @param timeoutInMS Timeout in milliseconds. The check thread is interrupted if the check takes longer.
+     * @param check The check. Returns true if the host responded.
+     * @return Completes with the result of the check or false if the check failed or timed out.
+     */
+    public CompletableFuture<Boolean> execute(String key, int timeoutInMS, Callable<Boolean> check) {
+        return shared(key, () -> {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            checkExecutor.execute(() -> future.complete(runCheck(key, timeoutInMS, check)));
+            return future;
+        });
+    }
+
+    /**
+     * Return the number of checks and connection attempts in progress.
+     */
+    public int getOngoingChecks() {
+        return ongoingChecks.size();
+    }
+
+    /**
+     * Start the given check, unless a check with the same key is in progress. The result completes with false if the
+     * check fails or cannot be started.
+     */
+    CompletableFuture<Boolean> shared(String key, Supplier<CompletableFuture<Boolean>> check) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        CompletableFuture<Boolean> ongoing = ongoingChecks.putIfAbsent(key, future);
+        if (ongoing != null) {
+            logger.trace("Share result of ongoing check {}", key);
+            return ongoing;
+        }
+        CompletableFuture<Boolean> result;
+        try {
+            result = check.get();
+        } catch (RuntimeException e) {
+            // E.g. the check could not be queued. Do not let later checks share a result that never arrives.
+            logger.debug("Could not start check {}: {}", key, e.getMessage());
+            ongoingChecks.remove(key, future);
+            future.complete(false);
+            return future;
+        }
+        result.whenComplete((r, e) -> {
+            ongoingChecks.remove(key, future);
+            future.complete(e == null && r);
+        });
+        return future;
+    }
+
+    private boolean runCheck(String key, int timeoutInMS, Callable<Boolean> check) {
+        final Thread thread = Thread.currentThread();
+        final Object lock = new Object();
+        final boolean[] running = { true };
+        ScheduledFuture<?> watchdog = watchdogScheduler.schedule(() -> {
+            synchronized (lock) {
+                if (running[0]) {
+                    logger.trace("Check {} timed out", key);
+                    thread.interrupt();
+                }
+            }
+        }, timeoutInMS + 100, TimeUnit.MILLISECONDS);
+
+        boolean result;
+        try {
+            result = check.call();
+        } catch (InterruptedException e) {
+            result = false;
+        } catch (Exception e) {
+            logger.trace("Failed to execute check {}", key, e);
+            result = false;
+        }
+
+        synchronized (lock) {
+            running[0] = false;
+        }
+        watchdog.cancel(false);
+        Thread.interrupted(); // Clear the interrupt flag of the pool thread, if the watchdog fired
+        return result;
+    }
+
+    /**
+     * Start the selector thread. Must be called while holding the lock of the engine.
+     *
+     * @return false if no selector could be opened
+     */
+    private boolean startSelectorThread() {
+        final Selector selector;
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            logger.warn("Could not open a selector for TCP presence detection: {}", e.getMessage());
+            return false;
+        }
+        this.selector = selector;
+        Thread thread = new Thread(() -> selectorLoop(selector), "network-presence-tcp");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Performs the connection attempts and stops as soon as there are no more connection attempts left.
+     */
+    private void selectorLoop(Selector selector) {
+        List<TcpProbe> activeProbes = new ArrayList<>();
+        try {
+            while (true) {
+                List<TcpProbe> startingProbes = new ArrayList<>();
+                synchronized (this) {
+                    while (activeProbes.size() + startingProbes.size() < MAX_CONCURRENT_CONNECTIONS
+                            && !waitingProbes.isEmpty()) {
+                        startingProbes.add(waitingProbes.poll());
+                    }
+                    if (activeProbes.isEmpty() && startingProbes.isEmpty()) {
+                        this.selector = null;
+                        break;
+                    }
+                }
+                for (TcpProbe probe : startingProbes) {
+                    startProbe(selector, probe, activeProbes);
+                }
+                if (activeProbes.isEmpty()) {
+                    continue; // All refused right away
+                }
+
+                long now = System.nanoTime();
+                long nextDeadline = Long.MAX_VALUE;
+                for (TcpProbe probe : activeProbes) {
+                    nextDeadline = Math.min(nextDeadline, probe.deadline);
+                }
+                selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(nextDeadline - now)));
+
+                Iterator<SelectionKey> keyIter = selector.selectedKeys().iterator();
+                while (keyIter.hasNext()) {
+                    SelectionKey key = keyIter.next();
+                    keyIter.remove();
+                    TcpProbe probe = (TcpProbe) key.attachment();
+                    try {
+                        if (((SocketChannel) key.channel()).finishConnect()) {
+                            finishProbe(probe, true, activeProbes);
+                        }
+                    } catch (IOException e) {
+                        finishProbe(probe, false, activeProbes); // Connection refused, host unreachable
+                    }
+                }
+
+                now = System.nanoTime();
+                for (TcpProbe probe : new ArrayList<>(activeProbes)) {
+                    if (probe.deadline - now <= 0) {
+                        finishProbe(probe, false, activeProbes);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("TCP presence detection failed: {}", e.getMessage());
+            synchronized (this) {
+                activeProbes.addAll(waitingProbes);
+                waitingProbes.clear();
+                this.selector = null;
+            }
+            new ArrayList<>(activeProbes).forEach(probe -> finishProbe(probe, false, activeProbes));
+        } finally {
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void startProbe(Selector selector, TcpProbe probe, List<TcpProbe> activeProbes) {
+        try {
+            SocketChannel channel = SocketChannel.open();
+            probe.channel = channel;
+            probe.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(probe.timeoutInMS);
+            activeProbes.add(probe);
+            channel.configureBlocking(false);
+            if (channel.connect(probe.address)) {
+                finishProbe(probe, true, activeProbes);
+            } else {
+                channel.register(selector, SelectionKey.OP_CONNECT, probe);
+            }
+        } catch (IOException e) {
+            // Refused or no route to host right away. Other errors might be a user configuration issue.
+            logger.trace("Could not connect to {}: {}", probe.address, e.getMessage());
+            finishProbe(probe, false, activeProbes);
+        }
+    }
+
+    private void finishProbe(TcpProbe probe, boolean connected, List<TcpProbe> activeProbes) {
+        activeProbes.remove(probe);
+        SocketChannel channel = probe.channel;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+        completeProbe(probe, connected);
+    }
+
+    /**
+     * Complete the probe on the check pool. The dependent actions, like updating the thing state, must neither block
+     * the selector thread, which serves all connection attempts, nor run while the engine is locked.
+     */
+    private void completeProbe(TcpProbe probe, boolean connected) {
+        checkExecutor.execute(() -> probe.future.complete(connected));
+    }
+}
@@ -19,8 +19,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -37,6 +37,7 @@ import org.openhab.binding.network.internal.PresenceDetection;
 import org.openhab.binding.network.internal.PresenceDetectionListener;
 import org.openhab.binding.network.internal.PresenceDetectionValue;
 import org.openhab.binding.network.internal.utils.NetworkUtils;
+import org.openhab.binding.network.internal.utils.NetworkUtils.IpPingMethodEnum;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
@@ -48,6 +49,7 @@ import org.slf4j.LoggerFactory;
  * The {@link NetworkDiscoveryService} is responsible for discovering devices on
  * the current Network. It uses every Network Interface which is connected to a network.
  * It tries common TCP ports to connect to, ICMP pings and ARP pings.
+ * The addresses are scanned by a {@link SubnetScanner}, without blocking a thread per address.
  *
  * @author Marc Mettke - Initial contribution
  * @author David Graeff - Rewritten
@@ -57,6 +59,8 @@ import org.slf4j.LoggerFactory;
 public class NetworkDiscoveryService extends AbstractDiscoveryService implements PresenceDetectionListener {
     static final int PING_TIMEOUT_IN_MS = 500;
     static final int MAXIMUM_IPS_PER_INTERFACE = 255;
+    static final int MAXIMUM_HOSTS_IN_FLIGHT = 64;
+    static final int MAXIMUM_HOSTS_PER_SUBNET_AND_SECOND = 100;
     private static final long DISCOVERY_RESULT_TTL = TimeUnit.MINUTES.toSeconds(10);
     private final Logger logger = LoggerFactory.getLogger(NetworkDiscoveryService.class);
 
@@ -65,10 +69,14 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     // TCP port 1025 (Xbox / MS-RPC)
     private Set<Integer> tcpServicePorts = Collections
             .unmodifiableSet(Stream.of(80, 548, 554, 1025).collect(Collectors.toSet()));
-    private Integer scannedIPcount = 0;
-    private @Nullable ExecutorService executorService = null;
     private final NetworkBindingConfiguration configuration = new NetworkBindingConfiguration();
     private final NetworkUtils networkUtils = new NetworkUtils();
+    private final SubnetScanner scanner = new SubnetScanner(scheduler, MAXIMUM_HOSTS_IN_FLIGHT,
+            MAXIMUM_HOSTS_PER_SUBNET_AND_SECOND, this::scanHost, this::scanProgress);
+    // Hosts scanned right now, by their address. Completed by the final presence detection result.
+    private final Map<String, CompletableFuture<@Nullable Void>> scannedHosts = new ConcurrentHashMap<>();
+    private IpPingMethodEnum pingMethod = IpPingMethodEnum.JAVA_PING;
+    private int lastReportedProgress;
 
     public NetworkDiscoveryService() {
         super(SUPPORTED_THING_TYPES_UIDS, (int) Math.round(
@@ -96,9 +104,7 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     @Override
     @Deactivate
     protected void deactivate() {
-        if (executorService != null) {
-            executorService.shutdown();
-        }
+        scanner.cancel();
         super.deactivate();
     }
 
@@ -117,67 +123,70 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
 
     @Override
     public void finalDetectionResult(PresenceDetectionValue value) {
+        CompletableFuture<@Nullable Void> scannedHost = scannedHosts.remove(value.getHostAddress());
+        if (scannedHost != null) {
+            scannedHost.complete(null);
+        }
     }
 
     /**
-     * Starts the DiscoveryThread for each IP on each interface on the network
+     * Starts the scan of each IP on each interface on the network
      */
     @Override
     protected void startScan() {
-        if (executorService == null) {
-            executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
-        }
-        final ExecutorService service = executorService;
-        if (service == null) {
-            return;
-        }
         removeOlderResults(getTimestampOfLastScan(), null);
         logger.trace("Starting Network Device Discovery");
 
+        // Determine the ping method once, instead of a feature test for each IP
+        pingMethod = networkUtils.determinePingMethod();
+        lastReportedProgress = 0;
+
         final Set<String> networkIPs = networkUtils.getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE);
-        scannedIPcount = 0;
-
-        for (String ip : networkIPs) {
-            final PresenceDetection s = new PresenceDetection(this, 2000);
-            s.setHostname(ip);
-            s.setIOSDevice(true);
-            s.setUseDhcpSniffing(false);
-            s.setTimeout(PING_TIMEOUT_IN_MS);
-            // Ping devices
-            s.setUseIcmpPing(true);
-            s.setUseArpPing(true, configuration.arpPingToolPath, configuration.arpPingUtilMethod);
-            // TCP devices
-            s.setServicePorts(tcpServicePorts);
-
-            service.execute(() -> {
-                Thread.currentThread().setName("Discovery thread " + ip);
-                s.performPresenceDetection(true);
-                synchronized (scannedIPcount) {
-                    scannedIPcount += 1;
-                    if (scannedIPcount == networkIPs.size()) {
-                        logger.trace("Scan of {} IPs successful", scannedIPcount);
-                        stopScan();
-                    }
-                }
-            });
-        }
+        scanner.scan(networkIPs).thenRun(() -> {
+            logger.trace("Scan of {} IPs successful", networkIPs.size());
+            stopScan();
+        });
     }
 
     @Override
     protected synchronized void stopScan() {
         super.stopScan();
-        final ExecutorService service = executorService;
-        if (service == null) {
-            return;
+        scanner.cancel();
+    }
+
+    /**
+     * Starts the presence detection of an IP. Does not block.
+     *
+     * @param ip The device IP
+     * @return Completes when the presence detection is finished
+     */
+    private CompletableFuture<@Nullable Void> scanHost(String ip) {
+        final PresenceDetection s = new PresenceDetection(this, 2000);
+        s.setHostname(ip);
+        s.setIOSDevice(true);
+        s.setUseDhcpSniffing(false);
+        s.setTimeout(PING_TIMEOUT_IN_MS);
+        // Ping devices
+        s.setIcmpPingMethod(pingMethod);
+        s.setUseArpPing(true, configuration.arpPingToolPath, configuration.arpPingUtilMethod);
+        // TCP devices
+        s.setServicePorts(tcpServicePorts);
+
+        CompletableFuture<@Nullable Void> scannedHost = new CompletableFuture<>();
+        scannedHosts.put(ip, scannedHost);
+        if (!s.performPresenceDetection(false)) {
+            scannedHosts.remove(ip);
+            scannedHost.complete(null);
         }
+        return scannedHost;
+    }
 
-        try {
-            service.awaitTermination(PING_TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Reset interrupt flag
+    private void scanProgress(int scanned, int total) {
+        int progress = scanned * 100 / total;
+        if (progress >= lastReportedProgress + 10 || scanned == total) {
+            lastReportedProgress = progress;
+            logger.debug("Network discovery scanned {} of {} IPs ({}%)", scanned, total, progress);
         }
-        service.shutdown();
-        executorService = null;
     }
 
     public static ThingUID createServiceUID(String ip, int tcpPort) {
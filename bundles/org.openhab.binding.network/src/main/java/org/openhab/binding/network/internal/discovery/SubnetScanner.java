@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.discovery;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scans a set of addresses without blocking a thread per address.
+ * <p>
+ * The scan of a single address is asynchronous and only tracked by its future. At most <code>maxInFlight</code>
+ * addresses are scanned at the same time. Addresses are grouped by their subnet (/24 for IPv4) and the subnets are
+ * scanned round robin, while at most <code>maxHostsPerSubnetAndSecond</code> scans are started per subnet and second.
+ * This keeps the burst of ARP requests and connection attempts on a single network segment small.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SubnetScanner {
+    private final Logger logger = LoggerFactory.getLogger(SubnetScanner.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final int maxInFlight;
+    private final long startIntervalInNS;
+    private final Function<String, CompletableFuture<?>> scanHost;
+    private final BiConsumer<Integer, Integer> progressListener;
+
+    private final Map<String, Queue<String>> pendingBySubnet = new LinkedHashMap<>();
+    private final Map<String, Long> nextStartBySubnet = new HashMap<>();
+    private @Nullable ScheduledFuture<?> startJob;
+    private CompletableFuture<@Nullable Void> scanFuture = CompletableFuture.completedFuture(null);
+    private int generation;
+    private int inFlight;
+    private int scanned;
+    private int total;
+
+    /**
+     * Creates a {@link SubnetScanner}.
+     *
+     * @param scheduler A scheduler for starting rate limited scans and for handling finished scans
+     * @param maxInFlight The maximum number of addresses scanned at the same time
+     * @param maxHostsPerSubnetAndSecond The maximum number of scans started per subnet and second
+     * @param scanHost Starts the scan of an address. The returned future completes when the scan is finished.
+     * @param progressListener Called with the number of scanned and the total number of addresses after every scan
+     */
+    public SubnetScanner(ScheduledExecutorService scheduler, int maxInFlight, int maxHostsPerSubnetAndSecond,
+            Function<String, CompletableFuture<?>> scanHost, BiConsumer<Integer, Integer> progressListener) {
+        if (maxInFlight <= 0 || maxHostsPerSubnetAndSecond <= 0) {
+            throw new IllegalArgumentException("Limits need to be greater than 0!");
+        }
+        this.scheduler = scheduler;
+        this.maxInFlight = maxInFlight;
+        this.startIntervalInNS = TimeUnit.SECONDS.toNanos(1) / maxHostsPerSubnetAndSecond;
+        this.scanHost = scanHost;
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Scans the given addresses. A scan in progress is cancelled first.
+     *
+     * @param addresses IPv4 or IPv6 addresses
+     * @return Completes when all addresses are scanned. Is cancelled if the scan is cancelled.
+     */
+    public synchronized CompletableFuture<@Nullable Void> scan(Collection<String> addresses) {
+        cancel();
+        for (String address : addresses) {
+            pendingBySubnet.computeIfAbsent(subnetOf(address), subnet -> new ArrayDeque<>()).add(address);
+        }
+        scanned = 0;
+        total = addresses.size();
+        scanFuture = new CompletableFuture<>();
+        if (total == 0) {
+            scanFuture.complete(null);
+        } else {
+            scheduler.execute(this::startScans);
+        }
+        return scanFuture;
+    }
+
+    /**
+     * Cancels the scan. Addresses that are scanned right now are not interrupted, but not counted anymore.
+     */
+    public synchronized void cancel() {
+        generation++;
+        pendingBySubnet.clear();
+        nextStartBySubnet.clear();
+        ScheduledFuture<?> job = startJob;
+        if (job != null) {
+            job.cancel(false);
+            startJob = null;
+        }
+        scanFuture.cancel(false);
+    }
+
+    /**
+     * Return the number of scanned addresses of the current scan.
+     */
+    public synchronized int getScanned() {
+        return scanned;
+    }
+
+    /**
+     * Return the total number of addresses of the current scan.
+     */
+    public synchronized int getTotal() {
+        return total;
+    }
+
+    /**
+     * Return the number of addresses scanned right now.
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    static String subnetOf(String address) {
+        int separator = address.contains(":") ? address.lastIndexOf(':') : address.lastIndexOf('.');
+        return separator > 0 ? address.substring(0, separator) : address;
+    }
+
+    private void startScans() {
+        List<String> addresses = new ArrayList<>();
+        final int scanGeneration;
+        synchronized (this) {
+            startJob = null;
+            long now = System.nanoTime();
+            long nextStart = Long.MAX_VALUE;
+            // Round robin over the subnets. A subnet is skipped until its next start time has come.
+            boolean started = true;
+            while (started && inFlight < maxInFlight) {
+                started = false;
+                Iterator<Entry<String, Queue<String>>> iterator = pendingBySubnet.entrySet().iterator();
+                while (iterator.hasNext() && inFlight < maxInFlight) {
+                    Entry<String, Queue<String>> entry = iterator.next();
+                    long subnetNextStart = nextStartBySubnet.getOrDefault(entry.getKey(), now);
+                    if (subnetNextStart - now > 0) {
+                        nextStart = Math.min(nextStart, subnetNextStart);
+                        continue;
+                    }
+                    addresses.add(entry.getValue().poll());
+                    inFlight++;
+                    started = true;
+                    nextStartBySubnet.put(entry.getKey(), Math.max(subnetNextStart, now) + startIntervalInNS);
+                    if (entry.getValue().isEmpty()) {
+                        iterator.remove();
+                    }
+                }
+            }
+            // Rate limited subnets are continued later on, a full window is continued by finished scans
+            if (inFlight < maxInFlight && nextStart != Long.MAX_VALUE && startJob == null) {
+                startJob = scheduler.schedule(this::startScans, nextStart - now, TimeUnit.NANOSECONDS);
+            }
+            scanGeneration = generation;
+        }
+
+        for (String address : addresses) {
+            CompletableFuture<?> future;
+            try {
+                future = scanHost.apply(address);
+            } catch (RuntimeException e) {
+                logger.warn("Could not scan {}", address, e);
+                future = CompletableFuture.completedFuture(null);
+            }
+            future.whenCompleteAsync((result, e) -> scanFinished(scanGeneration), scheduler);
+        }
+    }
+
+    private void scanFinished(int scanGeneration) {
+        CompletableFuture<@Nullable Void> finishedScan = null;
+        boolean currentScan;
+        int scannedCount;
+        int totalCount;
+        synchronized (this) {
+            inFlight--;
+            currentScan = scanGeneration == generation;
+            if (currentScan) {
+                scanned++;
+                if (scanned == total) {
+                    finishedScan = scanFuture;
+                }
+            }
+            scannedCount = scanned;
+            totalCount = total;
+        }
+
+        if (currentScan) {
+            progressListener.accept(scannedCount, totalCount);
+        }
+        if (finishedScan != null) {
+            finishedScan.complete(null);
+        } else {
+            startScans();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@see PresenceDetectionEngine}
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceDetectionEngineTest {
+    PresenceDetectionEngine subject = new PresenceDetectionEngine();
+
+    @Test
+    public void tcpPing() throws Exception {
+        InetAddress localhost = InetAddress.getLoopbackAddress();
+        int closedPort;
+        try (ServerSocket serverSocket = new ServerSocket(0, 10, localhost)) {
+            assertThat(subject.tcpPing(localhost, serverSocket.getLocalPort(), 1000).get(2, TimeUnit.SECONDS),
+                    is(true));
+            closedPort = serverSocket.getLocalPort();
+        }
+        assertThat(subject.tcpPing(localhost, closedPort, 1000).get(2, TimeUnit.SECONDS), is(false));
+        assertThat(subject.getOngoingChecks(), is(0));
+    }
+
+    @Test
+    public void ongoingCheckIsShared() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<Boolean> first = subject.execute("ping 192.168.0.1", 1000, () -> {
+            calls.incrementAndGet();
+            return latch.await(2, TimeUnit.SECONDS);
+        });
+        CompletableFuture<Boolean> second = subject.execute("ping 192.168.0.1", 1000, () -> {
+            calls.incrementAndGet();
+            return false;
+        });
+        assertThat(subject.getOngoingChecks(), is(1));
+
+        latch.countDown();
+        assertThat(first.get(2, TimeUnit.SECONDS), is(true));
+        assertThat(second.get(2, TimeUnit.SECONDS), is(true));
+        assertThat(calls.get(), is(1));
+    }
+
+    @Test
+    public void checkIsInterruptedAfterTimeout() throws Exception {
+        CompletableFuture<Boolean> check = subject.execute("arp eth0 192.168.0.1", 100, () -> {
+            Thread.sleep(5000);
+            return true;
+        });
+        assertThat(check.get(2, TimeUnit.SECONDS), is(false));
+    }
+
+    @Test
+    public void checkThatCannotBeStartedIsNotShared() throws Exception {
+        CompletableFuture<Boolean> rejected = subject.shared("ping 192.168.0.1", () -> {
+            throw new RejectedExecutionException("test");
+        });
+        assertThat(rejected.get(2, TimeUnit.SECONDS), is(false));
+        assertThat(subject.getOngoingChecks(), is(0));
+
+        // The next check with the same key is started
+        CompletableFuture<Boolean> next = subject.shared("ping 192.168.0.1",
+                () -> CompletableFuture.completedFuture(true));
+        assertThat(next.get(2, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void tcpPingResultIsNotProcessedOnSelectorThread() throws Exception {
+        InetAddress localhost = InetAddress.getLoopbackAddress();
+        try (ServerSocket serverSocket = new ServerSocket(0, 10, localhost)) {
+            CompletableFuture<String> thread = subject.tcpPing(localhost, serverSocket.getLocalPort(), 1000)
+                    .thenApply(reachable -> Thread.currentThread().getName());
+            assertThat(thread.get(2, TimeUnit.SECONDS), is(not("network-presence-tcp")));
+        }
+    }
+}
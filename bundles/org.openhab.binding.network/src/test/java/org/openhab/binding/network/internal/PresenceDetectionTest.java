@@ -20,13 +20,15 @@ import static org.mockito.Mockito.*;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.Collections;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.eclipse.jdt.annotation.Nullable;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -50,7 +52,7 @@ public class PresenceDetectionTest {
     PresenceDetectionListener listener;
 
     @Mock
-    ExecutorService executorService;
+    PresenceDetectionEngine engine;
 
     @Mock
     Consumer<PresenceDetectionValue> callback;
@@ -68,6 +70,12 @@ public class PresenceDetectionTest {
 
         subject = spy(new PresenceDetection(listener, (int) CACHETIME));
         subject.networkUtils = networkUtils;
+        subject.engine = engine;
+        // Perform checks right away on the calling thread
+        doAnswer(invocation -> {
+            Callable<Boolean> check = invocation.getArgument(2);
+            return CompletableFuture.completedFuture(check.call());
+        }).when(engine).execute(anyString(), anyInt(), any());
         subject.cache = spy(new ExpiringCacheAsync<PresenceDetectionValue>(CACHETIME, () -> {
             subject.performPresenceDetection(false);
         }));
@@ -89,26 +97,28 @@ public class PresenceDetectionTest {
         subject.waitForPresenceDetection();
     }
 
-    // Depending on the amount of test methods an according amount of threads is spawned.
-    // We will check if they spawn and return in time.
+    // Depending on the amount of test methods an according amount of checks is performed.
+    // We will check if they are issued and the detection finishes with the last one.
     @Test
-    public void threadCountTest() {
-        assertNull(subject.executorService);
+    public void checkCountTest() {
+        assertNull(subject.detectionFuture);
 
-        doNothing().when(subject).performARPping(any());
-        doNothing().when(subject).performJavaPing();
-        doNothing().when(subject).performSystemPing();
-        doNothing().when(subject).performServicePing(anyInt());
+        CompletableFuture<@Nullable Void> check = new CompletableFuture<>();
+        doReturn(check).when(subject).performARPping(any());
+        doReturn(check).when(subject).performJavaPing();
+        doReturn(check).when(subject).performSystemPing();
+        doReturn(check).when(subject).performServicePing(anyInt());
 
         subject.performPresenceDetection(false);
 
-        // Thread count: ARP + ICMP + 1*TCP
+        // Check count: ARP + ICMP + 1*TCP
         assertThat(subject.detectionChecks, is(3));
-        assertNotNull(subject.executorService);
+        assertNotNull(subject.detectionFuture);
 
+        check.complete(null);
         subject.waitForPresenceDetection();
         assertThat(subject.detectionChecks, is(0));
-        assertNull(subject.executorService);
+        assertNull(subject.detectionFuture);
     }
 
     @Test
@@ -116,7 +126,7 @@ public class PresenceDetectionTest {
         doReturn(true).when(networkUtils).nativePing(eq(IpPingMethodEnum.WINDOWS_PING), anyString(), anyInt());
         doReturn(true).when(networkUtils).nativeARPPing(eq(ArpPingUtilEnum.IPUTILS_ARPING), anyString(), anyString(),
                 any(), anyInt());
-        doReturn(true).when(networkUtils).servicePing(anyString(), anyInt(), anyInt());
+        doReturn(CompletableFuture.completedFuture(true)).when(engine).tcpPing(any(), anyInt(), anyInt());
 
         assertTrue(subject.performPresenceDetection(false));
         subject.waitForPresenceDetection();
@@ -133,30 +143,35 @@ public class PresenceDetectionTest {
         assertThat(capture.getValue().getSuccessfulDetectionTypes(), is("ARP_PING, ICMP_PING, TCP_CONNECTION"));
     }
 
+    @SuppressWarnings("unchecked")
     @Test
-    public void cacheTest() throws InterruptedException, IOException {
+    public void cacheTest() throws Exception {
         doReturn(true).when(networkUtils).nativePing(eq(IpPingMethodEnum.WINDOWS_PING), anyString(), anyInt());
         doReturn(true).when(networkUtils).nativeARPPing(eq(ArpPingUtilEnum.IPUTILS_ARPING), anyString(), anyString(),
                 any(), anyInt());
-        doReturn(true).when(networkUtils).servicePing(anyString(), anyInt(), anyInt());
 
-        doReturn(executorService).when(subject).getThreadsFor(anyInt());
+        // Checks are performed by the engine later on
+        ArgumentCaptor<Callable<Boolean>> capture = ArgumentCaptor.forClass(Callable.class);
+        CompletableFuture<Boolean> checks = new CompletableFuture<>();
+        doReturn(checks).when(engine).execute(anyString(), anyInt(), capture.capture());
+        doReturn(checks).when(engine).tcpPing(any(), anyInt(), anyInt());
 
         // We expect no valid value
         assertTrue(subject.cache.isExpired());
         // Get value will issue a PresenceDetection internally.
         subject.getValue(callback);
         verify(subject).performPresenceDetection(eq(false));
-        assertNotNull(subject.executorService);
+        assertNotNull(subject.detectionFuture);
         // There should be no straight callback yet
         verify(callback, times(0)).accept(any());
 
-        // Perform the different presence detection threads now
-        ArgumentCaptor<Runnable> capture = ArgumentCaptor.forClass(Runnable.class);
-        verify(executorService, times(3)).execute(capture.capture());
-        for (Runnable r : capture.getAllValues()) {
-            r.run();
+        // Perform the different presence detection checks now
+        verify(engine, times(2)).execute(anyString(), anyInt(), any());
+        verify(engine).tcpPing(any(), anyInt(), anyInt());
+        for (Callable<Boolean> check : capture.getAllValues()) {
+            assertTrue(check.call());
         }
+        checks.complete(true);
         // "Wait" for the presence detection to finish
         subject.waitForPresenceDetection();
 
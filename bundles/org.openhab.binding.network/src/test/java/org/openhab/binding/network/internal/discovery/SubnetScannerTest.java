@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.discovery;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@see SubnetScanner}
+ *
+ * @author agent - Initial contribution
+ */
+public class SubnetScannerTest {
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Simulates the scan of an address, which takes the given time.
+     */
+    private CompletableFuture<?> simulatedScan(int durationInMS) {
+        CompletableFuture<?> future = new CompletableFuture<>();
+        scheduler.schedule(() -> future.complete(null), durationInMS, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    @Test
+    public void subnetOf() {
+        assertThat(SubnetScanner.subnetOf("192.168.1.20"), is("192.168.1"));
+        assertThat(SubnetScanner.subnetOf("fe80::1"), is("fe80:"));
+    }
+
+    @Test
+    public void scanOfSimulatedAddressRange() throws Exception {
+        // Four simulated /24 subnets
+        Set<String> addresses = new LinkedHashSet<>();
+        for (int subnet = 0; subnet < 4; ++subnet) {
+            for (int host = 1; host < 255; ++host) {
+                addresses.add("10.0." + subnet + "." + host);
+            }
+        }
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+        SubnetScanner subject = new SubnetScanner(scheduler, 64, 1000, address -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return simulatedScan(20).whenComplete((r, e) -> inFlight.decrementAndGet());
+        }, (scanned, total) -> progress.add(scanned));
+
+        subject.scan(addresses).get(30, TimeUnit.SECONDS);
+
+        assertThat(subject.getScanned(), is(addresses.size()));
+        assertThat(progress.size(), is(addresses.size()));
+        assertTrue(progress.contains(addresses.size()));
+        assertTrue("Too many scans at the same time: " + maxInFlight.get(), maxInFlight.get() <= 64);
+    }
+
+    @Test
+    public void scansPerSubnetAreRateLimited() throws Exception {
+        Set<String> addresses = new LinkedHashSet<>();
+        for (int host = 1; host <= 11; ++host) {
+            addresses.add("192.168.1." + host);
+        }
+
+        List<Long> startTimes = Collections.synchronizedList(new ArrayList<>());
+        SubnetScanner subject = new SubnetScanner(scheduler, 64, 50, address -> {
+            startTimes.add(System.nanoTime());
+            return CompletableFuture.completedFuture(null);
+        }, (scanned, total) -> {
+        });
+
+        subject.scan(addresses).get(10, TimeUnit.SECONDS);
+
+        // 50 scans per second: 10 intervals of 20ms between the first and the last scan
+        long duration = TimeUnit.NANOSECONDS.toMillis(startTimes.get(10) - startTimes.get(0));
+        assertThat("Scans took " + duration + "ms", duration >= 190, is(true));
+    }
+
+    @Test
+    public void cancelledScanDoesNotComplete() {
+        SubnetScanner subject = new SubnetScanner(scheduler, 1, 1, address -> simulatedScan(1000),
+                (scanned, total) -> {
+                });
+
+        CompletableFuture<?> scan = subject.scan(Collections.singleton("192.168.1.1"));
+        subject.cancel();
+        assertTrue(scan.isCancelled());
+        assertThat(subject.getScanned(), is(0));
+    }
+}
@@ -12,6 +12,7 @@
  */
 package org.openhab.io.homekit.internal;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -35,6 +36,7 @@ import com.beowulfe.hap.HomekitRoot;
 class HomekitAccessoryRegistry {
 
     private @Nullable HomekitRoot bridge;
+    private int configurationIndex = 1;
     private final Map<String, HomekitAccessory> createdAccessories = new HashMap<>();
     private final Set<Integer> createdIds = new HashSet<>();
 
@@ -69,6 +71,28 @@ class HomekitAccessoryRegistry {
     public synchronized void setBridge(HomekitRoot bridge) {
         this.bridge = bridge;
         createdAccessories.values().forEach(accessory -> bridge.addAccessory(accessory));
+        applyConfigurationIndex(bridge);
+    }
+
+    /**
+     * Sets the configuration index advertised by the bridge. Clients reload the accessories if it changes.
+     *
+     * @param configurationIndex The index, greater than or equal to 1
+     */
+    public synchronized void setConfigurationIndex(int configurationIndex) {
+        this.configurationIndex = configurationIndex;
+        final HomekitRoot bridge = this.bridge;
+        if (bridge != null) {
+            applyConfigurationIndex(bridge);
+        }
+    }
+
+    private void applyConfigurationIndex(HomekitRoot bridge) {
+        try {
+            bridge.setConfigurationIndex(configurationIndex);
+        } catch (IOException e) {
+            logger.warn("Could not advertise configuration index {}: {}", configurationIndex, e.getMessage());
+        }
     }
 
     public synchronized void unsetBridge() {
@@ -15,17 +15,22 @@ package org.openhab.io.homekit.internal;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.eclipse.smarthome.core.items.GroupItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.storage.Storage;
 import org.openhab.io.homekit.internal.accessories.HomekitAccessoryFactory;
 import org.openhab.io.homekit.internal.accessories.IncompleteAccessoryException;
 import org.slf4j.Logger;
@@ -40,16 +45,23 @@ import com.beowulfe.hap.HomekitRoot;
  * @author Andy Lintner - Initial contribution
  */
 public class HomekitChangeListener implements ItemRegistryChangeListener {
+    private static final String CONFIGURATION_INDEX_KEY = "configurationIndex";
+
     private final Logger logger = LoggerFactory.getLogger(HomekitChangeListener.class);
     private final ItemRegistry itemRegistry;
     private final HomekitAccessoryRegistry accessoryRegistry = new HomekitAccessoryRegistry();
     private HomekitAccessoryUpdater updater = new HomekitAccessoryUpdater();
     private HomekitSettings settings;
+    private final Storage<String> storage;
+    private int configurationIndex;
 
     private Set<String> pendingUpdates = new HashSet<String>();
 
-    private final ScheduledExecutorService scheduler = ThreadPoolManager
-            .getScheduledPool(ThreadPoolManager.THREAD_POOL_NAME_COMMON);
+    /**
+     * The items each created root accessory was built from, i.e. the accessory item and the members of an accessory
+     * group. Item instances are compared by identity, because the registry creates a new instance for every update.
+     */
+    private final Map<String, Set<Item>> accessoryItems = new HashMap<>();
 
     /**
      * Rather than reacting to item added/removed/modified changes directly, we mark them as dirty (and the groups to
@@ -58,12 +70,29 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
      * We wait for a second to pass until no more items are changed. This allows us to add a group of items all at once,
      * rather than for each update at a time, preventing us from showing an error message with each addition until the
      * group is complete.
+     *
+     * Only accessories whose items actually changed are recreated, and the configuration index of the bridge is
+     * incremented once per applied batch of changes, instead of re-advertising the bridge for every item.
+     *
+     * Note that a started bridge still resets its accessory registry and all client connections for every single
+     * accessory that is added or removed. HomekitRoot offers no way to apply several changes at once. Only the
+     * accessories created before the bridge is started (see {@link #setBridge(HomekitRoot)}) are added without a
+     * reset.
      */
     private final Debouncer applyUpdatesDebouncer;
 
-    HomekitChangeListener(ItemRegistry itemRegistry, HomekitSettings settings) {
+    HomekitChangeListener(ItemRegistry itemRegistry, HomekitSettings settings, Storage<String> storage) {
+        this(itemRegistry, settings, storage,
+                ThreadPoolManager.getScheduledPool(ThreadPoolManager.THREAD_POOL_NAME_COMMON));
+    }
+
+    HomekitChangeListener(ItemRegistry itemRegistry, HomekitSettings settings, Storage<String> storage,
+            ScheduledExecutorService scheduler) {
         this.itemRegistry = itemRegistry;
         this.settings = settings;
+        this.storage = storage;
+        this.configurationIndex = loadConfigurationIndex();
+        accessoryRegistry.setConfigurationIndex(configurationIndex);
         this.applyUpdatesDebouncer = new Debouncer("update-homekit-devices", scheduler, Duration.ofMillis(1000),
                 Clock.systemUTC(), this::applyUpdates);
 
@@ -116,17 +145,67 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         }
     }
 
-    private synchronized void applyUpdates() {
-        Iterator<String> iter = pendingUpdates.iterator();
+    /**
+     * Applies the pending updates: Accessories whose items did not change are kept, all others are removed and, if
+     * still tagged, recreated.
+     */
+    synchronized void applyUpdates() {
+        boolean changed = false;
+        for (String name : pendingUpdates) {
+            Optional<HomekitTaggedItem> rootItem = getItemOptional(name)
+                    .map(i -> new HomekitTaggedItem(i, itemRegistry))
+                    .filter(i -> i.isAccessory() && !i.isMemberOfAccessoryGroup());
+            Set<Item> items = rootItem.map(this::getAccessoryItems).orElse(Collections.emptySet());
+            Set<Item> createdItems = accessoryItems.get(name);
+            if (createdItems == null ? items.isEmpty() : createdItems.equals(items)) {
+                continue; // Nothing changed for this accessory
+            }
+
+            if (createdItems != null) {
+                accessoryItems.remove(name);
+                accessoryRegistry.remove(name);
+                changed = true;
+            }
+            if (rootItem.isPresent() && createRootAccessory(rootItem.get())) {
+                changed = true;
+            }
+        }
+        pendingUpdates.clear();
+
+        if (changed) {
+            incrementConfigurationIndex();
+        }
+    }
 
-        while (iter.hasNext()) {
-            String name = iter.next();
-            accessoryRegistry.remove(name);
+    private Set<Item> getAccessoryItems(HomekitTaggedItem taggedItem) {
+        Set<Item> items = Collections.newSetFromMap(new IdentityHashMap<>());
+        items.add(taggedItem.getItem());
+        if (taggedItem.getItem() instanceof GroupItem) {
+            items.addAll(((GroupItem) taggedItem.getItem()).getMembers());
+        }
+        return items;
+    }
 
-            getItemOptional(name).map(i -> new HomekitTaggedItem(i, itemRegistry))
-                    .filter(i -> i.isAccessory() && !i.isMemberOfAccessoryGroup())
-                    .ifPresent(rootItem -> createRootAccessory(rootItem));
+    private int loadConfigurationIndex() {
+        String value = storage.get(CONFIGURATION_INDEX_KEY);
+        if (value != null) {
+            try {
+                return Math.max(1, Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                logger.debug("Invalid stored configuration index {}", value);
+            }
         }
+        return 1;
+    }
+
+    /**
+     * Tell HomeKit clients that the accessories of the bridge changed. The index is stored, because clients cache the
+     * accessories per configuration index.
+     */
+    private void incrementConfigurationIndex() {
+        configurationIndex++;
+        storage.put(CONFIGURATION_INDEX_KEY, Integer.toString(configurationIndex));
+        accessoryRegistry.setConfigurationIndex(configurationIndex);
     }
 
     @Override
@@ -137,6 +216,7 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
 
     public synchronized void clearAccessories() {
         accessoryRegistry.clear();
+        accessoryItems.clear();
     }
 
     public synchronized void setBridge(HomekitRoot bridge) {
@@ -159,19 +239,22 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         this.itemRegistry.removeRegistryChangeListener(this);
     }
 
-    private void createRootAccessory(HomekitTaggedItem taggedItem) {
+    private boolean createRootAccessory(HomekitTaggedItem taggedItem) {
         try {
             if (taggedItem.isMemberOfAccessoryGroup()) {
                 logger.warn("Bug! Cannot add {} as a root accessory if it is a member of a group! ",
                         taggedItem.getItem().getUID());
-                return;
+                return false;
             }
             logger.debug("Adding homekit device {}", taggedItem.getItem().getUID());
             accessoryRegistry.addRootAccessory(taggedItem.getName(),
                     HomekitAccessoryFactory.create(taggedItem, itemRegistry, updater, settings));
+            accessoryItems.put(taggedItem.getName(), getAccessoryItems(taggedItem));
             logger.debug("Added homekit device {}", taggedItem.getItem().getUID());
+            return true;
         } catch (HomekitException | IncompleteAccessoryException e) {
             logger.warn("Could not add device {}: {}", taggedItem.getItem().getUID(), e.getMessage());
+            return false;
         }
     }
 }
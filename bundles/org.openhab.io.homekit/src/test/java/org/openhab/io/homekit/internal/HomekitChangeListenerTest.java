@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.homekit.internal;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemNotFoundException;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.library.items.SwitchItem;
+import org.eclipse.smarthome.core.storage.Storage;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.beowulfe.hap.HomekitAccessory;
+import com.beowulfe.hap.HomekitRoot;
+
+/**
+ * Tests cases for {@link HomekitChangeListener}
+ *
+ * @author agent - Initial contribution
+ */
+public class HomekitChangeListenerTest {
+
+    private final ItemRegistry itemRegistry = mock(ItemRegistry.class);
+    @SuppressWarnings("unchecked")
+    private final Storage<String> storage = mock(Storage.class);
+    private final HomekitRoot bridge = mock(HomekitRoot.class);
+    private final Map<String, Item> items = new HashMap<>();
+
+    @Before
+    public void setUp() throws ItemNotFoundException {
+        doAnswer(invocation -> items.values()).when(itemRegistry).getAll();
+        doAnswer(invocation -> {
+            Item item = items.get(invocation.getArgument(0));
+            if (item == null) {
+                throw new ItemNotFoundException((String) invocation.getArgument(0));
+            }
+            return item;
+        }).when(itemRegistry).getItem(anyString());
+    }
+
+    private Item givenLight(String name) {
+        SwitchItem item = new SwitchItem(name);
+        item.addTag("Lighting");
+        items.put(name, item);
+        return item;
+    }
+
+    private HomekitChangeListener createListener() throws Exception {
+        // The debounced updates are never run, the tests apply them explicitly
+        HomekitChangeListener listener = new HomekitChangeListener(itemRegistry, new HomekitSettings(), storage,
+                mock(ScheduledExecutorService.class));
+        listener.setBridge(bridge);
+        verify(bridge, times(items.size())).addAccessory(any());
+        return listener;
+    }
+
+    @Test
+    public void unchangedItemKeepsAccessory() throws Exception {
+        Item light = givenLight("Light1");
+        HomekitChangeListener listener = createListener();
+        verify(bridge).setConfigurationIndex(1);
+
+        // The registry reports an update of the very same item instance
+        listener.updated(light, light);
+        listener.applyUpdates();
+
+        verify(bridge, times(1)).addAccessory(any());
+        verify(bridge, never()).removeAccessory(any());
+        verify(storage, never()).put(anyString(), anyString());
+    }
+
+    @Test
+    public void replacedItemRecreatesAccessory() throws Exception {
+        Item light = givenLight("Light1");
+        givenLight("Light2");
+        HomekitChangeListener listener = createListener();
+
+        // Equal, but a new instance
+        Item updatedLight = givenLight("Light1");
+        listener.updated(light, updatedLight);
+        listener.applyUpdates();
+
+        verify(bridge, times(1)).removeAccessory(any());
+        verify(bridge, times(3)).addAccessory(any());
+        verify(storage).put("configurationIndex", "2");
+        verify(bridge).setConfigurationIndex(2);
+    }
+
+    @Test
+    public void removedItemRemovesAccessory() throws Exception {
+        Item light = givenLight("Light1");
+        HomekitChangeListener listener = createListener();
+
+        items.remove("Light1");
+        listener.removed(light);
+        listener.applyUpdates();
+
+        verify(bridge).removeAccessory(any(HomekitAccessory.class));
+        verify(storage).put("configurationIndex", "2");
+
+        // Applying again does not change anything
+        listener.applyUpdates();
+        verify(bridge, times(1)).removeAccessory(any());
+        verify(storage, times(1)).put(anyString(), anyString());
+    }
+
+    @Test
+    public void untaggedItemIsIgnored() throws Exception {
+        HomekitChangeListener listener = createListener();
+
+        SwitchItem item = new SwitchItem("Switch1");
+        items.put(item.getName(), item);
+        listener.added(item);
+        listener.applyUpdates();
+
+        verify(bridge, never()).addAccessory(any());
+        verify(storage, never()).put(anyString(), anyString());
+    }
+
+    @Test
+    public void configurationIndexIsIncrementedOncePerBatch() throws Exception {
+        HomekitChangeListener listener = createListener();
+
+        listener.added(givenLight("Light1"));
+        listener.added(givenLight("Light2"));
+        listener.added(givenLight("Light3"));
+        listener.applyUpdates();
+
+        verify(bridge, times(3)).addAccessory(any());
+        verify(storage).put("configurationIndex", "2");
+        verify(storage, times(1)).put(anyString(), anyString());
+    }
+
+    @Test
+    public void storedConfigurationIndexIsRestored() throws Exception {
+        doReturn("5").when(storage).get("configurationIndex");
+        HomekitChangeListener listener = createListener();
+        verify(bridge).setConfigurationIndex(5);
+        verify(bridge, never()).setConfigurationIndex(1);
+
+        listener.added(givenLight("Light1"));
+        listener.applyUpdates();
+
+        verify(storage).put("configurationIndex", "6");
+        verify(bridge).setConfigurationIndex(6);
+    }
+
+    @Test
+    public void invalidStoredConfigurationIndexIsIgnored() throws Exception {
+        doReturn("invalid").when(storage).get("configurationIndex");
+        createListener();
+
+        verify(bridge).setConfigurationIndex(1);
+    }
+}
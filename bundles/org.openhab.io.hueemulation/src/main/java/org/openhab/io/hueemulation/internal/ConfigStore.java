@@ -12,13 +12,18 @@
  */
 package org.openhab.io.hueemulation.internal;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -30,6 +35,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.smarthome.config.core.ConfigurableService;
 import org.eclipse.smarthome.config.core.Configuration;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.Metadata;
 import org.eclipse.smarthome.core.items.MetadataKey;
@@ -37,6 +43,7 @@ import org.eclipse.smarthome.core.items.MetadataRegistry;
 import org.eclipse.smarthome.core.net.CidrAddress;
 import org.eclipse.smarthome.core.net.NetUtil;
 import org.eclipse.smarthome.core.net.NetworkAddressService;
+import org.eclipse.smarthome.core.types.State;
 import org.openhab.io.hueemulation.internal.dto.HueAuthorizedConfig;
 import org.openhab.io.hueemulation.internal.dto.HueDataStore;
 import org.openhab.io.hueemulation.internal.dto.HueGroupEntry;
@@ -58,6 +65,9 @@ import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * This component sets up the hue data store and gets the service configuration.
@@ -90,10 +100,20 @@ public class ConfigStore {
     private @Nullable ScheduledFuture<?> pairingOffFuture;
     private @Nullable ScheduledFuture<?> writeUUIDFuture;
 
+    /**
+     * Serializes lights for the {@link #serializedLights} cache
+     */
+    private final Gson lightGson = new GsonBuilder()
+            .registerTypeAdapter(HueLightEntry.class, new HueLightEntry.Serializer()).create();
+    private final Map<HueLightEntry, SerializedLight> serializedLights = new ConcurrentHashMap<>();
+    private List<String> lightsSnapshotIDs = Collections.emptyList();
+    private List<SerializedLight> lightsSnapshotEntries = Collections.emptyList();
+    private @Nullable SerializedJson lightsSnapshot;
+
     /**
      * This is the main gson instance, to be obtained by all components that operate on the dto data fields
      */
-    public final Gson gson = new GsonBuilder().registerTypeAdapter(HueLightEntry.class, new HueLightEntry.Serializer())
+    public final Gson gson = new GsonBuilder().registerTypeAdapter(HueLightEntry.class, new CachedLightAdapter())
             .registerTypeAdapter(HueSensorEntry.class, new HueSensorEntry.Serializer())
             .registerTypeAdapter(HueRuleEntry.Condition.class, new HueRuleEntry.SerializerCondition())
             .registerTypeAdapter(HueAuthorizedConfig.class, new HueAuthorizedConfig.Serializer())
@@ -355,4 +375,101 @@ public class ConfigStore {
     public Set<InetAddress> getDiscoveryIps() {
         return discoveryIps;
     }
+
+    /**
+     * A serialized light, valid as long as item, item state and label of the light did not change.
+     */
+    private static class SerializedLight {
+        final GenericItem item;
+        final State state;
+        final @Nullable String label;
+        final DeviceType deviceType;
+        final String json;
+
+        SerializedLight(HueLightEntry light, State state, @Nullable String label, String json) {
+            this.item = light.item;
+            this.state = state;
+            this.label = label;
+            this.deviceType = light.deviceType;
+            this.json = json;
+        }
+
+        boolean isValid(HueLightEntry light) {
+            return item == light.item && deviceType == light.deviceType
+                    && state.equals(light.item.getState()) && Objects.equals(label, light.item.getLabel());
+        }
+    }
+
+    private SerializedLight serializeLight(HueLightEntry light) {
+        @Nullable
+        SerializedLight serialized = serializedLights.get(light);
+        if (serialized == null || !serialized.isValid(light)) {
+            // Read state and label first: A change while serializing invalidates the result again
+            State state = light.item.getState();
+            @Nullable
+            String label = light.item.getLabel();
+            serialized = new SerializedLight(light, state, label, lightGson.toJson(light));
+            serializedLights.put(light, serialized);
+        }
+        return serialized;
+    }
+
+    /**
+     * Writes lights from the {@link #serializedLights} cache. A light is only serialized again, if the state or the
+     * label of its item changed.
+     */
+    private class CachedLightAdapter extends TypeAdapter<HueLightEntry> {
+        @Override
+        public void write(JsonWriter out, @Nullable HueLightEntry light) throws IOException {
+            if (light == null) {
+                out.nullValue();
+                return;
+            }
+            out.jsonValue(serializeLight(light).json);
+        }
+
+        @Override
+        public @Nullable HueLightEntry read(JsonReader in) throws IOException {
+            return lightGson.getAdapter(HueLightEntry.class).read(in);
+        }
+    }
+
+    /**
+     * Returns all lights as pre-encoded json. The document is only assembled again if lights got added or removed,
+     * or if the state or label of an item changed. Only the lights of the changed items are serialized again.
+     *
+     * @return All lights, mapped by their hue ID
+     */
+    public synchronized SerializedJson getLightsJson() {
+        List<String> hueIDs = new ArrayList<>(ds.lights.keySet());
+        List<SerializedLight> entries = new ArrayList<>(hueIDs.size());
+        for (HueLightEntry light : ds.lights.values()) {
+            entries.add(serializeLight(light));
+        }
+        @Nullable
+        SerializedJson snapshot = lightsSnapshot;
+        // SerializedLight does not override equals, so this compares the instances
+        if (snapshot != null && hueIDs.equals(lightsSnapshotIDs) && entries.equals(lightsSnapshotEntries)) {
+            return snapshot;
+        }
+
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < hueIDs.size(); ++i) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(gson.toJson(hueIDs.get(i))).append(':').append(entries.get(i).json);
+        }
+        json.append('}');
+        snapshot = new SerializedJson(json.toString());
+
+        // Forget removed lights
+        Set<HueLightEntry> lights = new HashSet<>(ds.lights.values());
+        serializedLights.keySet().retainAll(lights);
+
+        lightsSnapshot = snapshot;
+        lightsSnapshotIDs = hueIDs;
+        lightsSnapshotEntries = entries;
+        return snapshot;
+    }
 }
@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.UriInfo;
@@ -114,6 +116,23 @@ public class NetworkUtils {
         return Response.status(httpCode).entity(str).build();
     }
 
+    /**
+     * Creates a response for a pre-encoded json document. Answers with "304 Not Modified" instead, if the client
+     * already has the current document, as indicated by the "If-None-Match" header.
+     *
+     * @param request The request
+     * @param json The json document
+     * @return The response, containing the entity tag of the document
+     */
+    public static Response cachedResponse(Request request, SerializedJson json) {
+        EntityTag etag = new EntityTag(json.etag);
+        ResponseBuilder builder = request.evaluatePreconditions(etag);
+        if (builder == null) {
+            builder = Response.ok(json.bytes);
+        }
+        return builder.tag(etag).build();
+    }
+
     public static Response singleSuccess(Gson gson, String message, String uriPart) {
         List<HueResponse> responses = new ArrayList<>();
         responses.add(new HueResponse(new HueSuccessGeneric(message, uriPart)));
@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * A pre-encoded json document together with an entity tag, that changes whenever the document changes.
+ * Hue clients like the Amazon Echo or the Harmony Hub poll the REST API constantly, those can be answered
+ * with the same bytes or even a "304 Not Modified" as long as nothing changed.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SerializedJson {
+    public final byte[] bytes;
+    public final String etag;
+
+    public SerializedJson(String json) {
+        this.bytes = json.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        this.etag = Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(bytes.length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
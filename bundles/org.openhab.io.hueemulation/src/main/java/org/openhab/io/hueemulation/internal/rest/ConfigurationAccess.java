@@ -24,12 +24,14 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.io.hueemulation.internal.ConfigStore;
 import org.openhab.io.hueemulation.internal.NetworkUtils;
+import org.openhab.io.hueemulation.internal.SerializedJson;
 import org.openhab.io.hueemulation.internal.dto.HueUnauthorizedConfig;
 import org.openhab.io.hueemulation.internal.dto.changerequest.HueChangeRequest;
 import org.openhab.io.hueemulation.internal.dto.response.HueResponse;
@@ -77,12 +79,13 @@ public class ConfigurationAccess {
     @Produces(MediaType.APPLICATION_JSON)
     @ApiOperation(value = "Return the full data store")
     @ApiResponses(value = { @ApiResponse(code = 200, message = "OK") })
-    public Response getAllApi(@Context UriInfo uri,
+    public Response getAllApi(@Context UriInfo uri, @Context Request request,
             @PathParam("username") @ApiParam(value = "username") String username) throws IOException {
         if (!userManagement.authorizeUser(username)) {
             return NetworkUtils.singleError(cs.gson, uri, HueResponse.UNAUTHORIZED, "Not Authorized");
         }
-        return Response.ok(cs.gson.toJson(cs.ds)).build();
+        // The lights are written from the cache of serialized lights of the config store
+        return NetworkUtils.cachedResponse(request, new SerializedJson(cs.gson.toJson(cs.ds)));
     }
 
     @GET
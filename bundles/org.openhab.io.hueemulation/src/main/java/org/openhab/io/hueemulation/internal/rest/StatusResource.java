@@ -139,6 +139,7 @@ public class StatusResource implements RegistryListener {
                 "%d published sensors (see <a href='%s/api/testuser/sensors'>%s/api/testuser/sensors</a>)<br>" + //
                 "<h2>UPnP discovery test</h2>" + //
                 "<p>%s</p>" + //
+                "<p>%d M-SEARCH requests received, %d answered</p>" + //
                 "<table style='border:1px solid black'><tr><td>serial no</td><td>name</td></tr>%s</table>" + //
                 "<h2>Reachability test</h2>" + //
                 "<table style='border:1px solid black'><tr><td>URL</td><td>Responds?</td><td>Ours?</td></tr>%s</table>"
@@ -173,6 +174,7 @@ public class StatusResource implements RegistryListener {
                 cs.getConfig().temporarilyEmulateV1bridge ? "V1" : "V2", url, url, //
                 cs.ds.lights.size(), url, url, cs.ds.sensors.size(), url, url, //
                 selfTestUpnpFound.name().replace('_', ' '), //
+                discovery.getMSearchReceived(), discovery.getMSearchAnswered(), //
                 upnps, reachable, users);
     }
 
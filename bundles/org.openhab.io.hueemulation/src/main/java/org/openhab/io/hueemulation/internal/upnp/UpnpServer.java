@@ -17,8 +17,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.Inet4Address;
 import java.net.Inet6Address;
 import java.net.InetAddress;
@@ -34,13 +32,18 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -92,6 +95,20 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
     static class ClientRecord {
         public @Nullable SocketAddress clientAddress;
         public ByteBuffer buffer = ByteBuffer.allocate(1000);
+        /** Datagrams that could not be sent yet, because the send buffer of the socket was full */
+        public final Queue<PendingDatagram> pending = new ArrayDeque<>();
+        /** Time of the last response per client, for rate limiting */
+        public final Map<SocketAddress, Long> lastResponse = new HashMap<>();
+    }
+
+    static class PendingDatagram {
+        public final ByteBuffer data;
+        public final SocketAddress target;
+
+        PendingDatagram(ByteBuffer data, SocketAddress target) {
+            this.data = data;
+            this.target = target;
+        }
     }
 
     public static final String DISCOVERY_FILE = "/description.xml";
@@ -102,13 +119,31 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
      * Send a keep alive every 2 minutes
      */
     private static final int CACHE_MSECS = 120 * 1000;
+    /**
+     * Answer an M-SEARCH of the same client at most once per second. Clients usually send a few M-SEARCH
+     * messages in a row, to compensate for lost datagrams.
+     */
+    private static final int CLIENT_RESPONSE_INTERVAL_MSECS = 1000;
+    /**
+     * Drop responses if that many datagrams are waiting to be sent already
+     */
+    private static final int MAX_PENDING_DATAGRAMS = 100;
+    /**
+     * Remove expired rate limiting entries if that many clients are known
+     */
+    private static final int MAX_CLIENT_RECORDS = 1000;
+    private static final byte[] M_SEARCH = "M-SEARCH".getBytes(StandardCharsets.US_ASCII);
 
     private final Logger logger = LoggerFactory.getLogger(UpnpServer.class);
 
     public final InetAddress MULTI_ADDR_IPV4;
     public final InetAddress MULTI_ADDR_IPV6;
-    private String[] stVersions = { "", "", "" };
-    private String notifyMsg = "";
+    // Pre-rendered datagrams, created whenever the address or port changes
+    private volatile byte[][] stVersionDatagrams = {};
+    private volatile byte[] notifyDatagram = {};
+
+    private final AtomicLong mSearchReceived = new AtomicLong();
+    private final AtomicLong mSearchAnswered = new AtomicLong();
 
     //// objects, set within activate()
     protected @NonNullByDefault({}) String xmlDoc;
@@ -213,23 +248,26 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
 
         final String[] stVersions = { "upnp:rootdevice", "urn:schemas-upnp-org:device:basic:1",
                 "uuid:" + config.config.uuid };
+        final byte[][] stVersionDatagrams = new byte[stVersions.length][];
         for (int i = 0; i < stVersions.length; ++i) {
-            this.stVersions[i] = String.format(
+            stVersionDatagrams[i] = String.format(
                     "HTTP/1.1 200 OK\r\n" + "HOST: %s:%d\r\n" + "EXT:\r\n" + "CACHE-CONTROL: max-age=%d\r\n"
                             + "LOCATION: %s\r\n" + "SERVER: Linux/3.14.0 UPnP/1.0 IpBridge/%s\r\n"
                             + "hue-bridgeid: %s\r\n" + "ST: %s\r\n" + "USN: uuid:%s\r\n\r\n",
                     r.getMulticastAddress(), UPNP_PORT, CACHE_MSECS / 1000, baseurl, // host:port,
                                                                                      // cache,location
                     cs.ds.config.apiversion, cs.ds.config.bridgeid, // version, bridgeid
-                    stVersions[i], config.config.uuid);
+                    stVersions[i], config.config.uuid).getBytes(StandardCharsets.UTF_8);
         }
+        this.stVersionDatagrams = stVersionDatagrams;
 
-        this.notifyMsg = String.format(
+        this.notifyDatagram = String.format(
                 "NOTIFY * HTTP/1.1\r\n" + "HOST: %s:%d\r\n" + "CACHE-CONTROL: max-age=%d\r\n" + "LOCATION: %s\r\n"
                         + "SERVER: Linux/3.14.0 UPnP/1.0 IpBridge/%s\r\nNTS: ssdp:alive\r\nNT: upnp:rootdevice\r\n"
                         + "USN: uuid:%s::upnp:rootdevice\r\n" + "hue-bridgeid: %s\r\n\r\n",
                 r.getMulticastAddress(), UPNP_PORT, CACHE_MSECS / 1000, baseurl, // host:port, cache,location
-                cs.ds.config.apiversion, config.config.uuid, cs.ds.config.bridgeid);// version, uuid, bridgeid
+                cs.ds.config.apiversion, config.config.uuid, cs.ds.config.bridgeid)// version, uuid, bridgeid
+                .getBytes(StandardCharsets.UTF_8);
 
         xmlDocWithAddress = String.format(xmlDoc, urlBase, r.addressString, cs.ds.config.bridgeid, cs.ds.config.uuid,
                 cs.ds.config.devicename);
@@ -375,7 +413,7 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
         }
     }
 
-    private void handleRead(SelectionKey key, Set<InetAddress> addresses) throws IOException {
+    private void handleRead(SelectionKey key) throws IOException {
         logger.trace("upnp thread handle received message");
         DatagramChannel channel = (DatagramChannel) key.channel();
         ClientRecord clntRec = (ClientRecord) key.attachment();
@@ -385,37 +423,85 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
         if (recAddress == null) { // Did we receive something?
             return;
         }
-        String data = new String(clntRec.buffer.array(), StandardCharsets.UTF_8);
-        if (!data.startsWith("M-SEARCH")) {
+        if (!isMSearch(clntRec.buffer)) {
             return;
         }
+        mSearchReceived.incrementAndGet();
 
-        try (DatagramSocket sendSocket = new DatagramSocket()) {
-            sendUPNPDatagrams(sendSocket, recAddress.getAddress(), recAddress.getPort());
+        long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+        Long lastResponse = clntRec.lastResponse.get(recAddress);
+        if (lastResponse != null && now - lastResponse < CLIENT_RESPONSE_INTERVAL_MSECS) {
+            logger.trace("Ignore repeated M-SEARCH of {}", recAddress);
+            return;
         }
-    }
+        if (clntRec.lastResponse.size() >= MAX_CLIENT_RECORDS) {
+            removeExpiredClients(clntRec);
+        }
+        clntRec.lastResponse.put(recAddress, now);
+        mSearchAnswered.incrementAndGet();
 
-    private void sendUPNPDatagrams(DatagramSocket sendSocket, InetAddress address, int port) {
         logger.trace("upnp thread send announcement");
-        for (String msg : stVersions) {
-            DatagramPacket response = new DatagramPacket(msg.getBytes(), msg.length(), address, port);
-            try {
-                logger.trace("Sending to {}:{}", address.getHostAddress(), port);
-                sendSocket.send(response);
-            } catch (IOException e) {
-                logger.warn("Could not send UPNP response: {}", e.getMessage());
+        for (byte[] datagram : stVersionDatagrams) {
+            send(key, datagram, recAddress);
+        }
+    }
+
+    private static boolean isMSearch(ByteBuffer buffer) {
+        if (buffer.position() < M_SEARCH.length) {
+            return false;
+        }
+        for (int i = 0; i < M_SEARCH.length; ++i) {
+            if (buffer.get(i) != M_SEARCH[i]) {
+                return false;
             }
         }
+        return true;
     }
 
-    private void sendUPNPNotify(DatagramSocket sendSocket, InetAddress address, int port) {
-        DatagramPacket response = new DatagramPacket(notifyMsg.getBytes(), notifyMsg.length(), address, port);
+    /**
+     * Sends the datagram on the non-blocking channel. If the send buffer of the socket is full, the datagram is queued
+     * and sent as soon as the channel is writable again.
+     */
+    private void send(SelectionKey key, byte[] datagram, SocketAddress target) {
+        ClientRecord clntRec = (ClientRecord) key.attachment();
+        ByteBuffer data = ByteBuffer.wrap(datagram);
         try {
-            logger.trace("Sending to {}:{}", address.getHostAddress(), port);
-            sendSocket.send(response);
+            logger.trace("Sending to {}", target);
+            if (clntRec.pending.isEmpty() && ((DatagramChannel) key.channel()).send(data, target) > 0) {
+                return;
+            }
         } catch (IOException e) {
             logger.warn("Could not send UPNP response: {}", e.getMessage());
+            return;
+        }
+        if (clntRec.pending.size() >= MAX_PENDING_DATAGRAMS) {
+            logger.debug("Too many UPNP responses pending. Dropping response to {}", target);
+            return;
+        }
+        clntRec.pending.add(new PendingDatagram(data, target));
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private void handleWrite(SelectionKey key) {
+        DatagramChannel channel = (DatagramChannel) key.channel();
+        ClientRecord clntRec = (ClientRecord) key.attachment();
+        PendingDatagram datagram;
+        while ((datagram = clntRec.pending.peek()) != null) {
+            try {
+                if (channel.send(datagram.data, datagram.target) == 0) {
+                    return; // Still full, wait for the next write readiness
+                }
+            } catch (IOException e) {
+                logger.warn("Could not send UPNP response: {}", e.getMessage());
+            }
+            clntRec.pending.poll();
         }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void removeExpiredClients(ClientRecord clntRec) {
+        long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+        clntRec.lastResponse.values().removeIf(time -> now - time >= CLIENT_RESPONSE_INTERVAL_MSECS);
     }
 
     @Override
@@ -450,18 +536,29 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
                 return;
             }
 
+            // Send multicast datagrams on the interface of the advertised address
+            try {
+                NetworkInterface sendInterface = NetworkInterface.getByInetAddress(config.address);
+                if (sendInterface != null) {
+                    channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, sendInterface);
+                }
+            } catch (IOException e) {
+                logger.debug("Could not select the multicast interface of {}: {}", config.address, e.getMessage());
+            }
+
             channel.configureBlocking(false);
 
-            channel.register(selector, SelectionKey.OP_READ, new ClientRecord());
+            ClientRecord clntRec = new ClientRecord();
+            SelectionKey channelKey = channel.register(selector, SelectionKey.OP_READ, clntRec);
+            final InetSocketAddress multicastIPv4 = new InetSocketAddress(MULTI_ADDR_IPV4, UPNP_PORT);
+            final InetSocketAddress multicastIPv6 = new InetSocketAddress(MULTI_ADDR_IPV6, UPNP_PORT);
 
-            if (hasIPv4) {
-                try (DatagramSocket sendSocket = new DatagramSocket(new InetSocketAddress(config.address, 0))) {
-                    sendUPNPDatagrams(sendSocket, MULTI_ADDR_IPV4, UPNP_PORT);
+            for (byte[] datagram : stVersionDatagrams) {
+                if (hasIPv4) {
+                    send(channelKey, datagram, multicastIPv4);
                 }
-            }
-            if (hasIPv6) {
-                try (DatagramSocket sendSocket = new DatagramSocket()) {
-                    sendUPNPDatagrams(sendSocket, MULTI_ADDR_IPV6, UPNP_PORT);
+                if (hasIPv6) {
+                    send(channelKey, datagram, multicastIPv6);
                 }
             }
 
@@ -474,8 +571,11 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
                 Iterator<SelectionKey> keyIter = selector.selectedKeys().iterator();
                 while (keyIter.hasNext()) {
                     SelectionKey key = keyIter.next();
-                    if (key.isReadable()) {
-                        handleRead(key, cs.getDiscoveryIps());
+                    if (key.isValid() && key.isWritable()) {
+                        handleWrite(key);
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        handleRead(key);
                     }
                     keyIter.remove();
                 }
@@ -483,15 +583,12 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
                 if (time.plusMillis(CACHE_MSECS - 200).isBefore(Instant.now())) {
                     logger.trace("upnp thread send periodic announcement");
                     time = Instant.now();
+                    removeExpiredClients(clntRec);
                     if (hasIPv4) {
-                        try (DatagramSocket sendSocket = new DatagramSocket(new InetSocketAddress(config.address, 0))) {
-                            sendUPNPNotify(sendSocket, MULTI_ADDR_IPV4, UPNP_PORT);
-                        }
+                        send(channelKey, notifyDatagram, multicastIPv4);
                     }
                     if (hasIPv6) {
-                        try (DatagramSocket sendSocket = new DatagramSocket()) {
-                            sendUPNPNotify(sendSocket, MULTI_ADDR_IPV6, UPNP_PORT);
-                        }
+                        send(channelKey, notifyDatagram, multicastIPv6);
                     }
                 }
             }
@@ -524,4 +621,19 @@ public class UpnpServer extends HttpServlet implements Consumer<HueEmulationConf
     public boolean upnpAnnouncementThreadRunning() {
         return config.asyncIOselector != null;
     }
+
+    /**
+     * Returns the number of received M-SEARCH requests
+     */
+    public long getMSearchReceived() {
+        return mSearchReceived.get();
+    }
+
+    /**
+     * Returns the number of answered M-SEARCH requests. Repeated requests of the same client within a second are
+     * not answered.
+     */
+    public long getMSearchAnswered() {
+        return mSearchAnswered.get();
+    }
 }
@@ -131,6 +131,15 @@ public class UpnpTests {
             String received = new String(buffer);
             assertThat(received, CoreMatchers.startsWith("HTTP/1.1 200 OK"));
             assertThat(received, CoreMatchers.containsString("hue-bridgeid: DEMOUUID"));
+            assertThat(subject.getMSearchAnswered(), is(1L));
+
+            // A repeated M-SEARCH of the same client is not answered again
+            sendSocket.send(new DatagramPacket(bytes, bytes.length, subject.MULTI_ADDR_IPV4, UpnpServer.UPNP_PORT));
+            for (int i = 0; i < 50 && subject.getMSearchReceived() < 2; ++i) {
+                Thread.sleep(10);
+            }
+            assertThat(subject.getMSearchReceived(), is(2L));
+            assertThat(subject.getMSearchAnswered(), is(1L));
         }
 
         r.dispose();
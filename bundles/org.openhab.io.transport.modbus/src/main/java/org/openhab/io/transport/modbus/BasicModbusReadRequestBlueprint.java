@@ -19,12 +19,14 @@ import org.apache.commons.lang.builder.ToStringBuilder;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 
+import net.wimpi.modbus.Modbus;
+
 /**
  * Immutable implementation of {@link ModbusReadRequestBlueprint}
  *
  * Equals and hashCode implemented keeping {@link PollTask} in mind: two instances of this class are considered the same
  * if they have
- * the equal parameters (same slave id, start, length, function code and maxTries).
+ * the equal parameters (same slave id, protocol id, start, length, function code and maxTries).
  *
  * @author Sami Salonen - Initial contribution
  *
@@ -41,15 +43,27 @@ public class BasicModbusReadRequestBlueprint implements ModbusReadRequestBluepri
     private int start;
     private int length;
     private int maxTries;
+    private int protocolID;
 
     public BasicModbusReadRequestBlueprint(int slaveId, ModbusReadFunctionCode functionCode, int start, int length,
             int maxTries) {
+        this(slaveId, functionCode, start, length, maxTries, Modbus.DEFAULT_PROTOCOL_ID);
+    }
+
+    public BasicModbusReadRequestBlueprint(int slaveId, ModbusReadFunctionCode functionCode, int start, int length,
+            int maxTries, int protocolID) {
         super();
         this.slaveId = slaveId;
         this.functionCode = functionCode;
         this.start = start;
         this.length = length;
         this.maxTries = maxTries;
+        this.protocolID = protocolID;
+    }
+
+    @Override
+    public int getProtocolID() {
+        return protocolID;
     }
 
     @Override
@@ -80,7 +94,7 @@ public class BasicModbusReadRequestBlueprint implements ModbusReadRequestBluepri
     @Override
     public int hashCode() {
         return new HashCodeBuilder(81, 3).append(slaveId).append(functionCode).append(start).append(length)
-                .append(maxTries).toHashCode();
+                .append(maxTries).append(protocolID).toHashCode();
     }
 
     @Override
@@ -102,7 +116,7 @@ public class BasicModbusReadRequestBlueprint implements ModbusReadRequestBluepri
         }
         BasicModbusReadRequestBlueprint rhs = (BasicModbusReadRequestBlueprint) obj;
         return new EqualsBuilder().append(slaveId, rhs.slaveId).append(functionCode, rhs.functionCode)
-                .append(start, rhs.start).append(length, rhs.length).isEquals();
+                .append(start, rhs.start).append(length, rhs.length).append(protocolID, rhs.protocolID).isEquals();
     }
 
 }
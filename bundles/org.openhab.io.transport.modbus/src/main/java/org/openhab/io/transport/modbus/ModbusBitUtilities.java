@@ -112,36 +112,37 @@ public class ModbusBitUtilities {
         switch (type) {
             case BIT:
                 return Optional
-                        .of(new DecimalType((registers.getRegister(index / 16).toUnsignedShort() >> (index % 16)) & 1));
+                        .of(new DecimalType((registers.getUnsignedShort(index / 16) >> (index % 16)) & 1));
             case INT8:
-                return Optional.of(new DecimalType(registers.getRegister(index / 2).getBytes()[1 - (index % 2)]));
+                return Optional
+                        .of(new DecimalType((byte) (registers.getUnsignedShort(index / 2) >> (8 * (index % 2)))));
             case UINT8:
                 return Optional.of(new DecimalType(
-                        (registers.getRegister(index / 2).toUnsignedShort() >> (8 * (index % 2))) & 0xff));
+                        (registers.getUnsignedShort(index / 2) >> (8 * (index % 2))) & 0xff));
             case INT16: {
                 ByteBuffer buff = ByteBuffer.allocate(2);
-                buff.put(registers.getRegister(index).getBytes());
+                buff.putShort((short) registers.getUnsignedShort(index));
                 return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getShort(0)));
             }
             case UINT16:
-                return Optional.of(new DecimalType(registers.getRegister(index).toUnsignedShort()));
+                return Optional.of(new DecimalType(registers.getUnsignedShort(index)));
             case INT32: {
                 ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
+                buff.putShort((short) registers.getUnsignedShort(index));
+                buff.putShort((short) registers.getUnsignedShort(index + 1));
                 return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getInt(0)));
             }
             case UINT32: {
                 ByteBuffer buff = ByteBuffer.allocate(8);
                 buff.position(4);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
+                buff.putShort((short) registers.getUnsignedShort(index));
+                buff.putShort((short) registers.getUnsignedShort(index + 1));
                 return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getLong(0)));
             }
             case FLOAT32: {
                 ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
+                buff.putShort((short) registers.getUnsignedShort(index));
+                buff.putShort((short) registers.getUnsignedShort(index + 1));
                 try {
                     return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getFloat(0)));
                 } catch (NumberFormatException e) {
@@ -151,38 +152,38 @@ public class ModbusBitUtilities {
             }
             case INT64: {
                 ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index + 2).getBytes());
-                buff.put(registers.getRegister(index + 3).getBytes());
+                buff.putShort((short) registers.getUnsignedShort(index));
+                buff.putShort((short) registers.getUnsignedShort(index + 1));
+                buff.putShort((short) registers.getUnsignedShort(index + 2));
+                buff.putShort((short) registers.getUnsignedShort(index + 3));
                 return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getLong(0)));
             }
             case UINT64: {
                 ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.put(registers.getRegister(index).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index + 2).getBytes());
-                buff.put(registers.getRegister(index + 3).getBytes());
+                buff.putShort((short) registers.getUnsignedShort(index));
+                buff.putShort((short) registers.getUnsignedShort(index + 1));
+                buff.putShort((short) registers.getUnsignedShort(index + 2));
+                buff.putShort((short) registers.getUnsignedShort(index + 3));
                 return Optional.of(
                         new DecimalType(new BigDecimal(new BigInteger(1, buff.order(ByteOrder.BIG_ENDIAN).array()))));
             }
             case INT32_SWAP: {
                 ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
+                buff.putShort((short) registers.getUnsignedShort(index + 1));
+                buff.putShort((short) registers.getUnsignedShort(index));
                 return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getInt(0)));
             }
             case UINT32_SWAP: {
                 ByteBuffer buff = ByteBuffer.allocate(8);
                 buff.position(4);
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
+                buff.putShort((short) registers.getUnsignedShort(index + 1));
+                buff.putShort((short) registers.getUnsignedShort(index));
                 return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getLong(0)));
             }
             case FLOAT32_SWAP: {
                 ByteBuffer buff = ByteBuffer.allocate(4);
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
+                buff.putShort((short) registers.getUnsignedShort(index + 1));
+                buff.putShort((short) registers.getUnsignedShort(index));
                 try {
                     return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getFloat(0)));
                 } catch (NumberFormatException e) {
@@ -192,18 +193,18 @@ public class ModbusBitUtilities {
             }
             case INT64_SWAP: {
                 ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.put(registers.getRegister(index + 3).getBytes());
-                buff.put(registers.getRegister(index + 2).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
+                buff.putShort((short) registers.getUnsignedShort(index + 3));
+                buff.putShort((short) registers.getUnsignedShort(index + 2));
+                buff.putShort((short) registers.getUnsignedShort(index + 1));
+                buff.putShort((short) registers.getUnsignedShort(index));
                 return Optional.of(new DecimalType(buff.order(ByteOrder.BIG_ENDIAN).getLong(0)));
             }
             case UINT64_SWAP: {
                 ByteBuffer buff = ByteBuffer.allocate(8);
-                buff.put(registers.getRegister(index + 3).getBytes());
-                buff.put(registers.getRegister(index + 2).getBytes());
-                buff.put(registers.getRegister(index + 1).getBytes());
-                buff.put(registers.getRegister(index).getBytes());
+                buff.putShort((short) registers.getUnsignedShort(index + 3));
+                buff.putShort((short) registers.getUnsignedShort(index + 2));
+                buff.putShort((short) registers.getUnsignedShort(index + 1));
+                buff.putShort((short) registers.getUnsignedShort(index));
                 return Optional.of(
                         new DecimalType(new BigDecimal(new BigInteger(1, buff.order(ByteOrder.BIG_ENDIAN).array()))));
             }
@@ -249,9 +250,9 @@ public class ModbusBitUtilities {
 
             byte chr;
             if (dest % 2 == 0) {
-                chr = (byte) ((registers.getRegister(src).getValue() >> 8));
+                chr = (byte) ((registers.getUnsignedShort(src) >> 8));
             } else {
-                chr = (byte) (registers.getRegister(src).getValue() & 0xff);
+                chr = (byte) (registers.getUnsignedShort(src) & 0xff);
                 src++;
             }
             if (chr == 0) {
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Snapshot of performance metrics of a single endpoint
+ *
+ * Latencies and error rate are calculated over the most recent operations with the endpoint, while the counters are
+ * cumulative since the activation of the {@link ModbusManager}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public interface ModbusEndpointMetrics {
+
+    /**
+     * Phase of a Modbus operation
+     */
+    public static enum Phase {
+        /**
+         * Borrowing, establishing and returning the connection. Includes time waiting for other operations to release
+         * the connection.
+         */
+        CONNECTION,
+        /**
+         * The actual transaction, i.e. writing the request and reading the response
+         */
+        TRANSACTION,
+        /**
+         * Calling the callback of the task
+         */
+        CALLBACK
+    }
+
+    /**
+     * Get number of recent operations the latencies and error rate are calculated from
+     *
+     * @return number of samples
+     */
+    public int getSampleCount();
+
+    /**
+     * Get latency of the given phase
+     *
+     * @param phase phase of the operation
+     * @param quantile quantile between 0 and 1, e.g. 0.99 for 99th percentile
+     * @return latency in milliseconds. Zero is returned when there are no samples.
+     * @throws IllegalArgumentException when quantile is not between 0 and 1
+     */
+    public long getLatencyMillis(Phase phase, double quantile);
+
+    /**
+     * Get share of recent operations that failed, after all retries
+     *
+     * @return error rate between 0 and 1
+     */
+    public double getErrorRate();
+
+    /**
+     * Get total number of operations
+     *
+     * @return number of operations
+     */
+    public long getOperationCount();
+
+    /**
+     * Get total number of operations that failed, after all retries
+     *
+     * @return number of failed operations
+     */
+    public long getErrorCount();
+
+    /**
+     * Get total number of regular polls executed after their deadline, i.e. after the next poll of the same task was
+     * due
+     *
+     * @return number of polls missing their deadline
+     */
+    public long getMissedDeadlineCount();
+
+    /**
+     * Get total number of regular polls skipped since the previous poll of the same task was still waiting for
+     * execution
+     *
+     * @return number of skipped polls
+     */
+    public long getSkippedPollCount();
+
+    /**
+     * Get total number of transactions written while other transactions over the same connection were still waiting
+     * for response. Only transactions of regular polls with pipelining enabled are pipelined.
+     *
+     * @return number of pipelined transactions
+     */
+    public long getPipelinedTransactionCount();
+
+    /**
+     * Get number of idle connections in the connection pool
+     *
+     * @return number of idle connections
+     */
+    public int getIdleConnections();
+
+    /**
+     * Get number of connections borrowed from the connection pool
+     *
+     * @return number of active connections
+     */
+    public int getActiveConnections();
+
+    /**
+     * Get number of operations queued, or started but not yet finished, with the endpoint. Includes operations waiting
+     * for the connection.
+     *
+     * @return number of pending operations
+     */
+    public int getPendingOperations();
+
+    /**
+     * Get number of tasks queued in the thread pool executing the operations. Note that the thread pool is shared by
+     * all endpoints.
+     *
+     * @return queue size of the thread pool
+     */
+    public int getSchedulerQueueSize();
+}
@@ -41,6 +41,10 @@ public interface ModbusManager {
      * Register regularly polled task. The method returns immediately, and the execution of the poll task will happen in
      * the background.
      *
+     * Poll is queued for execution every <tt>pollPeriodMillis</tt>, and should be executed before next poll of the
+     * same task is due. In case the previous poll is still waiting for execution (e.g. with slow slaves), the poll is
+     * skipped.
+     *
      * @param task
      * @return
      */
@@ -59,6 +63,8 @@ public interface ModbusManager {
      * Submit one-time write task. The method returns immediately, and the execution of the task will happen in
      * background.
      *
+     * Writes are executed before any polls waiting for execution with the same endpoint.
+     *
      * @param task
      * @return future representing the task
      */
@@ -83,6 +89,14 @@ public interface ModbusManager {
      */
     public @Nullable EndpointPoolConfiguration getEndpointPoolConfiguration(ModbusSlaveEndpoint endpoint);
 
+    /**
+     * Get performance metrics of a given endpoint
+     *
+     * @param endpoint endpoint to query
+     * @return snapshot of the current metrics, or null if the manager is not active
+     */
+    public @Nullable ModbusEndpointMetrics getEndpointMetrics(ModbusSlaveEndpoint endpoint);
+
     /**
      * Register listener for changes
      *
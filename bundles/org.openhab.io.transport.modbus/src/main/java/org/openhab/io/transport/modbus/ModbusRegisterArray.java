@@ -42,6 +42,20 @@ public interface ModbusRegisterArray extends Iterable<ModbusRegister> {
      */
     int size();
 
+    /**
+     * Return the register at the given index as unsigned 16 bit integer
+     *
+     * Equivalent to <code>getRegister(index).toUnsignedShort()</code>. Implementations are encouraged to override this
+     * so that no intermediate {@link ModbusRegister} is created.
+     *
+     * @param index the index of the register
+     * @return register content as unsigned integer
+     * @throws IndexOutOfBoundsException if the index is out of bounds.
+     */
+    default int getUnsignedShort(int index) {
+        return getRegister(index).toUnsignedShort();
+    }
+
     /**
      * Iterator over all the registers
      */
@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+
+/**
+ * Pre-compiled decoder extracting a single value from registers.
+ *
+ * The decoder is constructed once for a value type and index, and can then be applied repeatedly to register arrays
+ * (e.g. on every poll). Interpretation of value type and index is identical to
+ * {@link ModbusBitUtilities#extractStateFromRegisters(ModbusRegisterArray, int, ModbusConstants.ValueType)}, but the
+ * values are composed from the unsigned 16 bit register values using shifts only. No intermediate byte arrays,
+ * buffers or {@link java.util.Optional} wrappers are allocated.
+ *
+ * Instances are immutable and thread-safe.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public final class ModbusRegisterDecoder {
+
+    private static final DecimalType ONE = new DecimalType(1);
+
+    private final ModbusConstants.ValueType type;
+    private final int index;
+    /**
+     * Index of the first register containing the value
+     */
+    private final int register;
+    /**
+     * Number of registers needed to decode the value
+     */
+    private final int requiredSize;
+    /**
+     * Right shift applied to the register value, used with types less than 16 bits
+     */
+    private final int shift;
+
+    private ModbusRegisterDecoder(ModbusConstants.ValueType type, int index) {
+        this.type = type;
+        this.index = index;
+        int bits = type.getBits();
+        if (bits >= 16) {
+            register = index;
+            shift = 0;
+            requiredSize = index + bits / 16;
+        } else {
+            int itemsPerRegister = 16 / bits;
+            register = index / itemsPerRegister;
+            shift = bits * (index % itemsPerRegister);
+            requiredSize = register + 1;
+        }
+    }
+
+    /**
+     * Compile decoder for the given index and value type
+     *
+     * @param index zero based item index, see
+     *            {@link ModbusBitUtilities#extractStateFromRegisters(ModbusRegisterArray, int, ModbusConstants.ValueType)}
+     * @param type item type
+     * @return decoder
+     * @throws IllegalArgumentException when <tt>index</tt> is negative
+     */
+    public static ModbusRegisterDecoder compile(int index, ModbusConstants.ValueType type) {
+        if (index < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Index=%d with type=%s is out-of-bounds: negative index", index, type));
+        }
+        return new ModbusRegisterDecoder(type, index);
+    }
+
+    /**
+     * Decode value from registers
+     *
+     * @param registers registers to read from, each register represent 16bit of data
+     * @return decoded value. Null is returned with NaN and infinity floating point values
+     * @throws IllegalArgumentException when the value is out of bounds of the registers
+     */
+    public @Nullable DecimalType decode(ModbusRegisterArray registers) {
+        if (requiredSize > registers.size()) {
+            throw new IllegalArgumentException(
+                    String.format("Index=%d with type=%s is out-of-bounds given registers of size %d", index, type,
+                            registers.size()));
+        }
+        switch (type) {
+            case BIT:
+                return ((registers.getUnsignedShort(register) >> shift) & 1) == 0 ? DecimalType.ZERO : ONE;
+            case INT8:
+                return new DecimalType((byte) (registers.getUnsignedShort(register) >> shift));
+            case UINT8:
+                return new DecimalType((registers.getUnsignedShort(register) >> shift) & 0xff);
+            case INT16:
+                return new DecimalType((short) registers.getUnsignedShort(register));
+            case UINT16:
+                return new DecimalType(registers.getUnsignedShort(register));
+            case INT32:
+                return new DecimalType(int32(registers, register, register + 1));
+            case INT32_SWAP:
+                return new DecimalType(int32(registers, register + 1, register));
+            case UINT32:
+                return new DecimalType(int32(registers, register, register + 1) & 0xffffffffL);
+            case UINT32_SWAP:
+                return new DecimalType(int32(registers, register + 1, register) & 0xffffffffL);
+            case FLOAT32:
+                return fromFloat(Float.intBitsToFloat(int32(registers, register, register + 1)));
+            case FLOAT32_SWAP:
+                return fromFloat(Float.intBitsToFloat(int32(registers, register + 1, register)));
+            case INT64:
+                return new DecimalType(int64(registers, register, register + 1, register + 2, register + 3));
+            case INT64_SWAP:
+                return new DecimalType(int64(registers, register + 3, register + 2, register + 1, register));
+            case UINT64:
+                return fromUnsignedLong(int64(registers, register, register + 1, register + 2, register + 3));
+            case UINT64_SWAP:
+                return fromUnsignedLong(int64(registers, register + 3, register + 2, register + 1, register));
+            default:
+                throw new IllegalArgumentException(type.getConfigValue());
+        }
+    }
+
+    /**
+     * Returns value type this decoder was compiled for
+     *
+     * @return value type
+     */
+    public ModbusConstants.ValueType getValueType() {
+        return type;
+    }
+
+    /**
+     * Returns the item index this decoder was compiled for
+     *
+     * @return item index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    private static int int32(ModbusRegisterArray registers, int hi, int lo) {
+        return (registers.getUnsignedShort(hi) << 16) | registers.getUnsignedShort(lo);
+    }
+
+    private static long int64(ModbusRegisterArray registers, int r1, int r2, int r3, int r4) {
+        return ((long) int32(registers, r1, r2) << 32) | (int32(registers, r3, r4) & 0xffffffffL);
+    }
+
+    private static @Nullable DecimalType fromFloat(float value) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            return null;
+        }
+        return new DecimalType(value);
+    }
+
+    private static DecimalType fromUnsignedLong(long value) {
+        if (value >= 0) {
+            return new DecimalType(value);
+        }
+        // Most significant bit set, value does not fit signed long
+        return new DecimalType(new BigDecimal(BigInteger.valueOf(value & Long.MAX_VALUE).setBit(63)));
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("ModbusRegisterDecoder(type=").append(type).append(", index=").append(index)
+                .append(')').toString();
+    }
+}
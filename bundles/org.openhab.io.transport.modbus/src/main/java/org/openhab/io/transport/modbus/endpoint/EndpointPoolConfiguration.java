@@ -61,6 +61,19 @@ public class EndpointPoolConfiguration {
      */
     private int connectTimeoutMillis;
 
+    /**
+     * Merge regular polls with overlapping or nearby data ranges into single transactions. Value tells the maximum
+     * number of unrequested registers (or bits) between two merged requests. Negative means that polls are never
+     * merged (default).
+     */
+    private int readCoalescingMaxGap = -1;
+
+    /**
+     * Maximum number of regular poll transactions in flight at the same time over single connection. Applies only to
+     * Modbus/TCP endpoints. Value of 1 means that each request waits for the previous response (default).
+     */
+    private int pipelineWindow = 1;
+
     private static StandardToStringStyle toStringStyle = new StandardToStringStyle();
 
     static {
@@ -107,10 +120,27 @@ public class EndpointPoolConfiguration {
         this.connectTimeoutMillis = connectTimeoutMillis;
     }
 
+    public int getReadCoalescingMaxGap() {
+        return readCoalescingMaxGap;
+    }
+
+    public void setReadCoalescingMaxGap(int readCoalescingMaxGap) {
+        this.readCoalescingMaxGap = readCoalescingMaxGap;
+    }
+
+    public int getPipelineWindow() {
+        return pipelineWindow;
+    }
+
+    public void setPipelineWindow(int pipelineWindow) {
+        this.pipelineWindow = pipelineWindow;
+    }
+
     @Override
     public int hashCode() {
         return new HashCodeBuilder(2149, 3117).append(interTransactionDelayMillis).append(interConnectDelayMillis)
-                .append(connectMaxTries).append(reconnectAfterMillis).append(connectTimeoutMillis).toHashCode();
+                .append(connectMaxTries).append(reconnectAfterMillis).append(connectTimeoutMillis)
+                .append(readCoalescingMaxGap).append(pipelineWindow).toHashCode();
     }
 
     @Override
@@ -119,7 +149,9 @@ public class EndpointPoolConfiguration {
                 .append("interTransactionDelayMillis", interTransactionDelayMillis)
                 .append("interConnectDelayMillis", interConnectDelayMillis).append("connectMaxTries", connectMaxTries)
                 .append("reconnectAfterMillis", reconnectAfterMillis)
-                .append("connectTimeoutMillis", connectTimeoutMillis).toString();
+                .append("connectTimeoutMillis", connectTimeoutMillis)
+                .append("readCoalescingMaxGap", readCoalescingMaxGap).append("pipelineWindow", pipelineWindow)
+                .toString();
     }
 
     @Override
@@ -137,7 +169,9 @@ public class EndpointPoolConfiguration {
         return new EqualsBuilder().append(interTransactionDelayMillis, rhs.interTransactionDelayMillis)
                 .append(interConnectDelayMillis, rhs.interConnectDelayMillis)
                 .append(connectMaxTries, rhs.connectMaxTries).append(reconnectAfterMillis, rhs.reconnectAfterMillis)
-                .append(connectTimeoutMillis, rhs.connectTimeoutMillis).isEquals();
+                .append(connectTimeoutMillis, rhs.connectTimeoutMillis)
+                .append(readCoalescingMaxGap, rhs.readCoalescingMaxGap).append(pipelineWindow, rhs.pipelineWindow)
+                .isEquals();
     }
 
 }
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.transport.modbus.BitArray;
+
+/**
+ * Read-only view to a contiguous range of another {@link BitArray}
+ *
+ * No data is copied, bits are read from the wrapped array.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class BitArraySlice implements BitArray {
+
+    private final BitArray wrapped;
+    private final int offset;
+    private final int length;
+
+    /**
+     * Construct view to the wrapped array
+     *
+     * @param wrapped array to wrap
+     * @param offset index of the first bit in the wrapped array
+     * @param length number of bits in the view
+     * @throws IndexOutOfBoundsException when the view would not fit the wrapped array
+     */
+    public BitArraySlice(BitArray wrapped, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > wrapped.size()) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Slice with offset=%d and length=%d does not fit bits of size %d", offset, length, wrapped.size()));
+        }
+        this.wrapped = wrapped;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public boolean getBit(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException();
+        }
+        return wrapped.getBit(offset + index);
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("BitArraySlice(bits=").append(length == 0 ? "<empty>" : toBinaryString()).append(")")
+                .toString();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        return sizeAndValuesEquals(obj);
+    }
+}
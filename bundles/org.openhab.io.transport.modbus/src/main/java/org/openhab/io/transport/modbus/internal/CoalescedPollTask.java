@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang.builder.StandardToStringStyle;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.transport.modbus.BitArray;
+import org.openhab.io.transport.modbus.ModbusReadCallback;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.ModbusSlaveErrorResponseException;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link PollTask} reading the combined data range of several poll tasks in one transaction
+ *
+ * The response is fanned out to the callbacks of the original tasks, each receiving a view to its own data range
+ * together with its original request.
+ *
+ * Exception responses from the slave are not fanned out, since the merged request might cover registers the slave
+ * does not have. The original tasks should then be executed one by one instead, see {@link #isSplitRequired()}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class CoalescedPollTask implements PollTask {
+
+    private static StandardToStringStyle toStringStyle = new StandardToStringStyle();
+    static {
+        toStringStyle.setUseShortClassName(true);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(CoalescedPollTask.class);
+
+    private final ModbusSlaveEndpoint endpoint;
+    private final ModbusReadRequestBlueprint request;
+    private final List<PollTask> tasks;
+    private final ModbusReadCallback callback = new FanOutCallback();
+    private volatile boolean splitRequired;
+
+    /**
+     * Construct coalesced task
+     *
+     * @param endpoint endpoint of the tasks
+     * @param request request covering the data range of all the tasks
+     * @param tasks original tasks
+     */
+    public CoalescedPollTask(ModbusSlaveEndpoint endpoint, ModbusReadRequestBlueprint request, List<PollTask> tasks) {
+        this.endpoint = endpoint;
+        this.request = request;
+        this.tasks = Collections.unmodifiableList(tasks);
+    }
+
+    @Override
+    public ModbusSlaveEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public ModbusReadRequestBlueprint getRequest() {
+        return request;
+    }
+
+    @Override
+    public @Nullable ModbusReadCallback getCallback() {
+        return callback;
+    }
+
+    /**
+     * Get the original tasks coalesced to this task
+     *
+     * @return unmodifiable list of tasks
+     */
+    public List<PollTask> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Whether the slave responded to the merged request with an exception response
+     *
+     * The callbacks of the original tasks have not been called in this case. The original tasks should be executed
+     * individually, so that only the tasks actually reading invalid data ranges fail.
+     *
+     * @return true if the original tasks should be executed one by one
+     */
+    public boolean isSplitRequired() {
+        return splitRequired;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, toStringStyle).append("request", request).append("endpoint", endpoint)
+                .append("tasks", tasks.size()).toString();
+    }
+
+    private class FanOutCallback implements ModbusReadCallback {
+
+        @Override
+        public void onRegisters(ModbusReadRequestBlueprint coalescedRequest, ModbusRegisterArray registers) {
+            for (PollTask task : tasks) {
+                ModbusReadCallback taskCallback = task.getCallback();
+                if (taskCallback == null) {
+                    continue;
+                }
+                ModbusReadRequestBlueprint taskRequest = task.getRequest();
+                int offset = taskRequest.getReference() - coalescedRequest.getReference();
+                int length = Math.min(taskRequest.getDataLength(), registers.size() - offset);
+                try {
+                    if (length < taskRequest.getDataLength()) {
+                        taskCallback.onError(taskRequest, new ModbusSlaveIOExceptionImpl(new IOException(
+                                String.format("Response has %d registers but %d expected by request %s",
+                                        registers.size(), offset + taskRequest.getDataLength(), taskRequest))));
+                    } else {
+                        taskCallback.onRegisters(taskRequest, new RegisterArraySlice(registers, offset, length));
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Unhandled exception in callback {} for request {}", taskCallback, taskRequest, e);
+                }
+            }
+        }
+
+        @Override
+        public void onBits(ModbusReadRequestBlueprint coalescedRequest, BitArray bits) {
+            for (PollTask task : tasks) {
+                ModbusReadCallback taskCallback = task.getCallback();
+                if (taskCallback == null) {
+                    continue;
+                }
+                ModbusReadRequestBlueprint taskRequest = task.getRequest();
+                int offset = taskRequest.getReference() - coalescedRequest.getReference();
+                // jamod might return fewer bits than requested, see ModbusLibraryWrapper
+                int length = Math.max(0, Math.min(taskRequest.getDataLength(), bits.size() - offset));
+                try {
+                    taskCallback.onBits(taskRequest, new BitArraySlice(bits, offset, length));
+                } catch (RuntimeException e) {
+                    logger.error("Unhandled exception in callback {} for request {}", taskCallback, taskRequest, e);
+                }
+            }
+        }
+
+        @Override
+        public void onError(ModbusReadRequestBlueprint coalescedRequest, Exception error) {
+            if (error instanceof ModbusSlaveErrorResponseException) {
+                logger.debug("Coalesced request {} failed with exception response {}, original requests to be split",
+                        coalescedRequest, error.getMessage());
+                splitRequired = true;
+                return;
+            }
+            splitRequired = false;
+            for (PollTask task : tasks) {
+                ModbusReadCallback taskCallback = task.getCallback();
+                if (taskCallback == null) {
+                    continue;
+                }
+                try {
+                    taskCallback.onError(task.getRequest(), error);
+                } catch (RuntimeException e) {
+                    logger.error("Unhandled exception in callback {} for request {}", taskCallback, task.getRequest(),
+                            e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.io.transport.modbus.ModbusEndpointMetrics;
+
+/**
+ * Records timing and outcome of the operations with single endpoint
+ *
+ * Timings of the most recent operations are kept in fixed size ring buffer, from which the percentiles are calculated
+ * on demand. Recording an operation does not allocate memory.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class EndpointMetricsRecorder {
+
+    /**
+     * Number of most recent operations used for latencies and error rate
+     */
+    public static final int WINDOW_SIZE = 256;
+
+    private final long[][] latencies = new long[ModbusEndpointMetrics.Phase.values().length][WINDOW_SIZE];
+    private final boolean[] errors = new boolean[WINDOW_SIZE];
+    private int next;
+    private int samples;
+    private long operationCount;
+    private long errorCount;
+    private long missedDeadlineCount;
+    private long skippedPollCount;
+    private long pipelinedTransactionCount;
+    private final AtomicInteger pendingOperations = new AtomicInteger();
+
+    /**
+     * Record a finished operation
+     *
+     * @param timer timer of the operation
+     * @param failed whether the operation failed after all retries
+     */
+    public void record(AggregateStopWatch timer, boolean failed) {
+        record(timer.connection.getTotalTimeMillis(), timer.transaction.getTotalTimeMillis(),
+                timer.callback.getTotalTimeMillis(), failed);
+    }
+
+    /**
+     * Record a finished operation
+     *
+     * @param connectionMillis time spent with connection related actions
+     * @param transactionMillis time spent with the transaction
+     * @param callbackMillis time spent calling the callback
+     * @param failed whether the operation failed after all retries
+     */
+    public synchronized void record(long connectionMillis, long transactionMillis, long callbackMillis,
+            boolean failed) {
+        latencies[ModbusEndpointMetrics.Phase.CONNECTION.ordinal()][next] = connectionMillis;
+        latencies[ModbusEndpointMetrics.Phase.TRANSACTION.ordinal()][next] = transactionMillis;
+        latencies[ModbusEndpointMetrics.Phase.CALLBACK.ordinal()][next] = callbackMillis;
+        errors[next] = failed;
+        next = (next + 1) % WINDOW_SIZE;
+        if (samples < WINDOW_SIZE) {
+            samples++;
+        }
+        operationCount++;
+        if (failed) {
+            errorCount++;
+        }
+    }
+
+    /**
+     * Record regular poll executed after its deadline
+     */
+    public synchronized void deadlineMissed() {
+        missedDeadlineCount++;
+    }
+
+    /**
+     * Record regular poll not executed since the previous poll of the same task was still queued
+     */
+    public synchronized void pollSkipped() {
+        skippedPollCount++;
+    }
+
+    /**
+     * Record transactions written while other transactions over the same connection were waiting for response
+     *
+     * @param count number of pipelined transactions
+     */
+    public synchronized void transactionsPipelined(int count) {
+        pipelinedTransactionCount += count;
+    }
+
+    /**
+     * Mark operation started
+     */
+    public void operationStarted() {
+        pendingOperations.incrementAndGet();
+    }
+
+    /**
+     * Mark operation finished, regardless of the outcome
+     */
+    public void operationFinished() {
+        pendingOperations.decrementAndGet();
+    }
+
+    /**
+     * Take snapshot of the metrics
+     *
+     * @param idleConnections number of idle connections of the endpoint
+     * @param activeConnections number of active connections of the endpoint
+     * @param queuedOperations number of operations queued for execution with the endpoint
+     * @param schedulerQueueSize queue size of the thread pool
+     * @return snapshot
+     */
+    public ModbusEndpointMetrics snapshot(int idleConnections, int activeConnections, int queuedOperations,
+            int schedulerQueueSize) {
+        long[][] sorted = new long[latencies.length][];
+        int failed = 0;
+        int sampleCount;
+        long operations;
+        long failedOperations;
+        long missedDeadlines;
+        long skippedPolls;
+        long pipelinedTransactions;
+        synchronized (this) {
+            sampleCount = samples;
+            for (int phase = 0; phase < latencies.length; phase++) {
+                // samples are at the start of the buffer until the buffer has been filled once
+                sorted[phase] = Arrays.copyOf(latencies[phase], sampleCount);
+            }
+            for (int i = 0; i < sampleCount; i++) {
+                if (errors[i]) {
+                    failed++;
+                }
+            }
+            operations = operationCount;
+            failedOperations = errorCount;
+            missedDeadlines = missedDeadlineCount;
+            skippedPolls = skippedPollCount;
+            pipelinedTransactions = pipelinedTransactionCount;
+        }
+        for (long[] phaseLatencies : sorted) {
+            Arrays.sort(phaseLatencies);
+        }
+        return new Snapshot(sorted, sampleCount == 0 ? 0 : (double) failed / sampleCount, operations,
+                failedOperations, missedDeadlines, skippedPolls, pipelinedTransactions, idleConnections,
+                activeConnections, pendingOperations.get() + queuedOperations, schedulerQueueSize);
+    }
+
+    private static class Snapshot implements ModbusEndpointMetrics {
+
+        private final long[][] sortedLatencies;
+        private final double errorRate;
+        private final long operationCount;
+        private final long errorCount;
+        private final long missedDeadlineCount;
+        private final long skippedPollCount;
+        private final long pipelinedTransactionCount;
+        private final int idleConnections;
+        private final int activeConnections;
+        private final int pendingOperations;
+        private final int schedulerQueueSize;
+
+        private Snapshot(long[][] sortedLatencies, double errorRate, long operationCount, long errorCount,
+                long missedDeadlineCount, long skippedPollCount, long pipelinedTransactionCount, int idleConnections,
+                int activeConnections, int pendingOperations, int schedulerQueueSize) {
+            this.sortedLatencies = sortedLatencies;
+            this.errorRate = errorRate;
+            this.operationCount = operationCount;
+            this.errorCount = errorCount;
+            this.missedDeadlineCount = missedDeadlineCount;
+            this.skippedPollCount = skippedPollCount;
+            this.pipelinedTransactionCount = pipelinedTransactionCount;
+            this.idleConnections = idleConnections;
+            this.activeConnections = activeConnections;
+            this.pendingOperations = pendingOperations;
+            this.schedulerQueueSize = schedulerQueueSize;
+        }
+
+        @Override
+        public int getSampleCount() {
+            return sortedLatencies[0].length;
+        }
+
+        @Override
+        public long getLatencyMillis(Phase phase, double quantile) {
+            if (quantile < 0 || quantile > 1) {
+                throw new IllegalArgumentException(String.format("Quantile %f not between 0 and 1", quantile));
+            }
+            long[] values = sortedLatencies[phase.ordinal()];
+            if (values.length == 0) {
+                return 0;
+            }
+            // nearest-rank method
+            int rank = (int) Math.ceil(quantile * values.length);
+            return values[Math.max(rank, 1) - 1];
+        }
+
+        @Override
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        @Override
+        public long getOperationCount() {
+            return operationCount;
+        }
+
+        @Override
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        @Override
+        public long getMissedDeadlineCount() {
+            return missedDeadlineCount;
+        }
+
+        @Override
+        public long getSkippedPollCount() {
+            return skippedPollCount;
+        }
+
+        @Override
+        public long getPipelinedTransactionCount() {
+            return pipelinedTransactionCount;
+        }
+
+        @Override
+        public int getIdleConnections() {
+            return idleConnections;
+        }
+
+        @Override
+        public int getActiveConnections() {
+            return activeConnections;
+        }
+
+        @Override
+        public int getPendingOperations() {
+            return pendingOperations;
+        }
+
+        @Override
+        public int getSchedulerQueueSize() {
+            return schedulerQueueSize;
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                    .append("samples", getSampleCount())
+                    .append("transactionP50", getLatencyMillis(Phase.TRANSACTION, 0.5))
+                    .append("transactionP99", getLatencyMillis(Phase.TRANSACTION, 0.99))
+                    .append("errorRate", errorRate).append("operationCount", operationCount)
+                    .append("errorCount", errorCount).append("missedDeadlineCount", missedDeadlineCount)
+                    .append("skippedPollCount", skippedPollCount)
+                    .append("pipelinedTransactionCount", pipelinedTransactionCount)
+                    .append("idleConnections", idleConnections)
+                    .append("activeConnections", activeConnections).append("pendingOperations", pendingOperations)
+                    .append("schedulerQueueSize", schedulerQueueSize).toString();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.transport.modbus.PollTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queue of operations waiting for execution with single endpoint
+ *
+ * Operations are executed one at a time by single thread borrowed from the executor, in order of priority and
+ * deadline. Writes are executed first, then one-off polls, and finally regular polls, the regular poll with earliest
+ * deadline first. Since single thread at a time executes operations of the endpoint, a slow endpoint does not occupy
+ * more than one thread of the executor, regardless of the number of operations queued.
+ *
+ * Regular poll is not queued again while the previous execution of the same poll is still waiting in the queue.
+ * Skipped polls and polls executed after their deadline are recorded to the {@link EndpointMetricsRecorder}.
+ *
+ * One-off operations are tracked by the future returned on submit. The future completes when the operation has been
+ * executed, and cancelling it removes the operation from the queue.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class EndpointScheduler {
+
+    /**
+     * Priority of queued operation. Operations with higher priority are declared first.
+     */
+    public static enum Priority {
+        WRITE,
+        ONE_OFF_POLL,
+        REGULAR_POLL
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final Priority priority;
+        private final long deadline;
+        private final long sequence;
+        @Nullable
+        private final PollTask regularPoll;
+        @Nullable
+        private final QueuedOperation operation;
+
+        private Entry(Priority priority, long deadline, long sequence, @Nullable PollTask regularPoll,
+                @Nullable QueuedOperation operation) {
+            this.priority = priority;
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.regularPoll = regularPoll;
+            this.operation = operation;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int result = priority.compareTo(other.priority);
+            if (result == 0) {
+                result = Long.compare(deadline, other.deadline);
+            }
+            if (result == 0) {
+                result = Long.compare(sequence, other.sequence);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * One-off operation waiting in the queue
+     */
+    private class QueuedOperation extends FutureTask<@Nullable Void> implements ScheduledFuture<@Nullable Void> {
+
+        private QueuedOperation(Runnable operation) {
+            super(operation, null);
+        }
+
+        @Override
+        public long getDelay(@Nullable TimeUnit unit) {
+            // Queued operations are due immediately, they are only waiting for the endpoint
+            return 0;
+        }
+
+        @Override
+        public int compareTo(@Nullable Delayed other) {
+            return other == null ? 1
+                    : Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                removeOperation(this);
+            }
+            return cancelled;
+        }
+
+        @Override
+        protected void setException(@Nullable Throwable t) {
+            logger.error("Unexpected error when executing queued Modbus operation", t);
+            super.setException(t);
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(EndpointScheduler.class);
+
+    private final Executor executor;
+    private final Consumer<List<PollTask>> regularPollExecutor;
+    private final BooleanSupplier batchRegularPolls;
+    private final EndpointMetricsRecorder metrics;
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final Set<PollTask> queuedRegularPolls = new HashSet<>();
+    private long sequence;
+    /**
+     * Whether some thread is currently executing the queued operations
+     */
+    private boolean draining;
+
+    /**
+     *
+     * @param executor executor providing the thread executing the operations
+     * @param regularPollExecutor executes regular polls. Called with single poll, or with all queued regular polls in
+     *            case <tt>batchRegularPolls</tt> returns true
+     * @param batchRegularPolls whether all queued regular polls should be executed together, e.g. for coalescing the
+     *            requests
+     * @param metrics metrics of the endpoint
+     */
+    public EndpointScheduler(Executor executor, Consumer<List<PollTask>> regularPollExecutor,
+            BooleanSupplier batchRegularPolls, EndpointMetricsRecorder metrics) {
+        this.executor = executor;
+        this.regularPollExecutor = regularPollExecutor;
+        this.batchRegularPolls = batchRegularPolls;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Queue one-off operation for execution
+     *
+     * @param priority priority of the operation, {@link Priority#WRITE} or {@link Priority#ONE_OFF_POLL}
+     * @param operation operation to execute
+     * @return future completing when the operation has been executed. Cancelling the future removes the operation
+     *         from the queue, or interrupts it if already running and <code>mayInterruptIfRunning</code> is set.
+     */
+    public ScheduledFuture<?> submit(Priority priority, Runnable operation) {
+        if (priority == Priority.REGULAR_POLL) {
+            throw new IllegalArgumentException("Use submitRegularPoll with regular polls");
+        }
+        QueuedOperation queued = new QueuedOperation(operation);
+        synchronized (this) {
+            queue.add(new Entry(priority, System.currentTimeMillis(), sequence++, null, queued));
+        }
+        startDraining();
+        return queued;
+    }
+
+    /**
+     * Queue regular poll for execution
+     *
+     * @param task poll task
+     * @param deadline time (epoch millis) the poll should be executed by, typically the time next poll of the same
+     *            task is due
+     * @return whether the poll was queued. False is returned when the previous poll of the same task is still queued.
+     */
+    public boolean submitRegularPoll(PollTask task, long deadline) {
+        synchronized (this) {
+            if (!queuedRegularPolls.add(task)) {
+                metrics.pollSkipped();
+                return false;
+            }
+            queue.add(new Entry(Priority.REGULAR_POLL, deadline, sequence++, task, null));
+        }
+        startDraining();
+        return true;
+    }
+
+    /**
+     * Remove queued regular poll
+     *
+     * @param task poll task
+     * @return whether the poll was queued
+     */
+    public synchronized boolean remove(PollTask task) {
+        if (!queuedRegularPolls.remove(task)) {
+            return false;
+        }
+        queue.removeIf(entry -> task.equals(entry.regularPoll));
+        return true;
+    }
+
+    /**
+     * Get number of operations waiting in the queue
+     *
+     * @return number of queued operations
+     */
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * Remove all queued operations. Futures of the queued one-off operations are cancelled.
+     */
+    public void clear() {
+        List<QueuedOperation> operations = new ArrayList<>();
+        synchronized (this) {
+            for (Entry entry : queue) {
+                QueuedOperation operation = entry.operation;
+                if (operation != null) {
+                    operations.add(operation);
+                }
+            }
+            queue.clear();
+            queuedRegularPolls.clear();
+        }
+        operations.forEach(operation -> operation.cancel(false));
+    }
+
+    private synchronized void removeOperation(QueuedOperation operation) {
+        queue.removeIf(entry -> entry.operation == operation);
+    }
+
+    private void startDraining() {
+        synchronized (this) {
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        boolean started = false;
+        try {
+            executor.execute(this::drain);
+            started = true;
+        } finally {
+            if (!started) {
+                synchronized (this) {
+                    draining = false;
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        boolean drained = false;
+        try {
+            while (true) {
+                Entry head;
+                List<PollTask> regularPolls = new ArrayList<>();
+                synchronized (this) {
+                    @Nullable
+                    Entry next = queue.poll();
+                    if (next == null) {
+                        draining = false;
+                        drained = true;
+                        return;
+                    }
+                    head = next;
+                    if (head.regularPoll != null) {
+                        long now = System.currentTimeMillis();
+                        takeRegularPoll(head, now, regularPolls);
+                        // Regular polls have lowest priority, the queue contains only regular polls now
+                        if (batchRegularPolls.getAsBoolean()) {
+                            while ((next = queue.poll()) != null) {
+                                takeRegularPoll(next, now, regularPolls);
+                            }
+                        }
+                    }
+                }
+                try {
+                    QueuedOperation operation = head.operation;
+                    if (operation != null) {
+                        operation.run();
+                        if (operation.isCancelled()) {
+                            // Operation might have been interrupted, do not let it affect the next operations
+                            Thread.interrupted();
+                        }
+                    } else {
+                        regularPollExecutor.accept(regularPolls);
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Unexpected error when executing queued Modbus operation", e);
+                }
+            }
+        } finally {
+            if (!drained) {
+                // Unexpected exit, let the next submit continue with the queued operations
+                synchronized (this) {
+                    draining = false;
+                }
+            }
+        }
+    }
+
+    private void takeRegularPoll(Entry entry, long now, List<PollTask> regularPolls) {
+        PollTask task = entry.regularPoll;
+        if (task == null) {
+            return;
+        }
+        queuedRegularPolls.remove(task);
+        if (now > entry.deadline) {
+            logger.debug("Poll task {} missed its deadline by {} ms", task, now - entry.deadline);
+            metrics.deadlineMissed();
+        }
+        regularPolls.add(task);
+    }
+}
@@ -280,6 +280,7 @@ public class ModbusLibraryWrapper {
                 callback.onBits(message,
                         new BitArrayWrappingBitVector(bits, Math.min(bits.size(), message.getDataLength())));
             } else if (message.getFunctionCode() == ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS) {
+                // Wrap the register array of the response as is, jamod returns it without copying
                 callback.onRegisters(message, new RegisterArrayWrappingInputRegister(
                         ((ReadMultipleRegistersResponse) response).getRegisters()));
             } else if (message.getFunctionCode() == ModbusReadFunctionCode.READ_INPUT_REGISTERS) {
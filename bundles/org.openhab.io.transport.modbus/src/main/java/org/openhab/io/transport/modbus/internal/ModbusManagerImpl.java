@@ -13,7 +13,9 @@
 package org.openhab.io.transport.modbus.internal;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -37,6 +39,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.openhab.io.transport.modbus.ModbusCallback;
 import org.openhab.io.transport.modbus.ModbusConnectionException;
+import org.openhab.io.transport.modbus.ModbusEndpointMetrics;
 import org.openhab.io.transport.modbus.ModbusManager;
 import org.openhab.io.transport.modbus.ModbusManagerListener;
 import org.openhab.io.transport.modbus.ModbusReadCallback;
@@ -69,6 +72,7 @@ import net.wimpi.modbus.io.ModbusTransaction;
 import net.wimpi.modbus.msg.ModbusRequest;
 import net.wimpi.modbus.msg.ModbusResponse;
 import net.wimpi.modbus.net.ModbusSlaveConnection;
+import net.wimpi.modbus.net.TCPMasterConnection;
 
 /**
  * Main implementation of ModbusManager
@@ -268,6 +272,8 @@ public class ModbusManagerImpl implements ModbusManager {
     @Nullable
     private volatile ModbusSlaveConnectionFactoryImpl connectionFactory;
     private volatile Map<PollTask, ScheduledFuture<?>> scheduledPollTasks = new ConcurrentHashMap<>();
+    private volatile Map<ModbusSlaveEndpoint, EndpointScheduler> endpointSchedulers = new ConcurrentHashMap<>();
+    private volatile Map<ModbusSlaveEndpoint, EndpointMetricsRecorder> endpointMetrics = new ConcurrentHashMap<>();
     /**
      * Executor for requests
      */
@@ -468,7 +474,14 @@ public class ModbusManagerImpl implements ModbusManager {
     }
 
     private void verifyTaskIsRegistered(PollTask task) throws PollTaskUnregistered {
-        if (!this.scheduledPollTasks.containsKey(task)) {
+        boolean registered;
+        if (task instanceof CoalescedPollTask) {
+            // Coalesced task is executed as long as any of the original tasks is registered
+            registered = ((CoalescedPollTask) task).getTasks().stream().anyMatch(scheduledPollTasks::containsKey);
+        } else {
+            registered = this.scheduledPollTasks.containsKey(task);
+        }
+        if (!registered) {
             String msg = String.format("Poll task %s is unregistered", task);
             logger.debug(msg);
             throw new PollTaskUnregistered(msg);
@@ -505,6 +518,7 @@ public class ModbusManagerImpl implements ModbusManager {
         logTaskQueueInfo();
         R request = task.getRequest();
         ModbusSlaveEndpoint endpoint = task.getEndpoint();
+        EndpointMetricsRecorder metrics = getMetricsRecorder(endpoint);
         @Nullable
         C callback = task.getCallback();
         int maxTries = task.getMaxTries();
@@ -517,6 +531,9 @@ public class ModbusManagerImpl implements ModbusManager {
         }
 
         Optional<ModbusSlaveConnection> connection = Optional.empty();
+        boolean succeeded = false;
+        boolean aborted = false;
+        metrics.operationStarted();
         try {
             logger.trace("Starting new operation with task {}. Trying to get connection [operation ID {}]", task,
                     operationId);
@@ -533,6 +550,7 @@ public class ModbusManagerImpl implements ModbusManager {
             if (scheduledThreadPoolExecutor == null) {
                 logger.debug("Manager has been shut down, aborting proecssing request {} [operation ID {}]", request,
                         operationId);
+                aborted = true;
                 return;
             }
 
@@ -574,6 +592,7 @@ public class ModbusManagerImpl implements ModbusManager {
                     willRetry = tryIndex < maxTries;
                     operation.accept(timer, task, connection.get());
                     lastError.set(null);
+                    succeeded = true;
                     break;
                 } catch (IOException e) {
                     lastError.set(new ModbusSlaveIOExceptionImpl(e));
@@ -675,10 +694,12 @@ public class ModbusManagerImpl implements ModbusManager {
         } catch (PollTaskUnregistered e) {
             logger.warn("Poll task was unregistered -- not executing/proceeding with the poll: {} [operation ID {}]",
                     e.getMessage(), operationId);
+            aborted = true;
             return;
         } catch (InterruptedException e) {
             logger.warn("Poll task was canceled -- not executing/proceeding with the poll: {} [operation ID {}]",
                     e.getMessage(), operationId);
+            aborted = true;
             // Invalidate connection, and empty (so that new connection is acquired before new retry)
             timer.connection.timeConsumer(c -> invalidate(endpoint, c), connection);
             connection = Optional.empty();
@@ -687,22 +708,148 @@ public class ModbusManagerImpl implements ModbusManager {
             logger.trace("Connection was returned to the pool, ending operation [operation ID {}]", operationId);
             timer.suspendAllRunning();
             logger.debug("Modbus operation ended, timing info: {} [operation ID {}]", timer, operationId);
+            metrics.operationFinished();
+            if (!aborted) {
+                metrics.record(timer, !succeeded);
+            }
+        }
+    }
+
+    /**
+     * Execute regular polls of single endpoint
+     *
+     * With endpoints having read coalescing enabled, the tasks are merged to as few transactions as possible using
+     * {@link ReadRequestCoalescer}. With TCP endpoints having pipelining enabled, several transactions are kept in
+     * flight using {@link PipelinedPollExecution}.
+     *
+     * @param endpoint endpoint of the tasks
+     * @param tasks poll tasks to execute, in order of their deadlines
+     */
+    private void executeRegularPolls(ModbusSlaveEndpoint endpoint, List<PollTask> tasks) {
+        long started = System.currentTimeMillis();
+        List<PollTask> registered = new ArrayList<>(tasks);
+        registered.removeIf(task -> !scheduledPollTasks.containsKey(task));
+        ModbusSlaveConnectionFactoryImpl connectionFactory = this.connectionFactory;
+        @Nullable
+        EndpointPoolConfiguration config = connectionFactory == null ? null
+                : connectionFactory.getEndpointPoolConfiguration(endpoint);
+        int maxGap = config == null ? -1 : config.getReadCoalescingMaxGap();
+        int pipelineWindow = config == null || !(endpoint instanceof ModbusTCPSlaveEndpoint) ? 1
+                : config.getPipelineWindow();
+        List<PollTask> planned = maxGap < 0 ? registered : ReadRequestCoalescer.plan(registered, maxGap);
+        logger.debug("Executing {} regular poll tasks of endpoint {} using {} transactions", registered.size(),
+                endpoint, planned.size());
+        if (pipelineWindow > 1 && planned.size() > 1) {
+            planned = executePipelined(endpoint, planned, pipelineWindow);
+        }
+        for (PollTask plannedTask : planned) {
+            executeOperation(plannedTask, false, pollOperation);
+            if (plannedTask instanceof CoalescedPollTask && ((CoalescedPollTask) plannedTask).isSplitRequired()) {
+                List<PollTask> originalTasks = ((CoalescedPollTask) plannedTask).getTasks();
+                logger.debug("Slave rejected coalesced task {}, executing {} original tasks one by one", plannedTask,
+                        originalTasks.size());
+                for (PollTask task : originalTasks) {
+                    if (scheduledPollTasks.containsKey(task)) {
+                        executeOperation(task, false, pollOperation);
+                    }
+                }
+            }
+        }
+        long finished = System.currentTimeMillis();
+        logger.debug(
+                "Execution of regular poll tasks {} finished at {}. Was started at millis: {} (=duration of {} millis)",
+                tasks, finished, started, finished - started);
+    }
+
+    /**
+     * Whether regular polls of the endpoint should be executed together
+     *
+     * @param endpoint endpoint to check
+     * @return true if read coalescing or pipelining is enabled with the endpoint
+     */
+    private boolean isBatchingRegularPolls(ModbusSlaveEndpoint endpoint) {
+        ModbusSlaveConnectionFactoryImpl connectionFactory = this.connectionFactory;
+        @Nullable
+        EndpointPoolConfiguration config = connectionFactory == null ? null
+                : connectionFactory.getEndpointPoolConfiguration(endpoint);
+        return config != null && (config.getReadCoalescingMaxGap() >= 0
+                || (endpoint instanceof ModbusTCPSlaveEndpoint && config.getPipelineWindow() > 1));
+    }
+
+    /**
+     * Get scheduler of the endpoint, creating new one if necessary
+     *
+     * @param endpoint endpoint
+     * @return scheduler for the operations of the endpoint, or null if the manager is not active
+     */
+    private @Nullable EndpointScheduler getEndpointScheduler(ModbusSlaveEndpoint endpoint) {
+        ScheduledExecutorService executor = scheduledThreadPoolExecutor;
+        if (executor == null) {
+            return null;
+        }
+        return endpointSchedulers.computeIfAbsent(endpoint,
+                e -> new EndpointScheduler(executor, tasks -> executeRegularPolls(e, tasks),
+                        () -> isBatchingRegularPolls(e), getMetricsRecorder(e)));
+    }
+
+    /**
+     * Execute poll tasks over single connection, keeping several transactions in flight
+     *
+     * @param endpoint TCP endpoint of the tasks
+     * @param tasks tasks to execute
+     * @param window maximum number of transactions in flight
+     * @return tasks that were not executed successfully. These should be executed with the regular mechanism which
+     *         takes care of retries and error callbacks.
+     */
+    private List<PollTask> executePipelined(ModbusSlaveEndpoint endpoint, List<PollTask> tasks, int window) {
+        AggregateStopWatch timer = new AggregateStopWatch();
+        timer.total.resume();
+        String operationId = timer.operationId;
+        Optional<ModbusSlaveConnection> connection = timer.connection.timeSupplier(() -> borrowConnection(endpoint));
+        if (!connection.isPresent() || !(connection.get() instanceof TCPMasterConnection)) {
+            logger.debug("Could not get connection for pipelined execution, executing {} tasks one by one",
+                    tasks.size());
+            timer.connection.timeConsumer(c -> returnConnection(endpoint, c), connection);
+            return tasks;
+        }
+        ModbusSlaveConnectionFactoryImpl connectionFactory = this.connectionFactory;
+        long interTransactionDelay = Optional
+                .ofNullable(connectionFactory == null ? null
+                        : connectionFactory.getEndpointPoolConfiguration(endpoint))
+                .map(cfg -> cfg.getInterTransactionDelayMillis()).orElse(0L);
+        PipelinedPollExecution execution = new PipelinedPollExecution((TCPMasterConnection) connection.get(), tasks,
+                window, interTransactionDelay);
+        try {
+            logger.trace("Executing {} tasks pipelined with window {} [operation ID {}]", tasks.size(), window,
+                    operationId);
+            return execution.execute(timer);
+        } finally {
+            if (execution.isConnectionBroken()) {
+                timer.connection.timeConsumer(c -> invalidate(endpoint, c), connection);
+            } else {
+                timer.connection.timeConsumer(c -> returnConnection(endpoint, c), connection);
+            }
+            timer.suspendAllRunning();
+            logger.debug("Pipelined Modbus operation ended, timing info: {} [operation ID {}]", timer, operationId);
+            // Tasks not completed are executed again one by one, and their outcome is recorded there
+            EndpointMetricsRecorder metrics = getMetricsRecorder(endpoint);
+            metrics.record(timer, execution.isConnectionBroken());
+            metrics.transactionsPipelined(execution.getPipelinedTransactionCount());
         }
     }
 
     @Override
     public ScheduledFuture<?> submitOneTimePoll(PollTask task) {
-        ScheduledExecutorService executor = scheduledThreadPoolExecutor;
-        Objects.requireNonNull(executor, "Not activated!");
+        EndpointScheduler scheduler = Objects.requireNonNull(getEndpointScheduler(task.getEndpoint()),
+                "Not activated!");
         long scheduleTime = System.currentTimeMillis();
         logger.debug("Scheduling one-off poll task {}", task);
-        ScheduledFuture<?> future = executor.schedule(() -> {
-            long millisInThreadPoolWaiting = System.currentTimeMillis() - scheduleTime;
-            logger.debug("Will now execute one-off poll task {}, waited in thread pool for {}", task,
-                    millisInThreadPoolWaiting);
+        // The future completes when the poll has been executed, and cancelling it removes the queued poll
+        return scheduler.submit(EndpointScheduler.Priority.ONE_OFF_POLL, () -> {
+            long millisWaiting = System.currentTimeMillis() - scheduleTime;
+            logger.debug("Will now execute one-off poll task {}, waited in queue for {}", task, millisWaiting);
             executeOperation(task, true, pollOperation);
-        }, 0L, TimeUnit.MILLISECONDS);
-        return future;
+        });
     }
 
     @Override
@@ -716,15 +863,23 @@ public class ModbusManagerImpl implements ModbusManager {
                 logger.trace("Unregistering previous poll task (possibly with different period)");
                 unregisterRegularPoll(task);
             }
-            ScheduledFuture<?> future = executor.scheduleWithFixedDelay(() -> {
-                long started = System.currentTimeMillis();
-                logger.debug("Executing scheduled ({}ms) poll task {}. Current millis: {}", pollPeriodMillis, task,
-                        started);
-                executeOperation(task, false, pollOperation);
-                long finished = System.currentTimeMillis();
-                logger.debug(
-                        "Execution of scheduled ({}ms) poll task {} finished at {}. Was started at millis: {} (=duration of {} millis)",
-                        pollPeriodMillis, task, finished, started, finished - started);
+            // Executed at fixed rate to avoid drift. The poll is only queued here, the actual execution happens in
+            // the endpoint scheduler, with the deadline of next poll.
+            ScheduledFuture<?> future = executor.scheduleAtFixedRate(() -> {
+                long due = System.currentTimeMillis();
+                @Nullable
+                EndpointScheduler scheduler = getEndpointScheduler(task.getEndpoint());
+                if (scheduler == null) {
+                    return;
+                }
+                if (scheduler.submitRegularPoll(task, due + pollPeriodMillis)) {
+                    logger.debug("Queued scheduled ({}ms) poll task {}. Current millis: {}", pollPeriodMillis, task,
+                            due);
+                } else {
+                    logger.debug(
+                            "Skipping scheduled ({}ms) poll task {} since the previous poll is still waiting for execution",
+                            pollPeriodMillis, task);
+                }
             }, initialDelayMillis, pollPeriodMillis, TimeUnit.MILLISECONDS);
 
             scheduledPollTasks.put(task, future);
@@ -757,6 +912,11 @@ public class ModbusManagerImpl implements ModbusManager {
             factory.disconnectOnReturn(task.getEndpoint(), System.currentTimeMillis());
 
             future.cancel(true);
+            @Nullable
+            EndpointScheduler scheduler = endpointSchedulers.get(task.getEndpoint());
+            if (scheduler != null) {
+                scheduler.remove(task);
+            }
 
             logger.info("Poll task {} canceled", task);
 
@@ -777,17 +937,16 @@ public class ModbusManagerImpl implements ModbusManager {
 
     @Override
     public ScheduledFuture<?> submitOneTimeWrite(WriteTask task) {
-        ScheduledExecutorService scheduledThreadPoolExecutor = this.scheduledThreadPoolExecutor;
-        Objects.requireNonNull(scheduledThreadPoolExecutor, "Not activated!");
+        EndpointScheduler scheduler = Objects.requireNonNull(getEndpointScheduler(task.getEndpoint()),
+                "Not activated!");
         long scheduleTime = System.currentTimeMillis();
         logger.debug("Scheduling one-off write task {}", task);
-        ScheduledFuture<?> future = scheduledThreadPoolExecutor.schedule(() -> {
-            long millisInThreadPoolWaiting = System.currentTimeMillis() - scheduleTime;
-            logger.debug("Will now execute one-off write task {}, waited in thread pool for {}", task,
-                    millisInThreadPoolWaiting);
+        // The future completes when the write has been executed, and cancelling it removes the queued write
+        return scheduler.submit(EndpointScheduler.Priority.WRITE, () -> {
+            long millisWaiting = System.currentTimeMillis() - scheduleTime;
+            logger.debug("Will now execute one-off write task {}, waited in queue for {}", task, millisWaiting);
             executeOperation(task, true, writeOperation);
-        }, 0L, TimeUnit.MILLISECONDS);
-        return future;
+        });
     }
 
     @Override
@@ -806,6 +965,27 @@ public class ModbusManagerImpl implements ModbusManager {
         return connectionFactory.getEndpointPoolConfiguration(endpoint);
     }
 
+    @Override
+    public @Nullable ModbusEndpointMetrics getEndpointMetrics(ModbusSlaveEndpoint endpoint) {
+        KeyedObjectPool<ModbusSlaveEndpoint, ModbusSlaveConnection> connectionPool = this.connectionPool;
+        ScheduledExecutorService scheduledThreadPoolExecutor = this.scheduledThreadPoolExecutor;
+        if (connectionPool == null || scheduledThreadPoolExecutor == null) {
+            return null;
+        }
+        @Nullable
+        EndpointScheduler scheduler = endpointSchedulers.get(endpoint);
+        int queuedOperations = scheduler == null ? 0 : scheduler.size();
+        int schedulerQueueSize = scheduledThreadPoolExecutor instanceof ThreadPoolExecutor
+                ? ((ThreadPoolExecutor) scheduledThreadPoolExecutor).getQueue().size()
+                : 0;
+        return getMetricsRecorder(endpoint).snapshot(connectionPool.getNumIdle(endpoint),
+                connectionPool.getNumActive(endpoint), queuedOperations, schedulerQueueSize);
+    }
+
+    private EndpointMetricsRecorder getMetricsRecorder(ModbusSlaveEndpoint endpoint) {
+        return endpointMetrics.computeIfAbsent(endpoint, e -> new EndpointMetricsRecorder());
+    }
+
     @Override
     public void addListener(ModbusManagerListener listener) {
         listeners.add(listener);
@@ -864,6 +1044,9 @@ public class ModbusManagerImpl implements ModbusManager {
             // when pool is received from ThreadPoolManager is called
             scheduledThreadPoolExecutor = null;
             connectionFactory = null;
+            endpointSchedulers.values().forEach(EndpointScheduler::clear);
+            endpointSchedulers.clear();
+            endpointMetrics.clear();
             logger.debug("Modbus manager deactivated");
         }
     }
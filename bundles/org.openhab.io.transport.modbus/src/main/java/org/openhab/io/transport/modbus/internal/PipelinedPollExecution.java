@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.transport.modbus.ModbusReadCallback;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusUnexpectedTransactionIdException;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.internal.pooling.ModbusSlaveConnectionFactoryImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.wimpi.modbus.ModbusException;
+import net.wimpi.modbus.io.ModbusTransport;
+import net.wimpi.modbus.msg.ExceptionResponse;
+import net.wimpi.modbus.msg.ModbusRequest;
+import net.wimpi.modbus.msg.ModbusResponse;
+import net.wimpi.modbus.msg.ReadCoilsResponse;
+import net.wimpi.modbus.msg.ReadInputDiscretesResponse;
+import net.wimpi.modbus.msg.ReadInputRegistersResponse;
+import net.wimpi.modbus.msg.ReadMultipleRegistersResponse;
+import net.wimpi.modbus.net.TCPMasterConnection;
+
+/**
+ * Executes several poll tasks over single Modbus/TCP connection, keeping multiple requests in flight
+ *
+ * Requests are written in windows of configurable size without waiting for the responses in between. Responses are
+ * matched to requests using the transaction id of the MBAP header, and thus may arrive in any order.
+ *
+ * The execution is optimistic: tasks that fail (exception response from slave, I/O error, unexpected transaction id,
+ * response not matching the request in unit id or data length) are not retried here but are returned by
+ * {@link #execute(AggregateStopWatch)}. The caller is expected to execute those using the regular, one transaction at
+ * a time, mechanism which takes care of retries and error callbacks.
+ *
+ * Consecutive requests are written at least <code>interTransactionDelayMillis</code> apart. Exceptions thrown by the
+ * callbacks are logged, and do not affect the execution of the other tasks.
+ *
+ * Instances are not thread-safe and are meant for single use.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class PipelinedPollExecution {
+
+    private static final int MAX_TRANSACTION_ID = 0xffff;
+    private static final AtomicInteger TRANSACTION_ID_COUNTER = new AtomicInteger();
+
+    private final Logger logger = LoggerFactory.getLogger(PipelinedPollExecution.class);
+
+    private final TCPMasterConnection connection;
+    private final List<PollTask> tasks;
+    private final int window;
+    private final long interTransactionDelayMillis;
+    private boolean connectionBroken;
+    private int pipelinedTransactionCount;
+    @Nullable
+    private Long lastWriteMillis;
+
+    /**
+     * Construct execution
+     *
+     * @param connection connected TCP connection to use
+     * @param tasks tasks to execute, all having the endpoint of the connection
+     * @param window maximum number of requests in flight
+     * @param interTransactionDelayMillis minimum time between writing two requests
+     */
+    public PipelinedPollExecution(TCPMasterConnection connection, List<PollTask> tasks, int window,
+            long interTransactionDelayMillis) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.connection = connection;
+        this.tasks = tasks;
+        this.window = window;
+        this.interTransactionDelayMillis = interTransactionDelayMillis;
+    }
+
+    private static int nextTransactionId() {
+        // Transaction id is 16 bit unsigned integer. Zero is avoided as some slaves use it to denote missing id
+        return TRANSACTION_ID_COUNTER.updateAndGet(id -> id >= MAX_TRANSACTION_ID ? 1 : id + 1);
+    }
+
+    /**
+     * Execute the tasks, invoking callbacks of the successful ones
+     *
+     * @param timer aggregate stop watch for performance profiling
+     * @return tasks that were not successfully executed, in original order
+     */
+    public List<PollTask> execute(AggregateStopWatch timer) {
+        List<PollTask> notCompleted = new ArrayList<>();
+        ModbusTransport transport = connection.getModbusTransport();
+        for (int windowStart = 0; windowStart < tasks.size(); windowStart += window) {
+            int windowEnd = Math.min(windowStart + window, tasks.size());
+            Map<Integer, PollTask> inFlight = new LinkedHashMap<>();
+            Map<Integer, Integer> functionCodes = new LinkedHashMap<>();
+            try {
+                timer.transaction.resume();
+                try {
+                    for (PollTask task : tasks.subList(windowStart, windowEnd)) {
+                        ModbusRequest libRequest = ModbusLibraryWrapper.createRequest(task.getRequest());
+                        int transactionId = nextTransactionId();
+                        libRequest.setTransactionID(transactionId);
+                        inFlight.put(transactionId, task);
+                        functionCodes.put(transactionId, libRequest.getFunctionCode());
+                        ModbusSlaveConnectionFactoryImpl.waitAtleast(lastWriteMillis, interTransactionDelayMillis);
+                        if (inFlight.size() > 1) {
+                            pipelinedTransactionCount++;
+                        }
+                        logger.trace("Writing pipelined request (FC={}, transaction ID={}): {} [operation ID {}]",
+                                task.getRequest().getFunctionCode(), transactionId, libRequest.getHexMessage(),
+                                timer.operationId);
+                        transport.writeMessage(libRequest);
+                        lastWriteMillis = System.currentTimeMillis();
+                    }
+                } finally {
+                    timer.transaction.suspend();
+                }
+                while (!inFlight.isEmpty()) {
+                    timer.transaction.resume();
+                    ModbusResponse response;
+                    try {
+                        response = transport.readResponse();
+                    } finally {
+                        timer.transaction.suspend();
+                    }
+                    int transactionId = response.getTransactionID();
+                    @Nullable
+                    PollTask task = inFlight.remove(transactionId);
+                    if (task == null) {
+                        logger.warn(
+                                "Pipelined response has transaction id {} which does not match any request in flight ({}). [operation ID {}]",
+                                transactionId, inFlight.keySet(), timer.operationId);
+                        throw new ModbusUnexpectedTransactionIdException(inFlight.keySet().iterator().next(),
+                                transactionId);
+                    }
+                    ModbusReadRequestBlueprint request = task.getRequest();
+                    logger.trace("Response for pipelined request (FC={}, transaction ID={}): {} [operation ID {}]",
+                            response.getFunctionCode(), transactionId, response.getHexMessage(), timer.operationId);
+                    if (response instanceof ExceptionResponse
+                            || response.getFunctionCode() != functionCodes.getOrDefault(transactionId, -1)) {
+                        logger.debug("Pipelined request {} failed with response {}, will be retried [operation ID {}]",
+                                request, response.getHexMessage(), timer.operationId);
+                        notCompleted.add(task);
+                        continue;
+                    }
+                    if (!matchesRequest(request, response)) {
+                        logger.debug(
+                                "Pipelined request {} got response with unit id {} or data length not matching the request, will be retried [operation ID {}]",
+                                request, response.getUnitID(), timer.operationId);
+                        notCompleted.add(task);
+                        continue;
+                    }
+                    ModbusReadCallback callback = task.getCallback();
+                    if (callback != null) {
+                        timer.callback.timeRunnable(() -> invokeCallback(request, callback, response));
+                    }
+                }
+            } catch (ModbusException | ModbusUnexpectedTransactionIdException | InterruptedException
+                    | RuntimeException e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                logger.debug(
+                        "Pipelined execution failed, remaining {} requests executed one by one. Error: {} {} [operation ID {}]",
+                        inFlight.size() + tasks.size() - windowEnd, e.getClass().getName(), e.getMessage(),
+                        timer.operationId);
+                // The state of the connection is unknown, responses might still be arriving
+                connectionBroken = true;
+                notCompleted.addAll(inFlight.values());
+                notCompleted.addAll(tasks.subList(windowEnd, tasks.size()));
+                break;
+            }
+        }
+        return notCompleted;
+    }
+
+    private void invokeCallback(ModbusReadRequestBlueprint request, ModbusReadCallback callback,
+            ModbusResponse response) {
+        try {
+            ModbusLibraryWrapper.invokeCallbackWithResponse(request, callback, response);
+        } catch (RuntimeException e) {
+            // Failing callback is a problem of the callback, the transaction itself succeeded
+            logger.error("Unhandled exception in callback {} for request {}", callback, request, e);
+        }
+    }
+
+    /**
+     * Check that the response has the unit id and the amount of data the request asked for
+     *
+     * @param request request
+     * @param response response having function code of the request
+     * @return whether the response matches the request
+     */
+    private static boolean matchesRequest(ModbusReadRequestBlueprint request, ModbusResponse response) {
+        if (response.getUnitID() != request.getUnitID()) {
+            return false;
+        }
+        switch (request.getFunctionCode()) {
+            case READ_COILS:
+                // jamod rounds the number of bits up to full bytes, see ModbusLibraryWrapper
+                return ((ReadCoilsResponse) response).getCoils().size() >= request.getDataLength();
+            case READ_INPUT_DISCRETES:
+                return ((ReadInputDiscretesResponse) response).getDiscretes().size() >= request.getDataLength();
+            case READ_MULTIPLE_REGISTERS:
+                return ((ReadMultipleRegistersResponse) response).getWordCount() == request.getDataLength();
+            case READ_INPUT_REGISTERS:
+                return ((ReadInputRegistersResponse) response).getWordCount() == request.getDataLength();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Get number of requests written while other requests were still waiting for response
+     *
+     * @return number of pipelined transactions
+     */
+    public int getPipelinedTransactionCount() {
+        return pipelinedTransactionCount;
+    }
+
+    /**
+     * Whether the connection was left in unknown state, and should be invalidated
+     *
+     * @return true if the connection should not be re-used
+     */
+    public boolean isConnectionBroken() {
+        return connectionBroken;
+    }
+}
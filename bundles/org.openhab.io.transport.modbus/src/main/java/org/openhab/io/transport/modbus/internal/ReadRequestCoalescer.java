@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.transport.modbus.BasicModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+
+/**
+ * Planner merging read requests of several poll tasks into as few transactions as possible
+ *
+ * Requests are merged when they share endpoint, unit id, protocol id and function code, and their data ranges overlap
+ * or are separated by at most <code>maxGap</code> registers (or bits with coils and discrete inputs). The merged
+ * request never exceeds the maximum amount of data allowed in single Modbus response PDU.
+ *
+ * Merging over gaps reads registers that were not requested by any task. Should the slave reject the merged request
+ * with an exception response (e.g. illegal data address), the original tasks are executed one by one, see
+ * {@link CoalescedPollTask#isSplitRequired()}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ReadRequestCoalescer {
+
+    /**
+     * Maximum number of registers in read holding registers / read input registers response
+     */
+    public static final int MAX_REGISTERS_PER_READ = 125;
+
+    /**
+     * Maximum number of bits in read coils / read discrete inputs response
+     */
+    public static final int MAX_BITS_PER_READ = 2000;
+
+    private static class GroupKey {
+        private final ModbusSlaveEndpoint endpoint;
+        private final int unitId;
+        private final int protocolId;
+        private final ModbusReadFunctionCode functionCode;
+
+        GroupKey(PollTask task) {
+            ModbusReadRequestBlueprint request = task.getRequest();
+            this.endpoint = task.getEndpoint();
+            this.unitId = request.getUnitID();
+            this.protocolId = request.getProtocolID();
+            this.functionCode = request.getFunctionCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(endpoint, unitId, protocolId, functionCode);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            GroupKey other = (GroupKey) obj;
+            return unitId == other.unitId && protocolId == other.protocolId && functionCode == other.functionCode
+                    && endpoint.equals(other.endpoint);
+        }
+    }
+
+    /**
+     * Returns maximum amount of data elements (registers or bits) that can be read with single request
+     *
+     * @param functionCode function code of the request
+     * @return maximum data length
+     */
+    public static int getMaxDataLength(ModbusReadFunctionCode functionCode) {
+        switch (functionCode) {
+            case READ_COILS:
+            case READ_INPUT_DISCRETES:
+                return MAX_BITS_PER_READ;
+            case READ_INPUT_REGISTERS:
+            case READ_MULTIPLE_REGISTERS:
+                return MAX_REGISTERS_PER_READ;
+            default:
+                throw new IllegalArgumentException(functionCode.toString());
+        }
+    }
+
+    /**
+     * Plan transactions for the given poll tasks
+     *
+     * Tasks that cannot be merged with any other task are returned as is. Order of the original tasks is preserved
+     * between the groups, and within a merged task the original tasks are ordered by their start address.
+     *
+     * @param tasks tasks to plan
+     * @param maxGap maximum number of unrequested registers (or bits) between two requests that are still merged.
+     *            Zero merges only overlapping and adjacent requests.
+     * @return tasks to execute, each being either one of the original tasks or {@link CoalescedPollTask}
+     */
+    public static List<PollTask> plan(Collection<PollTask> tasks, int maxGap) {
+        if (maxGap < 0) {
+            throw new IllegalArgumentException("maxGap must be non-negative");
+        }
+        Map<GroupKey, List<PollTask>> groups = new LinkedHashMap<>();
+        for (PollTask task : tasks) {
+            groups.computeIfAbsent(new GroupKey(task), key -> new ArrayList<>()).add(task);
+        }
+
+        List<PollTask> planned = new ArrayList<>(tasks.size());
+        for (List<PollTask> group : groups.values()) {
+            if (group.size() == 1) {
+                planned.add(group.get(0));
+                continue;
+            }
+            group.sort(Comparator.comparingInt(task -> task.getRequest().getReference()));
+            int maxLength = getMaxDataLength(group.get(0).getRequest().getFunctionCode());
+
+            List<PollTask> run = new ArrayList<>();
+            int runStart = 0;
+            int runEnd = 0; // exclusive
+            for (PollTask task : group) {
+                ModbusReadRequestBlueprint request = task.getRequest();
+                int start = request.getReference();
+                int end = start + request.getDataLength();
+                if (!run.isEmpty() && start <= runEnd + maxGap && Math.max(runEnd, end) - runStart <= maxLength) {
+                    run.add(task);
+                    runEnd = Math.max(runEnd, end);
+                    continue;
+                }
+                if (!run.isEmpty()) {
+                    planned.add(merge(run, runStart, runEnd));
+                }
+                run = new ArrayList<>();
+                run.add(task);
+                runStart = start;
+                runEnd = end;
+            }
+            planned.add(merge(run, runStart, runEnd));
+        }
+        return planned;
+    }
+
+    private static PollTask merge(List<PollTask> run, int start, int end) {
+        PollTask first = run.get(0);
+        if (run.size() == 1) {
+            return first;
+        }
+        ModbusReadRequestBlueprint firstRequest = first.getRequest();
+        int maxTries = run.stream().mapToInt(task -> task.getMaxTries()).max().orElse(1);
+        BasicModbusReadRequestBlueprint request = new BasicModbusReadRequestBlueprint(firstRequest.getUnitID(),
+                firstRequest.getFunctionCode(), start, end - start, maxTries, firstRequest.getProtocolID());
+        return new CoalescedPollTask(first.getEndpoint(), request, run);
+    }
+}
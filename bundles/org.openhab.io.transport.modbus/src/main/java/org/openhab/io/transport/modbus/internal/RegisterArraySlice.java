@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.io.transport.modbus.ModbusRegister;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+
+/**
+ * Read-only view to a contiguous range of another {@link ModbusRegisterArray}
+ *
+ * No data is copied, registers are read from the wrapped array.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class RegisterArraySlice implements ModbusRegisterArray {
+
+    private final ModbusRegisterArray wrapped;
+    private final int offset;
+    private final int length;
+
+    /**
+     * Construct view to the wrapped array
+     *
+     * @param wrapped array to wrap
+     * @param offset index of the first register in the wrapped array
+     * @param length number of registers in the view
+     * @throws IndexOutOfBoundsException when the view would not fit the wrapped array
+     */
+    public RegisterArraySlice(ModbusRegisterArray wrapped, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > wrapped.size()) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Slice with offset=%d and length=%d does not fit registers of size %d", offset, length,
+                    wrapped.size()));
+        }
+        this.wrapped = wrapped;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public ModbusRegister getRegister(int index) {
+        return wrapped.getRegister(checkIndex(index));
+    }
+
+    @Override
+    public int getUnsignedShort(int index) {
+        return wrapped.getUnsignedShort(checkIndex(index));
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(String.format("Index %d out of bounds, size %d", index, length));
+        }
+        return offset + index;
+    }
+
+    @Override
+    public String toString() {
+        if (length == 0) {
+            return "RegisterArraySlice(<empty>)";
+        }
+        StringBuffer buffer = new StringBuffer(length * 2).append("RegisterArraySlice(");
+        return appendHexString(buffer).append(')').toString();
+    }
+}
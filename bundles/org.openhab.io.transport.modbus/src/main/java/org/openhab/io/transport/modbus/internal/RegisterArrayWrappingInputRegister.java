@@ -16,6 +16,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.io.transport.modbus.ModbusRegister;
 import org.openhab.io.transport.modbus.ModbusRegisterArray;
 
@@ -62,7 +63,8 @@ public class RegisterArrayWrappingInputRegister implements ModbusRegisterArray {
     }
 
     private InputRegister[] wrapped;
-    private Map<Integer, ModbusRegister> cache = new HashMap<>();
+    // Created on first use, most responses are only decoded through getUnsignedShort
+    private @Nullable Map<Integer, ModbusRegister> cache;
 
     public RegisterArrayWrappingInputRegister(InputRegister[] wrapped) {
         this.wrapped = wrapped;
@@ -70,9 +72,19 @@ public class RegisterArrayWrappingInputRegister implements ModbusRegisterArray {
 
     @Override
     public ModbusRegister getRegister(int index) {
+        Map<Integer, ModbusRegister> cache = this.cache;
+        if (cache == null) {
+            cache = new HashMap<>();
+            this.cache = cache;
+        }
         return cache.computeIfAbsent(index, i -> new RegisterReference(i));
     }
 
+    @Override
+    public int getUnsignedShort(int index) {
+        return wrapped[index].toUnsignedShort();
+    }
+
     @Override
     public int size() {
         return wrapped.length;
@@ -37,6 +37,7 @@ import org.openhab.io.transport.modbus.ModbusBitUtilities;
 import org.openhab.io.transport.modbus.ModbusConstants.ValueType;
 import org.openhab.io.transport.modbus.ModbusRegister;
 import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.ModbusRegisterDecoder;
 
 @RunWith(Parameterized.class)
 public class BitUtilitiesExtractStateFromRegistersTest {
@@ -398,4 +399,20 @@ public class BitUtilitiesExtractStateFromRegistersTest {
         assertThat(String.format("registers=%s, index=%d, type=%s", registers, index, type), actualState,
                 is(equalTo(expectedStateWrapped)));
     }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void testCompiledDecoder() {
+        if (expectedResult instanceof Class && Exception.class.isAssignableFrom((Class) expectedResult)) {
+            shouldThrow.expect((Class) expectedResult);
+        }
+
+        ModbusRegisterDecoder decoder = ModbusRegisterDecoder.compile(this.index, this.type);
+        Optional<@NonNull DecimalType> actualState = Optional.ofNullable(decoder.decode(this.registers));
+        Optional<@NonNull DecimalType> expectedStateWrapped = expectedResult instanceof DecimalType
+                ? Optional.of((DecimalType) expectedResult)
+                : (Optional<@NonNull DecimalType>) expectedResult;
+        assertThat(String.format("registers=%s, index=%d, type=%s", registers, index, type), actualState,
+                is(equalTo(expectedStateWrapped)));
+    }
 }
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.openhab.io.transport.modbus.ModbusEndpointMetrics;
+import org.openhab.io.transport.modbus.ModbusEndpointMetrics.Phase;
+import org.openhab.io.transport.modbus.internal.EndpointMetricsRecorder;
+
+public class EndpointMetricsRecorderTest {
+
+    @Test
+    public void testEmpty() {
+        ModbusEndpointMetrics metrics = new EndpointMetricsRecorder().snapshot(1, 2, 3, 4);
+        assertThat(metrics.getSampleCount(), is(equalTo(0)));
+        assertThat(metrics.getLatencyMillis(Phase.TRANSACTION, 0.5), is(equalTo(0L)));
+        assertThat(metrics.getErrorRate(), is(equalTo(0.0)));
+        assertThat(metrics.getIdleConnections(), is(equalTo(1)));
+        assertThat(metrics.getActiveConnections(), is(equalTo(2)));
+        assertThat(metrics.getPendingOperations(), is(equalTo(3)));
+        assertThat(metrics.getSchedulerQueueSize(), is(equalTo(4)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        EndpointMetricsRecorder recorder = new EndpointMetricsRecorder();
+        // transaction times 1..100 ms, in reverse order
+        for (int i = 100; i >= 1; i--) {
+            recorder.record(2 * i, i, 0, i % 10 == 0);
+        }
+        ModbusEndpointMetrics metrics = recorder.snapshot(0, 0, 0, 0);
+        assertThat(metrics.getSampleCount(), is(equalTo(100)));
+        assertThat(metrics.getLatencyMillis(Phase.TRANSACTION, 0.5), is(equalTo(50L)));
+        assertThat(metrics.getLatencyMillis(Phase.TRANSACTION, 0.99), is(equalTo(99L)));
+        assertThat(metrics.getLatencyMillis(Phase.TRANSACTION, 1), is(equalTo(100L)));
+        assertThat(metrics.getLatencyMillis(Phase.TRANSACTION, 0), is(equalTo(1L)));
+        assertThat(metrics.getLatencyMillis(Phase.CONNECTION, 0.5), is(equalTo(100L)));
+        assertThat(metrics.getLatencyMillis(Phase.CALLBACK, 0.99), is(equalTo(0L)));
+        assertThat(metrics.getErrorRate(), is(equalTo(0.1)));
+        assertThat(metrics.getOperationCount(), is(equalTo(100L)));
+        assertThat(metrics.getErrorCount(), is(equalTo(10L)));
+    }
+
+    @Test
+    public void testWindowOnlyContainsRecentOperations() {
+        EndpointMetricsRecorder recorder = new EndpointMetricsRecorder();
+        for (int i = 0; i < EndpointMetricsRecorder.WINDOW_SIZE; i++) {
+            recorder.record(0, 1000, 0, true);
+        }
+        for (int i = 0; i < EndpointMetricsRecorder.WINDOW_SIZE; i++) {
+            recorder.record(0, 5, 0, false);
+        }
+        ModbusEndpointMetrics metrics = recorder.snapshot(0, 0, 0, 0);
+        assertThat(metrics.getSampleCount(), is(equalTo(EndpointMetricsRecorder.WINDOW_SIZE)));
+        assertThat(metrics.getLatencyMillis(Phase.TRANSACTION, 0.99), is(equalTo(5L)));
+        assertThat(metrics.getErrorRate(), is(equalTo(0.0)));
+        // counters are cumulative
+        assertThat(metrics.getOperationCount(), is(equalTo(2L * EndpointMetricsRecorder.WINDOW_SIZE)));
+        assertThat(metrics.getErrorCount(), is(equalTo((long) EndpointMetricsRecorder.WINDOW_SIZE)));
+    }
+
+    @Test
+    public void testPendingOperations() {
+        EndpointMetricsRecorder recorder = new EndpointMetricsRecorder();
+        recorder.operationStarted();
+        recorder.operationStarted();
+        recorder.operationFinished();
+        assertThat(recorder.snapshot(0, 0, 5, 0).getPendingOperations(), is(equalTo(6)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQuantile() {
+        new EndpointMetricsRecorder().snapshot(0, 0, 0, 0).getLatencyMillis(Phase.TRANSACTION, 1.5);
+    }
+}
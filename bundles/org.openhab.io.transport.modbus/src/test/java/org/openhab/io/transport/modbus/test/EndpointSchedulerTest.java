@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.io.transport.modbus.BasicModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.BasicPollTaskImpl;
+import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
+import org.openhab.io.transport.modbus.internal.EndpointMetricsRecorder;
+import org.openhab.io.transport.modbus.internal.EndpointScheduler;
+import org.openhab.io.transport.modbus.internal.EndpointScheduler.Priority;
+
+public class EndpointSchedulerTest {
+
+    private final ModbusTCPSlaveEndpoint endpoint = new ModbusTCPSlaveEndpoint("localhost", 502);
+    private final List<Runnable> executorQueue = new ArrayList<>();
+    private final List<Object> executed = new ArrayList<>();
+    private final EndpointMetricsRecorder metrics = new EndpointMetricsRecorder();
+    private boolean batch;
+    private EndpointScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        // Executor only collecting the tasks, these are run explicitly by the tests
+        scheduler = new EndpointScheduler(executorQueue::add, tasks -> executed.add(new ArrayList<>(tasks)),
+                () -> batch, metrics);
+    }
+
+    private PollTask pollTask(int start) {
+        return new BasicPollTaskImpl(endpoint,
+                new BasicModbusReadRequestBlueprint(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, start, 1, 1),
+                null);
+    }
+
+    private void runExecutor() {
+        while (!executorQueue.isEmpty()) {
+            executorQueue.remove(0).run();
+        }
+    }
+
+    @Test
+    public void testWritesFirstThenPollsByDeadline() {
+        long now = System.currentTimeMillis();
+        PollTask poll1 = pollTask(1);
+        PollTask poll2 = pollTask(2);
+        scheduler.submitRegularPoll(poll1, now + 2000);
+        scheduler.submitRegularPoll(poll2, now + 1000);
+        scheduler.submit(Priority.ONE_OFF_POLL, () -> executed.add("refresh"));
+        scheduler.submit(Priority.WRITE, () -> executed.add("write"));
+        // single thread drains all the queued operations
+        assertThat(executorQueue.size(), is(equalTo(1)));
+        assertThat(scheduler.size(), is(equalTo(4)));
+
+        runExecutor();
+
+        assertThat(executed, is(equalTo(Arrays.<Object> asList("write", "refresh", Collections.singletonList(poll2),
+                Collections.singletonList(poll1)))));
+        assertThat(scheduler.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testRegularPollsBatched() {
+        long now = System.currentTimeMillis();
+        PollTask poll1 = pollTask(1);
+        PollTask poll2 = pollTask(2);
+        batch = true;
+        scheduler.submitRegularPoll(poll1, now + 2000);
+        scheduler.submitRegularPoll(poll2, now + 1000);
+        scheduler.submit(Priority.WRITE, () -> executed.add("write"));
+
+        runExecutor();
+
+        assertThat(executed, is(equalTo(Arrays.<Object> asList("write", Arrays.asList(poll2, poll1)))));
+    }
+
+    @Test
+    public void testPollSkippedWhenPreviousStillQueued() {
+        long now = System.currentTimeMillis();
+        PollTask poll = pollTask(1);
+        assertTrue(scheduler.submitRegularPoll(poll, now + 1000));
+        assertFalse(scheduler.submitRegularPoll(poll, now + 2000));
+        runExecutor();
+        assertThat(executed, is(equalTo(Arrays.<Object> asList(Collections.singletonList(poll)))));
+        assertThat(metrics.snapshot(0, 0, 0, 0).getSkippedPollCount(), is(equalTo(1L)));
+
+        // After execution, the poll can be queued again
+        assertTrue(scheduler.submitRegularPoll(poll, now + 3000));
+    }
+
+    @Test
+    public void testMissedDeadline() {
+        long now = System.currentTimeMillis();
+        scheduler.submitRegularPoll(pollTask(1), now - 1);
+        scheduler.submitRegularPoll(pollTask(2), now + 60_000);
+        runExecutor();
+        assertThat(executed.size(), is(equalTo(2)));
+        assertThat(metrics.snapshot(0, 0, 0, 0).getMissedDeadlineCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testRemove() {
+        PollTask poll = pollTask(1);
+        scheduler.submitRegularPoll(poll, System.currentTimeMillis() + 1000);
+        assertTrue(scheduler.remove(poll));
+        assertFalse(scheduler.remove(poll));
+        runExecutor();
+        assertThat(executed.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testErrorInOperationDoesNotStopDraining() {
+        scheduler.submit(Priority.WRITE, () -> {
+            throw new IllegalStateException("test");
+        });
+        scheduler.submit(Priority.WRITE, () -> executed.add("write"));
+        runExecutor();
+        assertThat(executed, is(equalTo(Arrays.<Object> asList("write"))));
+    }
+
+    @Test
+    public void testFutureCompletesWhenOperationExecuted() {
+        ScheduledFuture<?> future = scheduler.submit(Priority.ONE_OFF_POLL, () -> executed.add("refresh"));
+        assertFalse(future.isDone());
+        runExecutor();
+        assertTrue(future.isDone());
+        assertFalse(future.isCancelled());
+        assertThat(executed, is(equalTo(Arrays.<Object> asList("refresh"))));
+    }
+
+    @Test
+    public void testCancelRemovesQueuedOperation() {
+        ScheduledFuture<?> future = scheduler.submit(Priority.WRITE, () -> executed.add("write"));
+        scheduler.submit(Priority.ONE_OFF_POLL, () -> executed.add("refresh"));
+        assertTrue(future.cancel(false));
+        assertThat(scheduler.size(), is(equalTo(1)));
+        runExecutor();
+        assertThat(executed, is(equalTo(Arrays.<Object> asList("refresh"))));
+    }
+
+    @Test
+    public void testClearCancelsQueuedOperations() {
+        ScheduledFuture<?> future = scheduler.submit(Priority.WRITE, () -> executed.add("write"));
+        scheduler.clear();
+        assertTrue(future.isCancelled());
+        runExecutor();
+        assertThat(executed.size(), is(equalTo(0)));
+    }
+}
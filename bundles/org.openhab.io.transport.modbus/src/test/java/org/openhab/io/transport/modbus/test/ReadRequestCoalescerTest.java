@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.Test;
+import org.openhab.io.transport.modbus.BasicBitArray;
+import org.openhab.io.transport.modbus.BasicModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.BasicModbusRegisterArray;
+import org.openhab.io.transport.modbus.BasicPollTaskImpl;
+import org.openhab.io.transport.modbus.BitArray;
+import org.openhab.io.transport.modbus.ModbusReadCallback;
+import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
+import org.openhab.io.transport.modbus.internal.CoalescedPollTask;
+import org.openhab.io.transport.modbus.internal.ModbusSlaveErrorResponseExceptionImpl;
+import org.openhab.io.transport.modbus.internal.ReadRequestCoalescer;
+
+import net.wimpi.modbus.ModbusSlaveException;
+
+public class ReadRequestCoalescerTest {
+
+    @NonNullByDefault
+    private static class RecordingCallback implements ModbusReadCallback {
+        final List<Object> received = new ArrayList<>();
+
+        @Override
+        public void onRegisters(ModbusReadRequestBlueprint request, ModbusRegisterArray registers) {
+            received.add(request);
+            received.add(registers.toHexString());
+        }
+
+        @Override
+        public void onBits(ModbusReadRequestBlueprint request, BitArray bits) {
+            received.add(request);
+            received.add(bits.toBinaryString());
+        }
+
+        @Override
+        public void onError(ModbusReadRequestBlueprint request, Exception error) {
+            received.add(request);
+            received.add(error);
+        }
+    }
+
+    private final ModbusSlaveEndpoint endpoint = new ModbusTCPSlaveEndpoint("127.0.0.1", 502);
+
+    private PollTask task(ModbusSlaveEndpoint endpoint, int unitId, ModbusReadFunctionCode functionCode, int start,
+            int length, ModbusReadCallback callback) {
+        return new BasicPollTaskImpl(endpoint,
+                new BasicModbusReadRequestBlueprint(unitId, functionCode, start, length, 1), callback);
+    }
+
+    private PollTask registerTask(int start, int length, ModbusReadCallback callback) {
+        return task(endpoint, 1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, start, length, callback);
+    }
+
+    @Test
+    public void testOverlappingAndAdjacentRequestsAreMerged() {
+        RecordingCallback callback = new RecordingCallback();
+        PollTask first = registerTask(5, 3, callback);
+        PollTask second = registerTask(0, 5, callback);
+        PollTask third = registerTask(6, 4, callback);
+
+        List<PollTask> planned = ReadRequestCoalescer.plan(Arrays.asList(first, second, third), 0);
+
+        assertThat(planned.size(), is(equalTo(1)));
+        assertThat(planned.get(0), is(instanceOf(CoalescedPollTask.class)));
+        ModbusReadRequestBlueprint request = planned.get(0).getRequest();
+        assertThat(request.getReference(), is(equalTo(0)));
+        assertThat(request.getDataLength(), is(equalTo(10)));
+        assertThat(((CoalescedPollTask) planned.get(0)).getTasks(), is(equalTo(Arrays.asList(second, first, third))));
+    }
+
+    @Test
+    public void testGapRespected() {
+        RecordingCallback callback = new RecordingCallback();
+        PollTask first = registerTask(0, 2, callback);
+        PollTask second = registerTask(5, 2, callback);
+
+        assertThat(ReadRequestCoalescer.plan(Arrays.asList(first, second), 2),
+                is(equalTo(Arrays.asList(first, second))));
+
+        List<PollTask> planned = ReadRequestCoalescer.plan(Arrays.asList(first, second), 3);
+        assertThat(planned.size(), is(equalTo(1)));
+        assertThat(planned.get(0).getRequest().getReference(), is(equalTo(0)));
+        assertThat(planned.get(0).getRequest().getDataLength(), is(equalTo(7)));
+    }
+
+    @Test
+    public void testDifferentUnitOrFunctionCodeOrEndpointNotMerged() {
+        RecordingCallback callback = new RecordingCallback();
+        PollTask first = registerTask(0, 2, callback);
+        PollTask otherUnit = task(endpoint, 2, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2, callback);
+        PollTask otherFunctionCode = task(endpoint, 1, ModbusReadFunctionCode.READ_INPUT_REGISTERS, 2, 2, callback);
+        PollTask otherEndpoint = task(new ModbusTCPSlaveEndpoint("127.0.0.2", 502), 1,
+                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2, callback);
+
+        List<PollTask> tasks = Arrays.asList(first, otherUnit, otherFunctionCode, otherEndpoint);
+        assertThat(ReadRequestCoalescer.plan(tasks, 10), is(equalTo(tasks)));
+    }
+
+    @Test
+    public void testMaxPduSizeRespected() {
+        RecordingCallback callback = new RecordingCallback();
+        PollTask first = registerTask(0, 100, callback);
+        PollTask second = registerTask(100, 25, callback);
+        PollTask third = registerTask(125, 1, callback);
+
+        List<PollTask> planned = ReadRequestCoalescer.plan(Arrays.asList(first, second, third), 0);
+        assertThat(planned.size(), is(equalTo(2)));
+        assertThat(planned.get(0).getRequest().getDataLength(),
+                is(equalTo(ReadRequestCoalescer.MAX_REGISTERS_PER_READ)));
+        assertThat(planned.get(1), is(equalTo(third)));
+    }
+
+    @Test
+    public void testRegistersFannedOut() {
+        RecordingCallback callback1 = new RecordingCallback();
+        RecordingCallback callback2 = new RecordingCallback();
+        PollTask first = registerTask(10, 2, callback1);
+        PollTask second = registerTask(13, 1, callback2);
+
+        PollTask planned = ReadRequestCoalescer.plan(Arrays.asList(first, second), 1).get(0);
+        planned.getCallback().onRegisters(planned.getRequest(), new BasicModbusRegisterArray(1, 2, 3, 4));
+
+        assertThat(callback1.received, is(equalTo(Arrays.asList(first.getRequest(), "00 01 00 02"))));
+        assertThat(callback2.received, is(equalTo(Arrays.asList(second.getRequest(), "00 04"))));
+    }
+
+    @Test
+    public void testBitsFannedOut() {
+        RecordingCallback callback1 = new RecordingCallback();
+        RecordingCallback callback2 = new RecordingCallback();
+        PollTask first = task(endpoint, 1, ModbusReadFunctionCode.READ_COILS, 0, 2, callback1);
+        PollTask second = task(endpoint, 1, ModbusReadFunctionCode.READ_COILS, 1, 3, callback2);
+
+        PollTask planned = ReadRequestCoalescer.plan(Arrays.asList(first, second), 0).get(0);
+        planned.getCallback().onBits(planned.getRequest(), new BasicBitArray(true, false, true, true));
+
+        assertThat(callback1.received, is(equalTo(Arrays.asList(first.getRequest(), "10"))));
+        assertThat(callback2.received, is(equalTo(Arrays.asList(second.getRequest(), "011"))));
+    }
+
+    @Test
+    public void testErrorFannedOut() {
+        RecordingCallback callback1 = new RecordingCallback();
+        RecordingCallback callback2 = new RecordingCallback();
+        PollTask first = registerTask(0, 1, callback1);
+        PollTask second = registerTask(1, 1, callback2);
+        Exception error = new Exception("test");
+
+        PollTask planned = ReadRequestCoalescer.plan(Arrays.asList(first, second), 0).get(0);
+        planned.getCallback().onError(planned.getRequest(), error);
+
+        assertThat(callback1.received, is(equalTo(Arrays.asList(first.getRequest(), error))));
+        assertThat(callback2.received, is(equalTo(Arrays.asList(second.getRequest(), error))));
+    }
+
+    @Test
+    public void testProtocolIdKept() {
+        RecordingCallback callback = new RecordingCallback();
+        PollTask first = new BasicPollTaskImpl(endpoint,
+                new BasicModbusReadRequestBlueprint(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 2, 1, 5),
+                callback);
+        PollTask second = new BasicPollTaskImpl(endpoint,
+                new BasicModbusReadRequestBlueprint(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2, 1, 5),
+                callback);
+        PollTask otherProtocol = registerTask(4, 2, callback);
+
+        List<PollTask> planned = ReadRequestCoalescer.plan(Arrays.asList(first, second, otherProtocol), 0);
+        assertThat(planned.size(), is(equalTo(2)));
+        assertThat(planned.get(0).getRequest().getProtocolID(), is(equalTo(5)));
+        assertThat(planned.get(0).getRequest().getDataLength(), is(equalTo(4)));
+        assertThat(planned.get(1), is(equalTo(otherProtocol)));
+    }
+
+    @Test
+    public void testExceptionResponseRequiresSplit() {
+        RecordingCallback callback1 = new RecordingCallback();
+        RecordingCallback callback2 = new RecordingCallback();
+        PollTask first = registerTask(0, 1, callback1);
+        PollTask second = registerTask(3, 1, callback2);
+
+        CoalescedPollTask planned = (CoalescedPollTask) ReadRequestCoalescer.plan(Arrays.asList(first, second), 2)
+                .get(0);
+        assertThat(planned.isSplitRequired(), is(false));
+        planned.getCallback().onError(planned.getRequest(),
+                new ModbusSlaveErrorResponseExceptionImpl(new ModbusSlaveException(2)));
+
+        // Original tasks are executed one by one, and only those report their outcome
+        assertThat(planned.isSplitRequired(), is(true));
+        assertThat(callback1.received.isEmpty(), is(true));
+        assertThat(callback2.received.isEmpty(), is(true));
+    }
+}
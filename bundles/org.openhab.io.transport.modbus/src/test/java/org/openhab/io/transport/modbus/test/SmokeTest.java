@@ -907,4 +907,100 @@ public class SmokeTest extends IntegrationTestSupport {
                 is(equalTo(Stream.of(task2).collect(Collectors.toSet()))));
 
     }
+
+    private ModbusReadCallback holdingValuesCallback(int offsetInRegisters, int length, AtomicInteger unexpectedCount,
+            CountDownLatch callbackCalled) {
+        return new ModbusReadCallback() {
+
+            @Override
+            public void onRegisters(ModbusReadRequestBlueprint request, ModbusRegisterArray registers) {
+                try {
+                    assertThat(registers.size(), is(equalTo(length)));
+                    testHoldingValues(registers, offsetInRegisters);
+                } catch (AssertionError e) {
+                    unexpectedCount.incrementAndGet();
+                }
+                callbackCalled.countDown();
+            }
+
+            @Override
+            public void onError(ModbusReadRequestBlueprint request, Exception error) {
+                unexpectedCount.incrementAndGet();
+                callbackCalled.countDown();
+            }
+
+            @Override
+            public void onBits(ModbusReadRequestBlueprint request, BitArray bits) {
+                unexpectedCount.incrementAndGet();
+                callbackCalled.countDown();
+            }
+        };
+    }
+
+    /**
+     * Several regular polls of the same endpoint, with transactions pipelined over single connection
+     *
+     * The endpoint is kept busy with a one-off poll until all the regular polls are queued, so that the regular polls
+     * are executed together.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void testRegularReadsPipelined() throws InterruptedException {
+        generateData();
+        ModbusSlaveEndpoint endpoint = getEndpoint();
+        EndpointPoolConfiguration configuration = new EndpointPoolConfiguration();
+        configuration.setPipelineWindow(4);
+        modbusManager.setEndpointPoolConfiguration(endpoint, configuration);
+
+        CountDownLatch blockingPollStarted = new CountDownLatch(1);
+        CountDownLatch releaseBlockingPoll = new CountDownLatch(1);
+        modbusManager.submitOneTimePoll(new BasicPollTaskImpl(endpoint,
+                new BasicModbusReadRequestBlueprint(SLAVE_UNIT_ID, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0,
+                        1, 1),
+                new ModbusReadCallback() {
+
+                    @Override
+                    public void onRegisters(ModbusReadRequestBlueprint request, ModbusRegisterArray registers) {
+                        blockingPollStarted.countDown();
+                        try {
+                            releaseBlockingPoll.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+
+                    @Override
+                    public void onError(ModbusReadRequestBlueprint request, Exception error) {
+                        blockingPollStarted.countDown();
+                    }
+
+                    @Override
+                    public void onBits(ModbusReadRequestBlueprint request, BitArray bits) {
+                        blockingPollStarted.countDown();
+                    }
+                }));
+        assertTrue(blockingPollStarted.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger unexpectedCount = new AtomicInteger();
+        CountDownLatch callbackCalled = new CountDownLatch(3);
+        for (int start : new int[] { 1, 20, 40 }) {
+            BasicPollTaskImpl task = new BasicPollTaskImpl(endpoint,
+                    new BasicModbusReadRequestBlueprint(SLAVE_UNIT_ID, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS,
+                            start, 10, 1),
+                    holdingValuesCallback(start, 10, unexpectedCount, callbackCalled));
+            modbusManager.registerRegularPoll(task, 60000, 0);
+        }
+        // blocking one-off poll and the three queued regular polls
+        for (int i = 0; i < 100 && modbusManager.getEndpointMetrics(endpoint).getPendingOperations() < 4; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(modbusManager.getEndpointMetrics(endpoint).getPendingOperations(), is(equalTo(4)));
+        releaseBlockingPoll.countDown();
+
+        assertTrue(callbackCalled.await(5, TimeUnit.SECONDS));
+        assertThat(unexpectedCount.get(), is(equalTo(0)));
+        // Second and third request are written while the first one is still in flight
+        assertThat(modbusManager.getEndpointMetrics(endpoint).getPipelinedTransactionCount(), is(equalTo(2L)));
+    }
 }
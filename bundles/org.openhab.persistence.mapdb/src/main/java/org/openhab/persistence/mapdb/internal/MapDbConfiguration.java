@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configuration of the MapDB persistence service, read from the <tt>org.openhab.mapdb</tt> configuration.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbConfiguration {
+
+    private static final String COMMIT_INTERVAL = "commitInterval";
+    private static final String COMMIT_BATCH_SIZE = "commitBatchSize";
+    private static final String HISTORY_SIZE = "historySize";
+    private static final String ITEM_HISTORY_SIZE_PREFIX = HISTORY_SIZE + ".";
+
+    private final Logger logger = LoggerFactory.getLogger(MapDbConfiguration.class);
+
+    /**
+     * Maximum time in milliseconds a stored state is kept in memory before it is committed to the database. Zero
+     * disables buffering, committing every state when it is stored.
+     */
+    private long commitInterval = 1000;
+
+    /**
+     * Number of buffered items triggering a commit before the commit interval has passed
+     */
+    private int commitBatchSize = 500;
+
+    /**
+     * Default maximum number of states kept per item in the history. Zero disables the history, only keeping the last
+     * state.
+     */
+    private int historySize = 0;
+
+    /**
+     * Maximum number of states kept in the history by item name, overriding {@link #historySize}
+     */
+    private final Map<String, Integer> itemHistorySizes = new HashMap<>();
+
+    public MapDbConfiguration(@Nullable Map<String, Object> properties) {
+        if (properties == null) {
+            return;
+        }
+        commitInterval = Math.max(0, getLong(properties, COMMIT_INTERVAL, commitInterval));
+        commitBatchSize = (int) Math.max(1, getLong(properties, COMMIT_BATCH_SIZE, commitBatchSize));
+        historySize = getHistorySize(properties, HISTORY_SIZE, historySize);
+        for (String key : properties.keySet()) {
+            if (key.startsWith(ITEM_HISTORY_SIZE_PREFIX) && key.length() > ITEM_HISTORY_SIZE_PREFIX.length()) {
+                itemHistorySizes.put(key.substring(ITEM_HISTORY_SIZE_PREFIX.length()),
+                        getHistorySize(properties, key, historySize));
+            }
+        }
+    }
+
+    public long getCommitInterval() {
+        return commitInterval;
+    }
+
+    public int getCommitBatchSize() {
+        return commitBatchSize;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    /**
+     * Get the maximum number of states kept in the history of an item
+     *
+     * @param name item name or alias
+     * @return maximum number of states, zero if no history is kept for the item
+     */
+    public int getHistorySize(String name) {
+        return itemHistorySizes.getOrDefault(name, historySize);
+    }
+
+    public boolean isHistoryEnabled() {
+        return historySize > 0 || itemHistorySizes.values().stream().anyMatch(size -> size > 0);
+    }
+
+    private int getHistorySize(Map<String, Object> properties, String key, int defaultValue) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, getLong(properties, key, defaultValue)));
+    }
+
+    private long getLong(Map<String, Object> properties, String key, long defaultValue) {
+        Object value = properties.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' for configuration parameter '{}', using default {}", value, key,
+                    defaultValue);
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MapDbConfiguration [commitInterval=" + commitInterval + ", commitBatchSize=" + commitBatchSize
+                + ", historySize=" + historySize + ", itemHistorySizes=" + itemHistorySizes + "]";
+    }
+}
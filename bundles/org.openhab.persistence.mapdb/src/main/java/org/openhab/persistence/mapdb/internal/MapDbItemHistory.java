@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.ToIntFunction;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Operator;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.types.State;
+import org.mapdb.Fun;
+
+/**
+ * History of item states, keeping a bounded number of the latest states of every item. The bound is configured per
+ * item, items with a bound of zero have no history.
+ *
+ * Records are keyed by item name and timestamp, so that the states of an item are stored next to each other and in
+ * chronological order in the underlying BTree. Time ranges, ordering and paging of queries are thus served by
+ * iterating only the requested part of the tree.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemHistory {
+
+    private final NavigableMap<Fun.Tuple2<String, Long>, byte[]> records;
+
+    private final MapDbItemSerializer serializer;
+
+    private final ToIntFunction<String> maxSize;
+
+    /**
+     * Number of records by item name, initialized lazily from the records
+     */
+    private final Map<String, Integer> sizes = new HashMap<>();
+
+    /**
+     * @param records records of the history
+     * @param serializer serializer for the records
+     * @param maxSize maximum number of states kept by item name
+     */
+    public MapDbItemHistory(NavigableMap<Fun.Tuple2<String, Long>, byte[]> records, MapDbItemSerializer serializer,
+            ToIntFunction<String> maxSize) {
+        this.records = records;
+        this.serializer = serializer;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Add state to the history of the item, removing the oldest states of the item exceeding the maximum size.
+     *
+     * A state with the same timestamp as an earlier state of the item replaces the earlier state.
+     *
+     * @param item item state to add
+     */
+    public synchronized void add(MapDbItem item) {
+        String name = item.getName();
+        int maxSize = this.maxSize.applyAsInt(name);
+        if (maxSize <= 0) {
+            // States kept before the history of the item was disabled are removed as well
+            getRecords(name).clear();
+            sizes.remove(name);
+            return;
+        }
+        int size = sizes.computeIfAbsent(name, key -> getRecords(key).size());
+        if (records.put(Fun.t2(name, item.getTimestamp().getTime()), serializer.serialize(item)) == null) {
+            size++;
+        }
+        if (size > maxSize) {
+            Iterator<Fun.Tuple2<String, Long>> oldest = getRecords(name).keySet().iterator();
+            while (size > maxSize && oldest.hasNext()) {
+                oldest.next();
+                oldest.remove();
+                size--;
+            }
+        }
+        sizes.put(name, size);
+    }
+
+    /**
+     * Check whether the history holds any states of the item
+     *
+     * @param name item name
+     * @return true if there are states of the item
+     */
+    public boolean contains(String name) {
+        return !getRecords(name).isEmpty();
+    }
+
+    /**
+     * Query the history of an item
+     *
+     * @param name item name
+     * @param filter filter criteria for the time range, state, ordering and paging of the result
+     * @return matching states
+     */
+    public List<HistoricItem> query(String name, FilterCriteria filter) {
+        return query(name, filter, Collections.emptyList());
+    }
+
+    /**
+     * Query the history of an item, including states not yet added to the history.
+     *
+     * The pending states are merged with the kept states in memory, as if they had been added. A pending state
+     * replaces a kept state with the same timestamp.
+     *
+     * @param name item name
+     * @param filter filter criteria for the time range, state, ordering and paging of the result
+     * @param pendingItems states not yet added to the history, of any item
+     * @return matching states
+     */
+    public List<HistoricItem> query(String name, FilterCriteria filter, Collection<MapDbItem> pendingItems) {
+        @Nullable
+        Date beginDate = filter.getBeginDate();
+        @Nullable
+        Date endDate = filter.getEndDate();
+        long begin = beginDate == null ? Long.MIN_VALUE : beginDate.getTime();
+        long end = endDate == null ? Long.MAX_VALUE : endDate.getTime();
+        if (begin > end) {
+            return new ArrayList<>();
+        }
+
+        // Records or pending items by timestamp
+        NavigableMap<Long, Object> states = new TreeMap<>();
+        for (MapDbItem item : pendingItems) {
+            if (name.equals(item.getName())) {
+                states.put(item.getTimestamp().getTime(), item);
+            }
+        }
+        Collection<?> range;
+        if (states.isEmpty()) {
+            // Only the requested part of the tree is read
+            NavigableMap<Fun.Tuple2<String, Long>, byte[]> records = this.records.subMap(Fun.t2(name, begin), true,
+                    Fun.t2(name, end), true);
+            range = filter.getOrdering() == Ordering.DESCENDING ? records.descendingMap().values() : records.values();
+        } else {
+            getRecords(name).forEach((key, record) -> states.putIfAbsent(key.b, record));
+            // Pending states push out the oldest ones, like when they are added
+            int maxSize = this.maxSize.applyAsInt(name);
+            while (states.size() > maxSize) {
+                states.pollFirstEntry();
+            }
+            NavigableMap<Long, Object> statesInRange = states.subMap(begin, true, end, true);
+            range = filter.getOrdering() == Ordering.DESCENDING ? statesInRange.descendingMap().values()
+                    : statesInRange.values();
+        }
+
+        int pageSize = filter.getPageSize();
+        long skip = (long) filter.getPageNumber() * pageSize;
+        List<HistoricItem> result = new ArrayList<>();
+        for (Object state : range) {
+            if (result.size() >= pageSize) {
+                break;
+            }
+            @Nullable
+            MapDbItem item = state instanceof MapDbItem ? (MapDbItem) state
+                    : serializer.deserialize(name, (byte[]) state);
+            if (item == null || !matches(filter, item.getState())) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            result.add(item);
+        }
+        return result;
+    }
+
+    private NavigableMap<Fun.Tuple2<String, Long>, byte[]> getRecords(String name) {
+        return records.subMap(Fun.t2(name, Long.MIN_VALUE), true, Fun.t2(name, Long.MAX_VALUE), true);
+    }
+
+    private static boolean matches(FilterCriteria filter, State state) {
+        @Nullable
+        State filterState = filter.getState();
+        if (filterState == null) {
+            return true;
+        }
+        Operator operator = filter.getOperator();
+        if (operator == Operator.EQ) {
+            return state.equals(filterState);
+        }
+        if (operator == Operator.NEQ) {
+            return !state.equals(filterState);
+        }
+        if (!(state instanceof DecimalType) || !(filterState instanceof DecimalType)) {
+            // Only numbers can be ordered
+            return false;
+        }
+        int comparison = ((DecimalType) state).toBigDecimal().compareTo(((DecimalType) filterState).toBigDecimal());
+        switch (operator) {
+            case GT:
+                return comparison > 0;
+            case GTE:
+                return comparison >= 0;
+            case LT:
+                return comparison < 0;
+            case LTE:
+                return comparison <= 0;
+            default:
+                return false;
+        }
+    }
+}
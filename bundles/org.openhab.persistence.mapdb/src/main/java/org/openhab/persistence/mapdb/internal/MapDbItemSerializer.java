@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.library.types.DateTimeType;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.OpenClosedType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.library.types.PlayPauseType;
+import org.eclipse.smarthome.core.library.types.QuantityType;
+import org.eclipse.smarthome.core.library.types.RewindFastforwardType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.library.types.UpDownType;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.TypeParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compact binary encoding of {@link MapDbItem}s.
+ *
+ * The record starts with a format version, followed by the timestamp, a tag identifying the state type and the state
+ * itself. Common state types are encoded in binary form, other types are stored using their class name and
+ * {@link State#toFullString()}, similar to {@link StateTypeAdapter}. Enum states are stored by the name of the
+ * constant, so that records stay valid when constants are added or reordered. The item name is not part of the
+ * record, it is the key of the record in the database.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemSerializer {
+
+    /**
+     * Version of the record format, written as the first byte of every record
+     */
+    public static final byte VERSION = 1;
+
+    private static final byte TAG_GENERIC = 0;
+    private static final byte TAG_DECIMAL = 1;
+    private static final byte TAG_PERCENT = 2;
+    private static final byte TAG_QUANTITY = 3;
+    private static final byte TAG_ON_OFF = 4;
+    private static final byte TAG_OPEN_CLOSED = 5;
+    private static final byte TAG_UP_DOWN = 6;
+    private static final byte TAG_PLAY_PAUSE = 7;
+    private static final byte TAG_REWIND_FASTFORWARD = 8;
+    private static final byte TAG_DATE_TIME = 9;
+    private static final byte TAG_HSB = 10;
+    private static final byte TAG_STRING = 11;
+
+    private final Logger logger = LoggerFactory.getLogger(MapDbItemSerializer.class);
+
+    /**
+     * Encode item
+     *
+     * @param item item to encode
+     * @return binary record
+     */
+    public byte[] serialize(MapDbItem item) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(item.getTimestamp().getTime());
+            writeState(out, item.getState());
+        } catch (IOException e) {
+            // not possible with in-memory stream
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode item
+     *
+     * @param name name of the item, i.e. the key of the record
+     * @param record binary record
+     * @return decoded item, or null if the record could not be decoded
+     */
+    public @Nullable MapDbItem deserialize(String name, byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                logger.warn("Unsupported record version {} for item '{}'", version, name);
+                return null;
+            }
+            Date timestamp = new Date(in.readLong());
+            @Nullable
+            State state = readState(in);
+            if (state == null) {
+                return null;
+            }
+            MapDbItem item = new MapDbItem();
+            item.setName(name);
+            item.setState(state);
+            item.setTimestamp(timestamp);
+            return item;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Couldn't deserialize record of item '{}': {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeState(DataOutputStream out, State state) throws IOException {
+        // Sub classes are checked before their super classes
+        if (state instanceof HSBType) {
+            HSBType hsb = (HSBType) state;
+            out.writeByte(TAG_HSB);
+            writeDecimal(out, hsb.getHue().toBigDecimal());
+            writeDecimal(out, hsb.getSaturation().toBigDecimal());
+            writeDecimal(out, hsb.getBrightness().toBigDecimal());
+        } else if (state instanceof PercentType) {
+            out.writeByte(TAG_PERCENT);
+            writeDecimal(out, ((PercentType) state).toBigDecimal());
+        } else if (state instanceof DecimalType && state.getClass() == DecimalType.class) {
+            out.writeByte(TAG_DECIMAL);
+            writeDecimal(out, ((DecimalType) state).toBigDecimal());
+        } else if (state instanceof QuantityType) {
+            out.writeByte(TAG_QUANTITY);
+            writeString(out, state.toFullString());
+        } else if (state instanceof OnOffType) {
+            out.writeByte(TAG_ON_OFF);
+            writeString(out, ((OnOffType) state).name());
+        } else if (state instanceof OpenClosedType) {
+            out.writeByte(TAG_OPEN_CLOSED);
+            writeString(out, ((OpenClosedType) state).name());
+        } else if (state instanceof UpDownType) {
+            out.writeByte(TAG_UP_DOWN);
+            writeString(out, ((UpDownType) state).name());
+        } else if (state instanceof PlayPauseType) {
+            out.writeByte(TAG_PLAY_PAUSE);
+            writeString(out, ((PlayPauseType) state).name());
+        } else if (state instanceof RewindFastforwardType) {
+            out.writeByte(TAG_REWIND_FASTFORWARD);
+            writeString(out, ((RewindFastforwardType) state).name());
+        } else if (state instanceof DateTimeType) {
+            ZonedDateTime dateTime = ((DateTimeType) state).getZonedDateTime();
+            out.writeByte(TAG_DATE_TIME);
+            out.writeLong(dateTime.toInstant().getEpochSecond());
+            out.writeInt(dateTime.getNano());
+            writeString(out, dateTime.getZone().getId());
+        } else if (state instanceof StringType) {
+            out.writeByte(TAG_STRING);
+            writeString(out, state.toFullString());
+        } else {
+            out.writeByte(TAG_GENERIC);
+            writeString(out, state.getClass().getName());
+            writeString(out, state.toFullString());
+        }
+    }
+
+    private @Nullable State readState(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_PERCENT:
+                return new PercentType(readDecimal(in));
+            case TAG_HSB:
+                return new HSBType(new DecimalType(readDecimal(in)), new PercentType(readDecimal(in)),
+                        new PercentType(readDecimal(in)));
+            case TAG_DECIMAL:
+                return new DecimalType(readDecimal(in));
+            case TAG_QUANTITY:
+                return new QuantityType<>(readString(in));
+            case TAG_ON_OFF:
+                return OnOffType.valueOf(readString(in));
+            case TAG_OPEN_CLOSED:
+                return OpenClosedType.valueOf(readString(in));
+            case TAG_UP_DOWN:
+                return UpDownType.valueOf(readString(in));
+            case TAG_PLAY_PAUSE:
+                return PlayPauseType.valueOf(readString(in));
+            case TAG_REWIND_FASTFORWARD:
+                return RewindFastforwardType.valueOf(readString(in));
+            case TAG_DATE_TIME:
+                Instant instant = Instant.ofEpochSecond(in.readLong(), in.readInt());
+                return new DateTimeType(ZonedDateTime.ofInstant(instant, ZoneId.of(readString(in))));
+            case TAG_STRING:
+                return new StringType(readString(in));
+            case TAG_GENERIC:
+                String className = readString(in);
+                String value = readString(in);
+                try {
+                    @SuppressWarnings("unchecked")
+                    Class<? extends State> valueType = (Class<? extends State>) Class.forName(className);
+                    List<Class<? extends State>> types = Collections.singletonList(valueType);
+                    return TypeParser.parseState(types, value);
+                } catch (ClassNotFoundException e) {
+                    logger.warn("Couldn't deserialize state '{}' of unknown type {}", value, className);
+                    return null;
+                }
+            default:
+                logger.warn("Unknown state type tag {}", tag);
+                return null;
+        }
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(value.scale());
+        out.writeInt(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readInt()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[in.readInt()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
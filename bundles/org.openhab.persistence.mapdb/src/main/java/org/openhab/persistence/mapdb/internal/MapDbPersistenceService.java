@@ -13,13 +13,23 @@
 package org.openhab.persistence.mapdb.internal;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -35,8 +45,10 @@ import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.UnDefType;
+import org.mapdb.BTreeKeySerializer;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
+import org.mapdb.Fun;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,55 +65,146 @@ import com.google.gson.GsonBuilder;
  * @author Martin Kühl - Port to Eclipse SmartHome
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class, QueryablePersistenceService.class })
+@Component(service = { PersistenceService.class,
+        QueryablePersistenceService.class }, configurationPid = "org.openhab.mapdb")
 public class MapDbPersistenceService implements QueryablePersistenceService {
 
     private static final String SERVICE_NAME = "mapdb";
 
-    private static final String DB_FOLDER_NAME = ConfigConstants.getUserDataFolder() + File.separator + "persistence" + File.separator + "mapdb";
+    private static final String DB_FOLDER_NAME = "persistence" + File.separator + "mapdb";
 
     private static final String DB_FILE_NAME = "storage.mapdb";
 
+    /**
+     * Time after the last access the decoded items are released
+     */
+    private static final long ITEMS_CACHE_EXPIRY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
     private final Logger logger = LoggerFactory.getLogger(MapDbPersistenceService.class);
 
     @NonNullByDefault({})
-    private ExecutorService threadPool;
+    private ScheduledExecutorService threadPool;
 
     /** holds the local instance of the MapDB database */
     @NonNullByDefault({})
     private DB db;
+    /**
+     * Records by item name. Values are binary records encoded by {@link MapDbItemSerializer}, or JSON strings written
+     * by earlier versions of this service.
+     */
     @NonNullByDefault({})
-    private Map<String, String> map;
+    private Map<String, Object> map;
+
+    private MapDbConfiguration configuration = new MapDbConfiguration(null);
+
+    /**
+     * Items stored but not yet committed to the database, by alias. Only the latest state of each item is kept.
+     */
+    private final Map<String, MapDbItem> pendingItems = new LinkedHashMap<>();
+
+    /**
+     * Decoded last state of every item by alias. Loaded at once on first access, e.g. when restoring the items on
+     * startup, and kept up to date by stores and commits. Released after {@link #ITEMS_CACHE_EXPIRY_MILLIS} without
+     * access, so that the decoded items are not kept in memory for the lifetime of the service.
+     */
+    private final Map<String, MapDbItem> items = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the items are being loaded or are loaded. Set before the records are read, so that states written
+     * meanwhile are either read by the loader or added to the items by the writer.
+     */
+    private volatile boolean itemsCached;
+
+    private volatile boolean itemsLoaded;
+
+    private volatile long itemsLastAccess;
+
+    private @Nullable ScheduledFuture<?> itemsExpiryJob;
+
+    /**
+     * States stored but not yet committed to the history, in the order they were stored. Guarded by
+     * {@link #pendingItems}.
+     */
+    private final List<MapDbItem> pendingHistory = new ArrayList<>();
+
+    /**
+     * History of item states, null if history is not enabled
+     */
+    private @Nullable MapDbItemHistory history;
+
+    /**
+     * Lock serializing writes of the pending items to the database
+     */
+    private final Object commitLock = new Object();
+
+    /**
+     * Whether a commit has been requested because the batch size was reached, and has not started yet
+     */
+    private final AtomicBoolean commitRequested = new AtomicBoolean();
+
+    private @Nullable ScheduledFuture<?> commitJob;
+
+    private final MapDbItemSerializer serializer = new MapDbItemSerializer();
 
     private transient Gson mapper = new GsonBuilder()
             .registerTypeHierarchyAdapter(State.class, new StateTypeAdapter())
             .create();
 
-    public void activate() {
+    public void activate(@Nullable Map<String, Object> properties) {
         logger.debug("MapDB persistence service is being activated");
 
-        threadPool = ThreadPoolManager.getPool(getClass().getSimpleName());
+        configuration = new MapDbConfiguration(properties);
+        logger.debug("Using configuration {}", configuration);
+        threadPool = ThreadPoolManager.getScheduledPool(getClass().getSimpleName());
 
-        File folder = new File(DB_FOLDER_NAME);
+        File folder = new File(ConfigConstants.getUserDataFolder(), DB_FOLDER_NAME);
         if (!folder.exists()) {
             if (!folder.mkdirs()) {
-                logger.warn("Failed to create one or more directories in the path '{}'", DB_FOLDER_NAME);
+                logger.warn("Failed to create one or more directories in the path '{}'", folder);
                 logger.warn("MapDB persistence service activation has failed.");
                 return;
             }
         }
 
-        File dbFile = new File(DB_FOLDER_NAME, DB_FILE_NAME);
+        File dbFile = new File(folder, DB_FILE_NAME);
         db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
         map = db.createTreeMap("itemStore").makeOrGet();
+        migrateJsonRecords();
+        if (configuration.isHistoryEnabled()) {
+            NavigableMap<Fun.Tuple2<String, Long>, byte[]> records = db.createTreeMap("itemHistory")
+                    .keySerializer(BTreeKeySerializer.TUPLE2).makeOrGet();
+            history = new MapDbItemHistory(records, serializer, configuration::getHistorySize);
+        } else {
+            history = null;
+        }
+        long commitInterval = configuration.getCommitInterval();
+        if (commitInterval > 0) {
+            commitJob = threadPool.scheduleWithFixedDelay(this::commitPendingItems, commitInterval, commitInterval,
+                    TimeUnit.MILLISECONDS);
+        }
         logger.debug("MapDB persistence service is now activated");
     }
 
     public void deactivate() {
         logger.debug("MapDB persistence service deactivated");
+        ScheduledFuture<?> commitJob = this.commitJob;
+        if (commitJob != null) {
+            commitJob.cancel(false);
+            this.commitJob = null;
+        }
         if (db != null) {
+            // Make sure buffered states are not lost on clean shutdown
+            commitPendingItems();
             db.close();
         }
+        synchronized (items) {
+            ScheduledFuture<?> itemsExpiryJob = this.itemsExpiryJob;
+            if (itemsExpiryJob != null) {
+                itemsExpiryJob.cancel(false);
+                this.itemsExpiryJob = null;
+            }
+            releaseItems();
+        }
         threadPool.shutdown();
     }
 
@@ -117,10 +220,9 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
-        return map.values().stream()
-                .map(this::deserialize)
-                .flatMap(MapDbPersistenceService::streamOptional)
-                .collect(Collectors.<PersistenceItemInfo>toSet());
+        Map<String, MapDbItem> result = new HashMap<>(getItems());
+        getPendingItems().forEach((alias, item) -> result.merge(alias, item, MapDbPersistenceService::newer));
+        return new HashSet<>(result.values());
     }
 
     @Override
@@ -145,30 +247,77 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         mItem.setName(alias);
         mItem.setState(state);
         mItem.setTimestamp(new Date());
-        String json = serialize(mItem);
-        map.put(alias, json);
-        commit();
-        logger.debug("Stored '{}' with state '{}' in MapDB database", alias, state.toString());
+        boolean keepHistory = history != null && configuration.getHistorySize(alias) > 0;
+        if (configuration.getCommitInterval() <= 0) {
+            map.put(alias, serialize(mItem));
+            updateItem(mItem);
+            MapDbItemHistory history = this.history;
+            if (history != null && keepHistory) {
+                history.add(mItem);
+            }
+            commit();
+            logger.debug("Stored '{}' with state '{}' in MapDB database", alias, state.toString());
+            return;
+        }
+        int pendingCount;
+        synchronized (pendingItems) {
+            // last write wins, only the latest state of the item is written to the database
+            pendingItems.put(alias, mItem);
+            if (keepHistory) {
+                pendingHistory.add(mItem);
+            }
+            pendingCount = Math.max(pendingItems.size(), pendingHistory.size());
+        }
+        updateItem(mItem);
+        // Concurrent stores might pass the batch size at once, a single commit is requested for them
+        if (pendingCount >= configuration.getCommitBatchSize() && commitRequested.compareAndSet(false, true)) {
+            threadPool.submit(this::commitPendingItems);
+        }
+        logger.debug("Buffered '{}' with state '{}' for MapDB database", alias, state.toString());
     }
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
-        String json = map.get(filter.getItemName());
-        if (json == null) {
+        MapDbItemHistory history = this.history;
+        @Nullable
+        String name = filter.getItemName();
+        if (history != null && name != null) {
+            // Buffered states are merged in memory, the query does not wait for them to be written
+            List<MapDbItem> pending = getPendingHistory(name);
+            if (!pending.isEmpty() || history.contains(name)) {
+                return history.query(name, filter, pending);
+            }
+            // Items stored before the history was enabled only have their last state
+        }
+        if (name == null) {
             return Collections.emptyList();
         }
-        Optional<MapDbItem> item = deserialize(json);
-        if (!item.isPresent()) {
+        @Nullable
+        MapDbItem item;
+        synchronized (pendingItems) {
+            item = pendingItems.get(name);
+        }
+        if (item == null) {
+            item = getItems().get(name);
+        }
+        if (item == null) {
             return Collections.emptyList();
         }
-        return Collections.singletonList(item.get());
+        return Collections.singletonList(item);
     }
 
-    private String serialize(MapDbItem item) {
-        return mapper.toJson(item);
+    private byte[] serialize(MapDbItem item) {
+        return serializer.serialize(item);
     }
 
-    private Optional<MapDbItem> deserialize(String json) {
+    private Optional<MapDbItem> deserialize(String name, Object record) {
+        if (record instanceof byte[]) {
+            return Optional.ofNullable(serializer.deserialize(name, (byte[]) record));
+        }
+        return deserializeJson(record.toString());
+    }
+
+    private Optional<MapDbItem> deserializeJson(String json) {
         MapDbItem item = mapper.<MapDbItem>fromJson(json, MapDbItem.class);
         if (item == null || !item.isValid()) {
             logger.warn("Deserialized invalid item: {}", item);
@@ -177,10 +326,167 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         return Optional.of(item);
     }
 
+    /**
+     * Convert JSON records written by earlier versions of this service to binary records
+     */
+    private void migrateJsonRecords() {
+        int migrated = 0;
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            if (!(entry.getValue() instanceof String)) {
+                continue;
+            }
+            Optional<MapDbItem> item = deserializeJson((String) entry.getValue());
+            if (item.isPresent()) {
+                map.put(entry.getKey(), serialize(item.get()));
+                migrated++;
+            }
+        }
+        if (migrated > 0) {
+            db.commit();
+            logger.info("Migrated {} MapDB records to binary format", migrated);
+        }
+    }
+
+    /**
+     * Get the last states of all items, loading and decoding all records of the database on first access.
+     *
+     * States stored but not yet committed might be missing, they are added when they are committed.
+     *
+     * @return items by alias
+     */
+    private Map<String, MapDbItem> getItems() {
+        itemsLastAccess = System.currentTimeMillis();
+        if (!itemsLoaded) {
+            synchronized (items) {
+                if (!itemsLoaded) {
+                    itemsCached = true;
+                    loadItems();
+                    itemsLoaded = true;
+                    itemsExpiryJob = threadPool.schedule(this::expireItems, ITEMS_CACHE_EXPIRY_MILLIS,
+                            TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        return items;
+    }
+
+    private void loadItems() {
+        long start = System.currentTimeMillis();
+        // Read the records in a single pass over the tree, decoding is done in parallel
+        List<Map.Entry<String, Object>> records = new ArrayList<>(map.entrySet());
+        records.parallelStream().map(entry -> deserialize(entry.getKey(), entry.getValue()))
+                .flatMap(MapDbPersistenceService::streamOptional)
+                // Items written meanwhile might be newer than the records
+                .forEach(item -> items.merge(item.getName(), item, MapDbPersistenceService::newer));
+        logger.debug("Loaded {} items from MapDB database in {} ms", records.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Update the decoded items with a written state, unless the items are not loaded
+     */
+    private void updateItem(MapDbItem item) {
+        if (itemsCached) {
+            items.merge(item.getName(), item, MapDbPersistenceService::newer);
+        }
+    }
+
+    private void expireItems() {
+        synchronized (items) {
+            long idle = System.currentTimeMillis() - itemsLastAccess;
+            if (idle < ITEMS_CACHE_EXPIRY_MILLIS) {
+                itemsExpiryJob = threadPool.schedule(this::expireItems, ITEMS_CACHE_EXPIRY_MILLIS - idle,
+                        TimeUnit.MILLISECONDS);
+                return;
+            }
+            itemsExpiryJob = null;
+            releaseItems();
+            logger.debug("Released items of MapDB database after {} ms without access", idle);
+        }
+    }
+
+    private void releaseItems() {
+        itemsCached = false;
+        itemsLoaded = false;
+        items.clear();
+    }
+
+    /**
+     * Check whether the decoded items are kept in memory
+     *
+     * @return true if the items are loaded
+     */
+    boolean isItemsLoaded() {
+        return itemsLoaded;
+    }
+
+    private static MapDbItem newer(MapDbItem item, MapDbItem other) {
+        return other.getTimestamp().before(item.getTimestamp()) ? item : other;
+    }
+
     private void commit() {
         threadPool.submit(() -> db.commit());
     }
 
+    private Map<String, MapDbItem> getPendingItems() {
+        synchronized (pendingItems) {
+            return new LinkedHashMap<>(pendingItems);
+        }
+    }
+
+    private List<MapDbItem> getPendingHistory(String name) {
+        synchronized (pendingItems) {
+            return pendingHistory.stream().filter(item -> name.equals(item.getName())).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Write buffered items to the database and commit, all in a single transaction
+     */
+    private void commitPendingItems() {
+        synchronized (commitLock) {
+            commitRequested.set(false);
+            Map<String, MapDbItem> committed = getPendingItems();
+            if (committed.isEmpty()) {
+                return;
+            }
+            // Buffered states stay visible to queries until they are written
+            List<MapDbItem> historyItems;
+            synchronized (pendingItems) {
+                historyItems = new ArrayList<>(pendingHistory);
+            }
+            try {
+                committed.forEach((alias, item) -> map.put(alias, serialize(item)));
+                MapDbItemHistory history = this.history;
+                if (history != null) {
+                    historyItems.forEach(history::add);
+                }
+                db.commit();
+                logger.debug("Committed {} items to MapDB database", committed.size());
+            } catch (RuntimeException e) {
+                logger.warn("Failed to commit {} items to MapDB database: {}", committed.size(), e.getMessage());
+                return;
+            }
+            committed.values().forEach(this::updateItem);
+            synchronized (pendingItems) {
+                // Items stored again during the commit are kept for the next commit
+                committed.forEach(pendingItems::remove);
+                pendingHistory.subList(0, historyItems.size()).clear();
+            }
+        }
+    }
+
+    /**
+     * Get number of items stored but not yet committed to the database
+     *
+     * @return number of pending items
+     */
+    int getPendingItemCount() {
+        synchronized (pendingItems) {
+            return pendingItems.size();
+        }
+    }
+
     private static <T> Stream<T> streamOptional(Optional<T> opt) {
         if (!opt.isPresent()) {
             return Stream.empty();
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Operator;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.junit.Before;
+import org.junit.Test;
+import org.mapdb.Fun;
+import org.openhab.persistence.mapdb.internal.MapDbItem;
+import org.openhab.persistence.mapdb.internal.MapDbItemHistory;
+import org.openhab.persistence.mapdb.internal.MapDbItemSerializer;
+
+/**
+ *
+ * @author agent - Initial contribution
+ */
+public class MapDbItemHistoryTest {
+    ConcurrentSkipListMap<Fun.Tuple2<String, Long>, byte[]> records = new ConcurrentSkipListMap<>();
+    MapDbItemHistory history = new MapDbItemHistory(records, new MapDbItemSerializer(),
+            name -> "disabled".equals(name) ? 0 : "small".equals(name) ? 2 : 5);
+
+    @Before
+    public void setUp() {
+        for (int i = 1; i <= 7; i++) {
+            add("item", i * 1000L, i);
+            add("other", i * 1000L, -i);
+        }
+    }
+
+    @Test
+    public void oldestStatesAreRemovedWhenLimitIsExceeded() {
+        assertThat(records.size(), is(equalTo(10)));
+        assertThat(values(history.query("item", new FilterCriteria().setOrdering(Ordering.ASCENDING))),
+                is(equalTo(Arrays.asList(3, 4, 5, 6, 7))));
+        assertTrue(history.contains("other"));
+        assertFalse(history.contains("unknown"));
+    }
+
+    @Test
+    public void queryShouldFilterTimeRange() {
+        FilterCriteria filter = new FilterCriteria().setBeginDate(new Date(4000)).setEndDate(new Date(6000));
+        // descending by default
+        assertThat(values(history.query("item", filter)), is(equalTo(Arrays.asList(6, 5, 4))));
+    }
+
+    @Test
+    public void queryShouldReturnPages() {
+        FilterCriteria filter = new FilterCriteria().setOrdering(Ordering.ASCENDING).setPageSize(2);
+        assertThat(values(history.query("item", filter.setPageNumber(0))), is(equalTo(Arrays.asList(3, 4))));
+        assertThat(values(history.query("item", filter.setPageNumber(2))), is(equalTo(Arrays.asList(7))));
+        assertThat(values(history.query("item", filter.setPageNumber(3))), is(equalTo(Arrays.asList())));
+    }
+
+    @Test
+    public void queryShouldFilterState() {
+        FilterCriteria filter = new FilterCriteria().setOperator(Operator.GT).setState(new DecimalType(5));
+        assertThat(values(history.query("item", filter)), is(equalTo(Arrays.asList(7, 6))));
+        filter.setOperator(Operator.EQ);
+        assertThat(values(history.query("item", filter)), is(equalTo(Arrays.asList(5))));
+    }
+
+    @Test
+    public void sizeIsLimitedPerItem() {
+        for (int i = 1; i <= 3; i++) {
+            add("small", i * 1000L, i);
+            add("disabled", i * 1000L, i);
+        }
+        assertThat(values(history.query("small", new FilterCriteria())), is(equalTo(Arrays.asList(3, 2))));
+        assertFalse(history.contains("disabled"));
+    }
+
+    @Test
+    public void queryShouldMergePendingStates() {
+        List<MapDbItem> pending = Arrays.asList(item("item", 7000L, 70), item("other", 8000L, 8),
+                item("item", 8000L, 8), item("item", 9000L, 9));
+        FilterCriteria filter = new FilterCriteria().setOrdering(Ordering.ASCENDING);
+
+        // Pending states replace states with the same timestamp and push out the oldest states
+        assertThat(values(history.query("item", filter, pending)), is(equalTo(Arrays.asList(5, 6, 70, 8, 9))));
+        assertThat(values(history.query("item", filter.setBeginDate(new Date(6000)).setEndDate(new Date(8000))
+                .setOrdering(Ordering.DESCENDING), pending)), is(equalTo(Arrays.asList(8, 70, 6))));
+        assertThat(values(history.query("item", new FilterCriteria().setPageSize(2).setPageNumber(1), pending)),
+                is(equalTo(Arrays.asList(70, 6))));
+        // The history itself is not changed
+        assertThat(values(history.query("item", new FilterCriteria(), Collections.emptyList())),
+                is(equalTo(Arrays.asList(7, 6, 5, 4, 3))));
+    }
+
+    private static MapDbItem item(String name, long timestamp, int value) {
+        MapDbItem item = new MapDbItem();
+        item.setName(name);
+        item.setState(new DecimalType(value));
+        item.setTimestamp(new Date(timestamp));
+        return item;
+    }
+
+    private void add(String name, long timestamp, int value) {
+        history.add(item(name, timestamp, value));
+    }
+
+    private static List<Integer> values(List<HistoricItem> items) {
+        return items.stream().map(item -> ((DecimalType) item.getState()).intValue()).collect(Collectors.toList());
+    }
+}
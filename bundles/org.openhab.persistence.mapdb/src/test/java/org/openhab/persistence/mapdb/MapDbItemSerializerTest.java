@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+import org.eclipse.smarthome.core.library.types.DateTimeType;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.OpenClosedType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.library.types.PointType;
+import org.eclipse.smarthome.core.library.types.QuantityType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.library.types.UpDownType;
+import org.eclipse.smarthome.core.types.State;
+import org.junit.Test;
+import org.openhab.persistence.mapdb.internal.MapDbItem;
+import org.openhab.persistence.mapdb.internal.MapDbItemSerializer;
+
+/**
+ *
+ * @author agent - Initial contribution
+ */
+public class MapDbItemSerializerTest {
+    MapDbItemSerializer serializer = new MapDbItemSerializer();
+
+    @Test
+    public void readWriteRoundtripShouldRecreateTheWrittenState() {
+        assertThat(roundtrip(OnOffType.ON), is(equalTo(OnOffType.ON)));
+        assertThat(roundtrip(OnOffType.OFF), is(equalTo(OnOffType.OFF)));
+        assertThat(roundtrip(OpenClosedType.CLOSED), is(equalTo(OpenClosedType.CLOSED)));
+        assertThat(roundtrip(UpDownType.DOWN), is(equalTo(UpDownType.DOWN)));
+        assertThat(roundtrip(PercentType.HUNDRED), is(equalTo(PercentType.HUNDRED)));
+        assertThat(roundtrip(HSBType.GREEN), is(equalTo(HSBType.GREEN)));
+        assertThat(roundtrip(new DecimalType(new BigDecimal("-123.456"))),
+                is(equalTo(new DecimalType(new BigDecimal("-123.456")))));
+        assertThat(roundtrip(new DecimalType(Long.MAX_VALUE)), is(equalTo(new DecimalType(Long.MAX_VALUE))));
+        assertThat(roundtrip(new QuantityType<>("21.5 °C")), is(equalTo(new QuantityType<>("21.5 °C"))));
+        assertThat(roundtrip(StringType.valueOf("test äö")), is(equalTo(StringType.valueOf("test äö"))));
+        assertThat(roundtrip(StringType.valueOf("")), is(equalTo(StringType.valueOf(""))));
+        DateTimeType dateTime = new DateTimeType(ZonedDateTime.of(2019, 3, 1, 12, 30, 15, 123000000,
+                ZoneId.of("Europe/Helsinki")));
+        assertThat(roundtrip(dateTime), is(equalTo(dateTime)));
+        // types without dedicated encoding
+        assertThat(roundtrip(new PointType("60.1,24.9")), is(equalTo(new PointType("60.1,24.9"))));
+    }
+
+    @Test
+    public void timestampAndNameAreRestored() {
+        MapDbItem item = new MapDbItem();
+        item.setName("ignored");
+        item.setState(OnOffType.ON);
+        item.setTimestamp(new Date(1551436215123L));
+
+        MapDbItem restored = serializer.deserialize("item", serializer.serialize(item));
+
+        assertNotNull(restored);
+        assertThat(restored.getName(), is(equalTo("item")));
+        assertThat(restored.getTimestamp(), is(equalTo(new Date(1551436215123L))));
+    }
+
+    @Test
+    public void invalidRecordsAreNotDeserialized() {
+        assertNull(serializer.deserialize("item", new byte[0]));
+        // unknown version
+        assertNull(serializer.deserialize("item", new byte[] { 99, 0, 0, 0, 0, 0, 0, 0, 0, 4, 0 }));
+    }
+
+    @Test
+    public void enumStatesAreStoredByName() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MapDbItemSerializer.VERSION);
+            out.writeLong(1551436215123L);
+            out.writeByte(4); // on/off
+            byte[] name = "OFF".getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+        }
+
+        MapDbItem restored = serializer.deserialize("item", bytes.toByteArray());
+
+        assertNotNull(restored);
+        assertThat(restored.getState(), is(equalTo(OnOffType.OFF)));
+    }
+
+    private State roundtrip(State state) {
+        MapDbItem item = new MapDbItem();
+        item.setName("item");
+        item.setState(state);
+        item.setTimestamp(new Date());
+        MapDbItem restored = serializer.deserialize("item", serializer.serialize(item));
+        assertNotNull(restored);
+        return restored.getState();
+    }
+}
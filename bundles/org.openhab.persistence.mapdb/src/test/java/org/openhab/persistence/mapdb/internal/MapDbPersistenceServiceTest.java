@@ -0,0 +1,271 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.core.library.items.NumberItem;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.persistence.PersistenceItemInfo;
+import org.eclipse.smarthome.core.types.State;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Tests for {@link MapDbPersistenceService}, using a database in a temporary user data folder
+ *
+ * @author agent - Initial contribution
+ */
+public class MapDbPersistenceServiceTest {
+
+    @Rule
+    public TemporaryFolder userData = new TemporaryFolder();
+
+    private final List<MapDbPersistenceService> services = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        System.setProperty(ConfigConstants.USERDATA_DIR_PROG_ARGUMENT, userData.getRoot().getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        services.forEach(MapDbPersistenceService::deactivate);
+        System.clearProperty(ConfigConstants.USERDATA_DIR_PROG_ARGUMENT);
+    }
+
+    private MapDbPersistenceService activate(Object... properties) {
+        Map<String, Object> config = new HashMap<>();
+        for (int i = 0; i < properties.length; i += 2) {
+            config.put((String) properties[i], properties[i + 1]);
+        }
+        MapDbPersistenceService service = new MapDbPersistenceService();
+        service.activate(config);
+        services.add(service);
+        return service;
+    }
+
+    private void deactivate(MapDbPersistenceService service) {
+        services.remove(service);
+        service.deactivate();
+    }
+
+    private static void store(MapDbPersistenceService service, String name, int value) {
+        NumberItem item = new NumberItem(name);
+        item.setState(new DecimalType(value));
+        service.store(item);
+    }
+
+    private static State query(MapDbPersistenceService service, String name) {
+        List<HistoricItem> result = new ArrayList<>();
+        service.query(new FilterCriteria().setItemName(name)).forEach(result::add);
+        assertThat(result.size(), is(equalTo(1)));
+        return result.get(0).getState();
+    }
+
+    private static void waitForCommit(MapDbPersistenceService service) throws InterruptedException {
+        for (int i = 0; i < 100 && service.getPendingItemCount() > 0; i++) {
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void storesAreBufferedUntilBatchSizeIsReached() throws InterruptedException {
+        MapDbPersistenceService service = activate("commitInterval", "3600000", "commitBatchSize", "3");
+
+        store(service, "item1", 1);
+        store(service, "item2", 2);
+        // Latest state of the item wins
+        store(service, "item2", 3);
+        assertThat(service.getPendingItemCount(), is(equalTo(2)));
+        // Buffered states are visible to queries
+        assertThat(query(service, "item2"), is(equalTo(new DecimalType(3))));
+
+        store(service, "item3", 4);
+        waitForCommit(service);
+        assertThat(service.getPendingItemCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void storesAreCommittedAfterCommitInterval() throws InterruptedException {
+        MapDbPersistenceService service = activate("commitInterval", "100");
+
+        store(service, "item1", 1);
+        waitForCommit(service);
+        assertThat(service.getPendingItemCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void storesAreWrittenImmediatelyWithoutCommitInterval() {
+        MapDbPersistenceService service = activate("commitInterval", 0);
+
+        store(service, "item1", 1);
+        assertThat(service.getPendingItemCount(), is(equalTo(0)));
+        assertThat(query(service, "item1"), is(equalTo(new DecimalType(1))));
+    }
+
+    @Test
+    public void bufferedStoresAreWrittenOnDeactivate() {
+        MapDbPersistenceService service = activate("commitInterval", "3600000");
+        store(service, "item1", 1);
+        deactivate(service);
+
+        assertThat(query(activate(), "item1"), is(equalTo(new DecimalType(1))));
+    }
+
+    @Test
+    public void itemsAreRestoredOnStartup() {
+        MapDbPersistenceService service = activate("commitInterval", "3600000");
+        for (int i = 1; i <= 10; i++) {
+            store(service, "item" + i, i);
+        }
+        // Buffered states are visible before the items are loaded
+        assertThat(query(service, "item1"), is(equalTo(new DecimalType(1))));
+        assertFalse(service.isItemsLoaded());
+        deactivate(service);
+
+        service = activate("commitInterval", "3600000");
+        Set<String> names = service.getItemInfo().stream().map(PersistenceItemInfo::getName)
+                .collect(Collectors.toSet());
+        assertThat(names.size(), is(equalTo(10)));
+        assertTrue(service.isItemsLoaded());
+        for (int i = 1; i <= 10; i++) {
+            assertTrue(names.contains("item" + i));
+            assertThat(query(service, "item" + i), is(equalTo(new DecimalType(i))));
+        }
+
+        // Loaded items are kept up to date
+        store(service, "item1", 11);
+        store(service, "item11", 12);
+        assertThat(query(service, "item1"), is(equalTo(new DecimalType(11))));
+        assertThat(service.getItemInfo().size(), is(equalTo(11)));
+    }
+
+    @Test
+    public void historyIncludesBufferedStatesWithoutCommitting() throws InterruptedException {
+        MapDbPersistenceService service = activate("commitInterval", "3600000", "historySize", "3",
+                "historySize.last", "0");
+
+        for (int i = 1; i <= 4; i++) {
+            store(service, "item", i);
+            store(service, "last", i);
+            // Distinct timestamps
+            Thread.sleep(5);
+        }
+
+        List<HistoricItem> result = new ArrayList<>();
+        service.query(new FilterCriteria().setItemName("item")).forEach(result::add);
+        assertThat(result.size(), is(equalTo(3)));
+        assertThat(result.get(0).getState(), is(equalTo(new DecimalType(4))));
+        assertThat(result.get(2).getState(), is(equalTo(new DecimalType(2))));
+        // No history for the item, only the last state
+        assertThat(query(service, "last"), is(equalTo(new DecimalType(4))));
+        assertThat(service.getPendingItemCount(), is(equalTo(2)));
+    }
+
+    private static MapDbItem item(String name, State state) {
+        MapDbItem item = new MapDbItem();
+        item.setName(name);
+        item.setState(state);
+        item.setTimestamp(new Date(1551436215000L));
+        return item;
+    }
+
+    private DB openDatabase() {
+        File folder = new File(userData.getRoot(), "persistence" + File.separator + "mapdb");
+        assertTrue(folder.isDirectory() || folder.mkdirs());
+        return DBMaker.newFileDB(new File(folder, "storage.mapdb")).make();
+    }
+
+    @Test
+    public void jsonRecordsAreMigratedToBinary() {
+        // Database as written by earlier versions of the service
+        Gson gson = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter()).create();
+        DB db = openDatabase();
+        Map<String, Object> records = db.createTreeMap("itemStore").makeOrGet();
+        records.put("switch", gson.toJson(item("switch", OnOffType.ON)));
+        records.put("number", gson.toJson(item("number", new DecimalType(5))));
+        records.put("string", gson.toJson(item("string", new StringType("test"))));
+        db.commit();
+        db.close();
+
+        MapDbPersistenceService service = activate();
+        assertThat(query(service, "switch"), is(equalTo(OnOffType.ON)));
+        assertThat(query(service, "number"), is(equalTo(new DecimalType(5))));
+        assertThat(query(service, "string"), is(equalTo(new StringType("test"))));
+        deactivate(service);
+
+        db = openDatabase();
+        records = db.createTreeMap("itemStore").makeOrGet();
+        assertThat(records.size(), is(equalTo(3)));
+        for (Object record : records.values()) {
+            assertThat(record, is(instanceOf(byte[].class)));
+        }
+        MapDbItem migrated = new MapDbItemSerializer().deserialize("switch", (byte[]) records.get("switch"));
+        db.close();
+        assertNotNull(migrated);
+        assertThat(migrated.getState(), is(equalTo(OnOffType.ON)));
+        assertThat(migrated.getTimestamp(), is(equalTo(new Date(1551436215000L))));
+    }
+
+    @Test
+    public void configuration() {
+        MapDbConfiguration defaults = new MapDbConfiguration(null);
+        assertThat(defaults.getCommitInterval(), is(equalTo(1000L)));
+        assertThat(defaults.getCommitBatchSize(), is(equalTo(500)));
+        assertFalse(defaults.isHistoryEnabled());
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("commitInterval", " 2000 ");
+        properties.put("commitBatchSize", 0);
+        MapDbConfiguration configuration = new MapDbConfiguration(properties);
+        assertThat(configuration.getCommitInterval(), is(equalTo(2000L)));
+        // at least one item per batch
+        assertThat(configuration.getCommitBatchSize(), is(equalTo(1)));
+
+        properties.put("historySize.item", "10");
+        configuration = new MapDbConfiguration(properties);
+        assertThat(configuration.getHistorySize("item"), is(equalTo(10)));
+        assertThat(configuration.getHistorySize("other"), is(equalTo(0)));
+        assertTrue(configuration.isHistoryEnabled());
+
+        properties.put("commitInterval", "invalid");
+        properties.put("commitBatchSize", "-5");
+        configuration = new MapDbConfiguration(properties);
+        assertThat(configuration.getCommitInterval(), is(equalTo(1000L)));
+        assertThat(configuration.getCommitBatchSize(), is(equalTo(1)));
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.javascript.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Histogram of the execution times of a script.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ExecutionTimeHistogram {
+    /** Upper bounds of the buckets in milliseconds. The last bucket holds all longer executions. */
+    private static final long[] BOUNDS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000 };
+
+    private final LongAdder[] counts = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder timeouts = new LongAdder();
+
+    public ExecutionTimeHistogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record an execution
+     *
+     * @param nanos execution time in nanoseconds
+     */
+    public void record(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < BOUNDS.length && millis >= BOUNDS[bucket]) {
+            bucket++;
+        }
+        counts[bucket].increment();
+    }
+
+    /**
+     * Record an execution which was aborted because of a timeout
+     */
+    public void recordTimeout() {
+        timeouts.increment();
+    }
+
+    /**
+     * Return the number of executions per bucket. Bucket <code>i</code> holds executions shorter than
+     * {@link #getBounds()}<code>[i]</code> milliseconds, the last bucket holds all longer executions.
+     */
+    public long[] getCounts() {
+        long[] result = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            result[i] = counts[i].sum();
+        }
+        return result;
+    }
+
+    /**
+     * Return the upper bounds of the buckets in milliseconds
+     */
+    public long[] getBounds() {
+        return BOUNDS.clone();
+    }
+
+    /**
+     * Return the number of executions aborted because of a timeout
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        long[] values = getCounts();
+        for (int i = 0; i < values.length; i++) {
+            if (i < BOUNDS.length) {
+                builder.append("<").append(BOUNDS[i]).append("ms: ");
+            } else {
+                builder.append(">=").append(BOUNDS[BOUNDS.length - 1]).append("ms: ");
+            }
+            builder.append(values[i]).append(", ");
+        }
+        return builder.append("timeouts: ").append(getTimeouts()).toString();
+    }
+}
@@ -13,27 +13,25 @@
 package org.openhab.transform.javascript.internal;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-import javax.script.Compilable;
-import javax.script.CompiledScript;
-import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.smarthome.core.transform.TransformationException;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple cache for compiled JavaScript files.
+ * Simple cache for compiled JavaScript files. Every script is compiled into a pool of instances,
+ * see {@link ScriptEnginePool}.
  *
  * @author Thomas Kordelle - pre compiled scripts
  *
@@ -44,31 +42,33 @@ public class JavaScriptEngineManager {
 
     private final Logger logger = LoggerFactory.getLogger(JavaScriptEngineManager.class);
     private final ScriptEngineManager manager = new ScriptEngineManager();
-    /* keep memory foot print low. max 2 concurrent threads are estimated */
-    private final Map<String, CompiledScript> compiledScriptMap = new ConcurrentHashMap<>(4, 0.5f, 2);
+    private final Map<String, ScriptEnginePool> scriptPoolMap = new ConcurrentHashMap<>();
+    private volatile int poolSize = Runtime.getRuntime().availableProcessors();
 
     /**
-     * Get a pre compiled script {@link CompiledScript} from cache. If it is not in the cache, then load it from
-     * storage and put a pre compiled version into the cache.
+     * Get the pool of a pre compiled script from cache. If it is not in the cache, then load it from
+     * storage and put a pool with a pre compiled version into the cache.
      *
      * @param filename name of the JavaScript file to load
-     * @return a pre compiled script {@link CompiledScript}
+     * @return the pool of the script
      * @throws TransformationException if compile of JavaScript failed
      */
-    protected CompiledScript getScript(final String filename) throws TransformationException {
-        synchronized (compiledScriptMap) {
-            if (compiledScriptMap.containsKey(filename)) {
+    protected ScriptEnginePool getScriptPool(final String filename) throws TransformationException {
+        synchronized (scriptPoolMap) {
+            @Nullable
+            ScriptEnginePool pool = scriptPoolMap.get(filename);
+            if (pool != null) {
                 logger.debug("Loading JavaScript {} from cache.", filename);
-                return compiledScriptMap.get(filename);
+                return pool;
             } else {
                 final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
                 logger.debug("Loading script {} from storage ", path);
-                try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
-                    final ScriptEngine engine = manager.getEngineByName("javascript");
-                    final CompiledScript cScript = ((Compilable) engine).compile(reader);
-                    logger.debug("Putting compiled JavaScript {} to cache.", cScript);
-                    compiledScriptMap.put(filename, cScript);
-                    return cScript;
+                try {
+                    final String script = new String(Files.readAllBytes(Paths.get(path)));
+                    pool = new ScriptEnginePool(manager, script, poolSize);
+                    logger.debug("Putting compiled JavaScript {} to cache.", filename);
+                    scriptPoolMap.put(filename, pool);
+                    return pool;
                 } catch (IOException | ScriptException e) {
                     throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(),
                             e);
@@ -77,6 +77,27 @@ public class JavaScriptEngineManager {
         }
     }
 
+    /**
+     * Get the execution times of a script
+     *
+     * @param filename name of the script file
+     * @return the histogram of the execution times or null if the script is not in the cache
+     */
+    public @Nullable ExecutionTimeHistogram getExecutionTimes(String filename) {
+        @Nullable
+        ScriptEnginePool pool = scriptPoolMap.get(filename);
+        return pool != null ? pool.getExecutionTimes() : null;
+    }
+
+    /**
+     * Set the maximum number of concurrently executed instances per script. Applies to scripts loaded afterwards.
+     *
+     * @param poolSize maximum number of instances per script
+     */
+    protected void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
     /**
      * remove a pre compiled script from cache.
      *
@@ -84,6 +105,6 @@ public class JavaScriptEngineManager {
      */
     protected void removeFromCache(String fileName) {
         logger.debug("Removing JavaScript {} from cache.", fileName);
-        compiledScriptMap.remove(fileName);
+        scriptPoolMap.remove(fileName);
     }
 }
@@ -12,15 +12,28 @@
  */
 package org.openhab.transform.javascript.internal;
 
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.script.Bindings;
 import javax.script.CompiledScript;
 import javax.script.ScriptException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.common.NamedThreadFactory;
 import org.eclipse.smarthome.core.transform.TransformationException;
 import org.eclipse.smarthome.core.transform.TransformationService;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,12 +46,30 @@ import org.slf4j.LoggerFactory;
  * @author Thomas Kordelle - pre compiled scripts
  */
 @NonNullByDefault
-@Component(immediate = true, property = { "smarthome.transform=JS" })
+@Component(immediate = true, configurationPid = "transform.javascript", property = { "smarthome.transform=JS" })
 public class JavaScriptTransformationService implements TransformationService {
 
+    private static final String CONFIG_TIMEOUT = "timeout";
+    private static final String CONFIG_POOL_SIZE = "poolSize";
+
+    /* States of a script execution with a timeout */
+    private static final int EXECUTION_PENDING = 0;
+    private static final int EXECUTION_RUNNING = 1;
+    private static final int EXECUTION_FINISHED = 2;
+    private static final int EXECUTION_ABANDONED = 3;
+
     private Logger logger = LoggerFactory.getLogger(JavaScriptTransformationService.class);
     private @NonNullByDefault({}) JavaScriptEngineManager manager;
 
+    /*
+     * Executes scripts if a timeout is configured. Runaway scripts keep their thread, but per script at most poolSize
+     * of them, see ScriptEnginePool.
+     */
+    private final ExecutorService executor = Executors
+            .newCachedThreadPool(new NamedThreadFactory("javascript-transformation"));
+    /* Timeout of a script execution in milliseconds, 0 for no timeout */
+    private volatile long timeout;
+
     @Reference
     public void setJavaScriptEngineManager(JavaScriptEngineManager manager) {
         this.manager = manager;
@@ -48,6 +79,37 @@ public class JavaScriptTransformationService implements TransformationService {
         this.manager = null;
     }
 
+    @Activate
+    protected void activate(Map<String, Object> config) {
+        modified(config);
+    }
+
+    @Modified
+    protected void modified(Map<String, Object> config) {
+        timeout = getConfigValue(config, CONFIG_TIMEOUT, 0);
+        long poolSize = getConfigValue(config, CONFIG_POOL_SIZE, Runtime.getRuntime().availableProcessors());
+        manager.setPoolSize((int) poolSize);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        executor.shutdownNow();
+    }
+
+    private long getConfigValue(Map<String, Object> config, String key, long defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' of the JavaScript transformation configuration parameter '{}'", value,
+                    key);
+            return defaultValue;
+        }
+    }
+
     /**
      * Transforms the input <code>source</code> by Java Script. It expects the
      * transformation rule to be read from a file which is stored under the
@@ -65,22 +127,102 @@ public class JavaScriptTransformationService implements TransformationService {
             throw new TransformationException("the given parameters 'filename' and 'source' must not be null");
         }
 
-        final long startTime = System.currentTimeMillis();
+        final long startTime = System.nanoTime();
         logger.debug("about to transform '{}' by the JavaScript '{}'", source, filename);
 
         String result = "";
 
+        final ScriptEnginePool pool = manager.getScriptPool(filename);
+        final CompiledScript cScript;
+        try {
+            cScript = pool.borrow();
+        } catch (ScriptException e) {
+            throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransformationException("Interrupted while waiting for JavaScript " + filename, e);
+        }
+
+        boolean reusable = true;
+        final long executionStartTime = System.nanoTime();
         try {
-            final CompiledScript cScript = manager.getScript(filename);
             final Bindings bindings = cScript.getEngine().createBindings();
             bindings.put("input", source);
-            result = String.valueOf(cScript.eval(bindings));
+            final long timeout = this.timeout;
+            if (timeout <= 0) {
+                result = String.valueOf(cScript.eval(bindings));
+            } else {
+                final AtomicInteger state = new AtomicInteger(EXECUTION_PENDING);
+                Future<@Nullable Object> future = executor.submit(() -> {
+                    if (!state.compareAndSet(EXECUTION_PENDING, EXECUTION_RUNNING)) {
+                        return null; // Abandoned before it started
+                    }
+                    try {
+                        return cScript.eval(bindings);
+                    } finally {
+                        if (!state.compareAndSet(EXECUTION_RUNNING, EXECUTION_FINISHED)) {
+                            pool.runawayFinished();
+                        }
+                    }
+                });
+                try {
+                    result = String.valueOf(future.get(timeout, TimeUnit.MILLISECONDS));
+                } catch (TimeoutException e) {
+                    reusable = !abandon(state, future);
+                    pool.getExecutionTimes().recordTimeout();
+                    throw new TransformationException(
+                            "JavaScript " + filename + " did not finish within " + timeout + " ms");
+                } catch (ExecutionException e) {
+                    @Nullable
+                    Throwable cause = e.getCause();
+                    if (cause instanceof ScriptException) {
+                        throw (ScriptException) cause;
+                    }
+                    throw new TransformationException("An error occurred while executing script. " + cause, cause);
+                } catch (InterruptedException e) {
+                    reusable = !abandon(state, future);
+                    Thread.currentThread().interrupt();
+                    throw new TransformationException("Interrupted while executing JavaScript " + filename, e);
+                }
+            }
+            pool.getExecutionTimes().record(System.nanoTime() - executionStartTime);
             return result;
         } catch (ScriptException e) {
             throw new TransformationException("An error occurred while executing script. " + e.getMessage(), e);
         } finally {
-            logger.trace("JavaScript execution elapsed {} ms. Result: {}", System.currentTimeMillis() - startTime,
-                    result);
+            if (reusable) {
+                pool.release(cScript);
+            } else {
+                pool.discard(cScript);
+            }
+            logger.trace("JavaScript execution elapsed {} ms. Result: {}",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), result);
+        }
+    }
+
+    /**
+     * Abandon an execution which did not finish in time
+     *
+     * @return true if the engine is still executing the script, and the instance must not be reused
+     */
+    private boolean abandon(AtomicInteger state, Future<@Nullable Object> future) {
+        if (state.compareAndSet(EXECUTION_PENDING, EXECUTION_ABANDONED)) {
+            return false;
+        }
+        if (state.compareAndSet(EXECUTION_RUNNING, EXECUTION_ABANDONED)) {
+            future.cancel(true);
+            return true;
         }
+        return false; // Finished meanwhile
+    }
+
+    /**
+     * Get the execution times of a script
+     *
+     * @param filename the name of the file which contains the Java script
+     * @return the histogram of the execution times or null if the script was not executed yet
+     */
+    public @Nullable ExecutionTimeHistogram getExecutionTimes(String filename) {
+        return manager.getExecutionTimes(filename);
     }
 }
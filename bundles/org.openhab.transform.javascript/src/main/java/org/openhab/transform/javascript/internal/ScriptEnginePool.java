@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.javascript.internal;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Pool of compiled instances of one script, each compiled by its own script engine. An instance is only used by one
+ * thread at a time, so that transformations by the same script run concurrently.
+ * <p>
+ * Instances still executing a runaway script are discarded, but counted until the script finishes. Once
+ * <code>maxSize</code> instances are running away, the script keeps timing out and no further instances are created
+ * until one of them finishes.
+ * </p>
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ScriptEnginePool {
+    private final ScriptEngineManager manager;
+    private final String script;
+    private final int maxSize;
+
+    private final BlockingQueue<CompiledScript> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger runaways = new AtomicInteger();
+    private final ExecutionTimeHistogram executionTimes = new ExecutionTimeHistogram();
+
+    /**
+     * Create a pool of a script. The first instance of the script is compiled right away, to report errors early.
+     *
+     * @param manager script engine manager to create the engines
+     * @param script source of the script
+     * @param maxSize maximum number of instances of the script
+     * @throws ScriptException if the script does not compile
+     */
+    public ScriptEnginePool(ScriptEngineManager manager, String script, int maxSize) throws ScriptException {
+        this.manager = manager;
+        this.script = script;
+        this.maxSize = Math.max(1, maxSize);
+        size.incrementAndGet();
+        idle.add(compile());
+    }
+
+    /**
+     * Take an instance of the script from the pool. Waits for an instance to become available if all instances are in
+     * use. An instance needs to be given back by {@link #release(CompiledScript)} or {@link #discard(CompiledScript)}.
+     *
+     * @return an instance of the script
+     * @throws ScriptException if compiling a new instance failed, or too many executions of the script are running
+     *             away
+     * @throws InterruptedException if interrupted while waiting for an instance
+     */
+    public CompiledScript borrow() throws ScriptException, InterruptedException {
+        while (true) {
+            int runawayCount = runaways.get();
+            if (runawayCount >= maxSize) {
+                throw new ScriptException(runawayCount
+                        + " executions of the script did not finish after their timeout, the script is disabled");
+            }
+            @Nullable
+            CompiledScript instance = idle.poll();
+            if (instance != null) {
+                return instance;
+            }
+            if (size.incrementAndGet() <= maxSize) {
+                try {
+                    return compile();
+                } catch (ScriptException | RuntimeException e) {
+                    size.decrementAndGet();
+                    throw e;
+                }
+            }
+            size.decrementAndGet();
+            // Check again from time to time, instances may be discarded instead of given back
+            instance = idle.poll(100, TimeUnit.MILLISECONDS);
+            if (instance != null) {
+                return instance;
+            }
+        }
+    }
+
+    /**
+     * Give an instance back to the pool
+     *
+     * @param instance instance taken by {@link #borrow()}
+     */
+    public void release(CompiledScript instance) {
+        idle.add(instance);
+    }
+
+    /**
+     * Remove an instance taken by {@link #borrow()} from the pool, because it is still executing a runaway script.
+     * {@link #runawayFinished()} needs to be called when the execution finishes.
+     *
+     * @param instance instance taken by {@link #borrow()}
+     */
+    public void discard(CompiledScript instance) {
+        runaways.incrementAndGet();
+        size.decrementAndGet();
+    }
+
+    /**
+     * Notify the pool that the execution of a discarded instance finished
+     */
+    public void runawayFinished() {
+        runaways.decrementAndGet();
+    }
+
+    /**
+     * Return the number of discarded instances still executing the script
+     */
+    public int getRunawayCount() {
+        return runaways.get();
+    }
+
+    /**
+     * Return the histogram of the execution times of the script
+     */
+    public ExecutionTimeHistogram getExecutionTimes() {
+        return executionTimes;
+    }
+
+    private CompiledScript compile() throws ScriptException {
+        return ((Compilable) manager.getEngineByName("javascript")).compile(script);
+    }
+}
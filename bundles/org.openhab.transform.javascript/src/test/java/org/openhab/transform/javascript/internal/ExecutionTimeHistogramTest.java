@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.javascript.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class ExecutionTimeHistogramTest {
+
+    private final ExecutionTimeHistogram histogram = new ExecutionTimeHistogram();
+
+    @Test
+    public void executionsAreCountedByBucket() {
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(500));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(4));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(999));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1000));
+        histogram.record(TimeUnit.MINUTES.toNanos(1));
+
+        long[] bounds = histogram.getBounds();
+        long[] counts = histogram.getCounts();
+        assertThat(counts.length, is(bounds.length + 1));
+        assertThat(counts, is(new long[] { 1, 1, 1, 0, 0, 0, 0, 0, 0, 1, 2 }));
+        assertThat(histogram.getTimeouts(), is(0L));
+    }
+
+    @Test
+    public void timeoutsAreCountedSeparately() {
+        histogram.recordTimeout();
+        histogram.recordTimeout();
+
+        assertThat(histogram.getTimeouts(), is(2L));
+        assertThat(histogram.getCounts(), is(new long[histogram.getBounds().length + 1]));
+        assertThat(histogram.toString(), containsString("timeouts: 2"));
+    }
+}
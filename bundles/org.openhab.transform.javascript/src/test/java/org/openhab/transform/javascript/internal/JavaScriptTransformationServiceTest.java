@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.javascript.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.script.ScriptEngineManager;
+
+import org.eclipse.smarthome.core.transform.TransformationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class JavaScriptTransformationServiceTest {
+
+    private final ScriptEngineManager engineManager = new ScriptEngineManager();
+    private final JavaScriptEngineManager manager = mock(JavaScriptEngineManager.class);
+    private final JavaScriptTransformationService service = new JavaScriptTransformationService();
+
+    @Before
+    public void setUp() {
+        service.setJavaScriptEngineManager(manager);
+        Map<String, Object> config = new HashMap<>();
+        config.put("timeout", "100");
+        service.activate(config);
+    }
+
+    @After
+    public void tearDown() {
+        service.deactivate();
+    }
+
+    private ScriptEnginePool givenScript(String filename, String script) throws Exception {
+        ScriptEnginePool pool = new ScriptEnginePool(engineManager, script, 1);
+        doReturn(pool).when(manager).getScriptPool(filename);
+        return pool;
+    }
+
+    private static void waitForRunaways(ScriptEnginePool pool) throws InterruptedException {
+        for (int i = 0; i < 100 && pool.getRunawayCount() > 0; i++) {
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void scriptIsExecutedWithinTimeout() throws Exception {
+        ScriptEnginePool pool = givenScript("length.js", "input.length");
+
+        assertThat(service.transform("length.js", "abc"), is("3"));
+        assertThat(pool.getExecutionTimes().getTimeouts(), is(0L));
+    }
+
+    @Test
+    public void interruptedScriptIsDiscarded() throws Exception {
+        ScriptEnginePool pool = givenScript("sleep.js", "java.lang.Thread.sleep(5000); input");
+
+        try {
+            service.transform("sleep.js", "abc");
+            fail("Timeout not detected");
+        } catch (TransformationException e) {
+            assertThat(e.getMessage(), containsString("did not finish within 100 ms"));
+        }
+        assertThat(pool.getExecutionTimes().getTimeouts(), is(1L));
+
+        // The sleep is interrupted and the runaway execution finishes
+        waitForRunaways(pool);
+        assertThat(pool.getRunawayCount(), is(0));
+    }
+
+    @Test
+    public void scriptTimingOutIsDisabled() throws Exception {
+        // Does not react to interrupts
+        ScriptEnginePool pool = givenScript("busy.js",
+                "var end = Date.now() + 1000; while (Date.now() < end) {} input");
+
+        try {
+            service.transform("busy.js", "abc");
+            fail("Timeout not detected");
+        } catch (TransformationException e) {
+            assertThat(e.getMessage(), containsString("did not finish within 100 ms"));
+        }
+        assertThat(pool.getRunawayCount(), is(1));
+
+        // No further instance is started while the pool size is exhausted by runaway executions
+        try {
+            service.transform("busy.js", "abc");
+            fail("Script not disabled");
+        } catch (TransformationException e) {
+            assertThat(e.getMessage(), containsString("script is disabled"));
+        }
+        assertThat(pool.getExecutionTimes().getTimeouts(), is(1L));
+
+        waitForRunaways(pool);
+        assertThat(pool.getRunawayCount(), is(0));
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.javascript.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.junit.Test;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class ScriptEnginePoolTest {
+
+    private final ScriptEngineManager manager = new ScriptEngineManager();
+
+    @Test
+    public void releasedInstanceIsReused() throws Exception {
+        ScriptEnginePool pool = new ScriptEnginePool(manager, "input", 2);
+
+        CompiledScript first = pool.borrow();
+        pool.release(first);
+        assertThat(pool.borrow(), is(sameInstance(first)));
+    }
+
+    @Test
+    public void instancesAreCreatedUpToMaxSize() throws Exception {
+        ScriptEnginePool pool = new ScriptEnginePool(manager, "input", 2);
+
+        CompiledScript first = pool.borrow();
+        CompiledScript second = pool.borrow();
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(second.getEngine(), is(not(sameInstance(first.getEngine()))));
+
+        // All instances in use: Wait for an instance to be released
+        CompletableFuture<CompiledScript> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.borrow();
+            } catch (ScriptException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+        assertFalse(third.isDone());
+        pool.release(second);
+        assertThat(third.get(2, TimeUnit.SECONDS), is(sameInstance(second)));
+    }
+
+    @Test
+    public void discardedInstanceIsReplaced() throws Exception {
+        ScriptEnginePool pool = new ScriptEnginePool(manager, "input", 2);
+
+        CompiledScript first = pool.borrow();
+        CompiledScript second = pool.borrow();
+        pool.discard(first);
+        assertThat(pool.getRunawayCount(), is(1));
+
+        CompiledScript replacement = pool.borrow();
+        assertThat(replacement, is(not(sameInstance(first))));
+        assertThat(replacement, is(not(sameInstance(second))));
+        pool.runawayFinished();
+        assertThat(pool.getRunawayCount(), is(0));
+    }
+
+    @Test
+    public void scriptIsDisabledWhileTooManyExecutionsRunAway() throws Exception {
+        ScriptEnginePool pool = new ScriptEnginePool(manager, "input", 2);
+
+        pool.discard(pool.borrow());
+        pool.discard(pool.borrow());
+        try {
+            pool.borrow();
+            fail("Script not disabled");
+        } catch (ScriptException e) {
+            assertThat(e.getMessage(), containsString("script is disabled"));
+        }
+
+        pool.runawayFinished();
+        assertNotNull(pool.borrow());
+    }
+
+    @Test(expected = ScriptException.class)
+    public void invalidScriptIsReportedRightAway() throws ScriptException {
+        new ScriptEnginePool(manager, "function (", 2);
+    }
+}
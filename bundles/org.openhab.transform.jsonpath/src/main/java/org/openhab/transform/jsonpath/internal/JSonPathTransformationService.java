@@ -12,7 +12,10 @@
  */
 package org.openhab.transform.jsonpath.internal;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -24,6 +27,7 @@ import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
@@ -41,8 +45,44 @@ import com.jayway.jsonpath.PathNotFoundException;
 @Component(immediate = true, property = { "smarthome.transform=JSONPATH" })
 public class JSonPathTransformationService implements TransformationService {
 
+    /** Number of compiled JsonPath expressions kept */
+    private static final int PATH_CACHE_SIZE = 100;
+    /** Number of parsed documents kept, for several expressions applied to the same source */
+    private static final int DOCUMENT_CACHE_SIZE = 8;
+    /** Time in nanoseconds a parsed document is kept */
+    private static final long DOCUMENT_CACHE_EXPIRY = TimeUnit.SECONDS.toNanos(1);
+
     private final Logger logger = LoggerFactory.getLogger(JSonPathTransformationService.class);
 
+    private final Map<String, JsonPath> pathCache = new LinkedHashMap<String, JsonPath>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JsonPath> eldest) {
+            return size() > PATH_CACHE_SIZE;
+        }
+    };
+
+    private final Map<String, ParsedDocument> documentCache = new LinkedHashMap<String, ParsedDocument>(16, 0.75f,
+            true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ParsedDocument> eldest) {
+            return size() > DOCUMENT_CACHE_SIZE;
+        }
+    };
+
+    private static class ParsedDocument {
+        final DocumentContext context;
+        final long parsed;
+
+        ParsedDocument(DocumentContext context, long parsed) {
+            this.context = context;
+            this.parsed = parsed;
+        }
+    }
+
     /**
      * Transforms the input <code>source</code> by JSonPath expression.
      *
@@ -60,7 +100,7 @@ public class JSonPathTransformationService implements TransformationService {
         logger.debug("about to transform '{}' by the function '{}'", source, jsonPathExpression);
 
         try {
-            Object transformationResult = JsonPath.read(source, jsonPathExpression);
+            Object transformationResult = getDocument(source).read(getPath(jsonPathExpression));
             logger.debug("transformation resulted in '{}'", transformationResult);
             if (transformationResult == null) {
                 return null;
@@ -76,6 +116,35 @@ public class JSonPathTransformationService implements TransformationService {
         }
     }
 
+    private JsonPath getPath(String jsonPathExpression) {
+        synchronized (pathCache) {
+            @Nullable
+            JsonPath path = pathCache.get(jsonPathExpression);
+            if (path == null) {
+                path = JsonPath.compile(jsonPathExpression);
+                pathCache.put(jsonPathExpression, path);
+            }
+            return path;
+        }
+    }
+
+    private DocumentContext getDocument(String source) {
+        long now = System.nanoTime();
+        synchronized (documentCache) {
+            @Nullable
+            ParsedDocument document = documentCache.get(source);
+            if (document != null && now - document.parsed < DOCUMENT_CACHE_EXPIRY) {
+                return document.context;
+            }
+        }
+        // Parse outside of the lock, sources may be large
+        DocumentContext context = JsonPath.parse(source);
+        synchronized (documentCache) {
+            documentCache.put(source, new ParsedDocument(context, now));
+        }
+        return context;
+    }
+
     private String flattenList(List<?> list) {
         if (list.size() == 1) {
             return list.get(0).toString();
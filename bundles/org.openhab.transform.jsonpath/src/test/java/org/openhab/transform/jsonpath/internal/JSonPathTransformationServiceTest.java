@@ -129,4 +129,24 @@ public class JSonPathTransformationServiceTest {
         String transformedResponse = processor.transform("$.data", json);
         assertEquals(list, transformedResponse);
     }
+
+    @Test
+    public void testSeveralPathsOnSameSource() throws TransformationException {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("bob", processor.transform("$[0].name", jsonArray));
+            assertEquals("alice", processor.transform("$[1].name", jsonArray));
+            assertEquals("2", processor.transform("$[1].id", jsonArray));
+        }
+        assertEquals("carol", processor.transform("$[0].name", "[{ \"id\":3, \"name\":\"carol\" }]"));
+    }
+
+    @Test(expected = TransformationException.class)
+    public void testInvalidPathThrowsExceptionRepeatedly() throws TransformationException {
+        try {
+            processor.transform("$$", jsonArray);
+        } catch (TransformationException e) {
+            // The invalid path must not be cached
+        }
+        processor.transform("$$", jsonArray);
+    }
 }
@@ -12,6 +12,9 @@
  */
 package org.openhab.transform.regex.internal;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,6 +43,28 @@ public class RegExTransformationService implements TransformationService {
 
     private static final Pattern SUBSTR_PATTERN = Pattern.compile("^s/(.*?[^\\\\])/(.*?[^\\\\])/(.*)$");
 
+    /** Maximum number of compiled expressions kept */
+    private static final int CACHE_SIZE = 500;
+
+    /**
+     * A compiled regular expression, either of the substitution or of the extraction form.
+     */
+    private static class CompiledExpression {
+        final Pattern pattern;
+        final @Nullable String substitution;
+        final boolean global;
+
+        CompiledExpression(Pattern pattern, @Nullable String substitution, boolean global) {
+            this.pattern = pattern;
+            this.substitution = substitution;
+            this.global = global;
+        }
+    }
+
+    private final Map<String, CompiledExpression> cache = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
     @Override
     public @Nullable String transform(String regExpression, String source) throws TransformationException {
         if (regExpression == null || source == null) {
@@ -50,23 +75,20 @@ public class RegExTransformationService implements TransformationService {
 
         String result = "";
 
-        Matcher substMatcher = SUBSTR_PATTERN.matcher(regExpression);
-        if (substMatcher.matches()) {
+        CompiledExpression expression = getCompiledExpression(regExpression);
+        @Nullable
+        String substitution = expression.substitution;
+        if (substitution != null) {
             logger.debug("Using substitution form of regex transformation");
-            String regex = substMatcher.group(1);
-            String substitution = substMatcher.group(2);
-            String options = substMatcher.group(3);
-            if (options.equals("g")) {
-                result = source.trim().replaceAll(regex, substitution);
+            Matcher substMatcher = expression.pattern.matcher(source.trim());
+            if (expression.global) {
+                return substMatcher.replaceAll(substitution);
             } else {
-                result = source.trim().replaceFirst(regex, substitution);
-            }
-            if (result != null) {
-                return result;
+                return substMatcher.replaceFirst(substitution);
             }
         }
 
-        Matcher matcher = Pattern.compile("^" + regExpression + "$", Pattern.DOTALL).matcher(source.trim());
+        Matcher matcher = expression.pattern.matcher(source.trim());
         if (!matcher.matches()) {
             logger.debug(
                     "the given regex '^{}$' doesn't match the given content '{}' -> couldn't compute transformation",
@@ -95,4 +117,46 @@ public class RegExTransformationService implements TransformationService {
         return result;
     }
 
+    /**
+     * Return the number of transformations which used an already compiled expression.
+     */
+    long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Return the number of transformations which had to compile their expression.
+     */
+    long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    private CompiledExpression getCompiledExpression(String regExpression) {
+        @Nullable
+        CompiledExpression expression = cache.get(regExpression);
+        if (expression != null) {
+            cacheHits.incrementAndGet();
+            return expression;
+        }
+        cacheMisses.incrementAndGet();
+
+        Matcher substMatcher = SUBSTR_PATTERN.matcher(regExpression);
+        if (substMatcher.matches()) {
+            expression = new CompiledExpression(Pattern.compile(substMatcher.group(1)), substMatcher.group(2),
+                    substMatcher.group(3).equals("g"));
+        } else {
+            expression = new CompiledExpression(Pattern.compile("^" + regExpression + "$", Pattern.DOTALL), null,
+                    false);
+        }
+
+        if (cache.size() >= CACHE_SIZE) {
+            // Expressions are usually configured and rarely change, start over if many different ones are used
+            logger.debug("Clearing the cache of {} compiled expressions ({} cache hits, {} misses)", cache.size(),
+                    cacheHits.get(), cacheMisses.get());
+            cache.clear();
+        }
+        cache.put(regExpression, expression);
+        return expression;
+    }
+
 }
@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.regex.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.smarthome.core.transform.TransformationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares transformations with the compiled expression cache to compiling the expression for every transformation.
+ * Not run by the unit tests, start {@link #main(String[])} from the test classpath.
+ *
+ * @author agent - Initial contribution
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegExTransformationServiceBenchmark {
+
+    private static final String EXPRESSION = ".*\\[(\\w+)\\].*";
+    private static final String SOURCE = "2019-03-01 12:00:00 [WARN] message";
+
+    private final RegExTransformationService service = new RegExTransformationService();
+
+    @Benchmark
+    public String cachedExpression() throws TransformationException {
+        return service.transform(EXPRESSION, SOURCE);
+    }
+
+    @Benchmark
+    public String compiledExpression() {
+        // What every transformation did before expressions were cached
+        Matcher matcher = Pattern.compile("^" + EXPRESSION + "$", Pattern.DOTALL).matcher(SOURCE.trim());
+        return matcher.matches() ? matcher.group(1) : "";
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RegExTransformationServiceBenchmark.class.getSimpleName()).build())
+                .run();
+    }
+}
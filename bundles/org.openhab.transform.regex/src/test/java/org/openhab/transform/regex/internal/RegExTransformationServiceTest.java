@@ -79,4 +79,19 @@ public class RegExTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("varX=12 varY=54 ", transformedResponse);
     }
+
+    @Test
+    public void testTransformByRegex_cachedPattern() throws TransformationException {
+        final String serialPattern = "s/^OP:(.*?),ARG:(.*)$/$1($2)/";
+        final String logLinePattern = ".*\\[(\\w+)\\].*";
+
+        assertEquals("SetMode(42)", processor.transform(serialPattern, "OP:SetMode,ARG:42"));
+        assertEquals("SetLevel(7)", processor.transform(serialPattern, "OP:SetLevel,ARG:7"));
+        assertEquals("WARN", processor.transform(logLinePattern, "2019-03-01 12:00:00 [WARN] message"));
+        assertEquals("INFO", processor.transform(logLinePattern, "2019-03-01 12:00:01 [INFO] message"));
+
+        // Asserts
+        assertEquals(2, processor.getCacheMisses());
+        assertEquals(2, processor.getCacheHits());
+    }
 }
@@ -13,12 +13,15 @@
 package org.openhab.transform.xpath.internal;
 
 import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.xpath.XPath;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -41,8 +44,39 @@ import org.xml.sax.InputSource;
 @Component(immediate = true, property = { "smarthome.transform=XPATH" })
 public class XPathTransformationService implements TransformationService {
 
+    /** Number of compiled XPath expressions kept */
+    private static final int EXPRESSION_CACHE_SIZE = 100;
+
     private final Logger logger = LoggerFactory.getLogger(XPathTransformationService.class);
 
+    private final DocumentBuilderFactory domFactory;
+
+    private final XPathFactory xpathFactory = XPathFactory.newInstance();
+
+    /**
+     * Document builders are not thread safe, so every thread reuses its own builder
+     */
+    private final ThreadLocal<@Nullable DocumentBuilder> documentBuilders = new ThreadLocal<>();
+
+    /**
+     * Compiled expressions. Compiled expressions are not thread safe, evaluate them synchronized on the expression.
+     */
+    private final Map<String, XPathExpression> expressionCache = new LinkedHashMap<String, XPathExpression>(16, 0.75f,
+            true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+            return size() > EXPRESSION_CACHE_SIZE;
+        }
+    };
+
+    public XPathTransformationService() {
+        domFactory = DocumentBuilderFactory.newInstance();
+        domFactory.setNamespaceAware(true);
+        domFactory.setValidating(false);
+    }
+
     @Override
     public @Nullable String transform(String xpathExpression, String source) throws TransformationException {
         if (xpathExpression == null || source == null) {
@@ -51,34 +85,48 @@ public class XPathTransformationService implements TransformationService {
 
         logger.debug("about to transform '{}' by the function '{}'", source, xpathExpression);
 
-        StringReader stringReader = null;
-
-        try {
-            DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-            domFactory.setNamespaceAware(true);
-            domFactory.setValidating(false);
-            DocumentBuilder builder = domFactory.newDocumentBuilder();
-
-            stringReader = new StringReader(source);
+        try (StringReader stringReader = new StringReader(source)) {
             InputSource inputSource = new InputSource(stringReader);
             inputSource.setEncoding("UTF-8");
 
-            Document doc = builder.parse(inputSource);
+            Document doc = getDocumentBuilder().parse(inputSource);
 
-            XPath xpath = XPathFactory.newInstance().newXPath();
-            XPathExpression expr = xpath.compile(xpathExpression);
+            XPathExpression expr = getExpression(xpathExpression);
 
-            String transformationResult = (String) expr.evaluate(doc, XPathConstants.STRING);
+            String transformationResult;
+            synchronized (expr) {
+                transformationResult = (String) expr.evaluate(doc, XPathConstants.STRING);
+            }
 
             logger.debug("transformation resulted in '{}'", transformationResult);
 
             return transformationResult;
         } catch (Exception e) {
             throw new TransformationException("transformation throws exceptions", e);
-        } finally {
-            if (stringReader != null) {
-                stringReader.close();
+        }
+    }
+
+    private DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        @Nullable
+        DocumentBuilder builder = documentBuilders.get();
+        if (builder == null) {
+            builder = domFactory.newDocumentBuilder();
+            documentBuilders.set(builder);
+        } else {
+            builder.reset();
+        }
+        return builder;
+    }
+
+    private XPathExpression getExpression(String xpathExpression) throws XPathExpressionException {
+        synchronized (expressionCache) {
+            @Nullable
+            XPathExpression expr = expressionCache.get(xpathExpression);
+            if (expr == null) {
+                expr = xpathFactory.newXPath().compile(xpathExpression);
+                expressionCache.put(xpathExpression, expr);
             }
+            return expr;
         }
     }
 
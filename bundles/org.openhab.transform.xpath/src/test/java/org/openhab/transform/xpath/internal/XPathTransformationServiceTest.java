@@ -41,4 +41,16 @@ public class XPathTransformationServiceTest extends AbstractTransformationServic
         assertEquals("8", transformedResponse);
     }
 
+    @Test
+    public void testTransformByCachedXPath() throws TransformationException {
+        assertEquals("8", processor.transform("//current_conditions/temp_c/@data", source));
+        assertEquals("-1", processor.transform("//forecast_conditions[1]/low/@data", source));
+        assertEquals("8", processor.transform("//current_conditions/temp_c/@data", source));
+    }
+
+    @Test(expected = TransformationException.class)
+    public void testInvalidXPathThrowsException() throws TransformationException {
+        processor.transform("//current_conditions/[", source);
+    }
+
 }
@@ -14,6 +14,8 @@ package org.openhab.transform.xslt.internal;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Locale;
+
 import org.eclipse.smarthome.core.transform.TransformationException;
 import org.junit.Before;
 import org.junit.Test;
@@ -28,7 +30,12 @@ public class XsltTransformationServiceTest extends AbstractTransformationService
 
     @Before
     public void init() {
-        processor = new XsltTransformationService();
+        processor = new XsltTransformationService() {
+            @Override
+            protected Locale getLocale() {
+                return Locale.US;
+            }
+        };
     }
 
     @Test
@@ -41,4 +48,10 @@ public class XsltTransformationServiceTest extends AbstractTransformationService
         assertEquals("8", transformedResponse);
     }
 
+    @Test
+    public void testTransformByCachedXSLT() throws TransformationException {
+        assertEquals("8", processor.transform("http/google_weather.xsl", source));
+        assertEquals("8", processor.transform("http/google_weather.xsl", source));
+    }
+
 }